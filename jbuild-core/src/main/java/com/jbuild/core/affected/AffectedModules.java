@@ -0,0 +1,146 @@
+package com.jbuild.core.affected;
+
+import com.jbuild.core.graph.ModuleGraph;
+
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Calcula qué módulos hay que construir y testear a partir de los archivos modificados:
+ * los módulos dueños de esos archivos y, transitivamente, todos los que dependen de ellos.
+ * <p>
+ * Un archivo que no pertenece a ningún módulo (p. ej. el build raíz) puede afectar a
+ * cualquiera, así que fuerza el build completo salvo que coincida con un patrón ignorado.
+ */
+public class AffectedModules {
+    private final Map<String, ModuleLayout> modules = new LinkedHashMap<>();
+    private final List<PathMatcher> ignored = new ArrayList<>();
+    private final ModuleGraph graph;
+
+    /**
+     * @param moduleDependencies dependencias entre módulos por nombre, p. ej. las de
+     *                           {@code MultiProjectDefinitionImpl.getModuleDependencies()}
+     */
+    public AffectedModules(Collection<ModuleLayout> layouts, Map<String, List<String>> moduleDependencies) {
+        for (ModuleLayout layout : layouts) {
+            modules.put(layout.getName(), layout);
+        }
+        ModuleGraph.Builder builder = ModuleGraph.builder();
+        for (String module : modules.keySet()) {
+            builder.module(module);
+        }
+        for (Map.Entry<String, List<String>> entry : moduleDependencies.entrySet()) {
+            for (String dependency : entry.getValue()) {
+                if (modules.containsKey(entry.getKey()) && modules.containsKey(dependency)) {
+                    builder.dependency(entry.getKey(), dependency);
+                }
+            }
+        }
+        this.graph = builder.build();
+    }
+
+    /**
+     * Patrón glob de archivos que no afectan a ningún módulo (p. ej. "**.md")
+     */
+    public AffectedModules ignore(String glob) {
+        ignored.add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+        return this;
+    }
+
+    /**
+     * Módulo dueño del archivo: el de directorio más específico que lo contiene, o null
+     */
+    public String owner(String file) {
+        String path = ModuleLayout.normalize(file);
+        String owner = null;
+        int longest = -1;
+        for (ModuleLayout layout : modules.values()) {
+            for (String directory : layout.ownedDirectories()) {
+                boolean contains = directory.isEmpty() || path.equals(directory) || path.startsWith(directory + "/");
+                if (contains && directory.length() > longest) {
+                    owner = layout.getName();
+                    longest = directory.length();
+                }
+            }
+        }
+        return owner;
+    }
+
+    public Result compute(List<String> changedFiles) {
+        Set<String> changed = new LinkedHashSet<>();
+        List<String> unowned = new ArrayList<>();
+        for (String file : changedFiles) {
+            if (isIgnored(file)) {
+                continue;
+            }
+            String owner = owner(file);
+            if (owner != null) {
+                changed.add(owner);
+            } else {
+                unowned.add(file);
+            }
+        }
+        boolean fullBuild = !unowned.isEmpty();
+        BitSet affected;
+        if (fullBuild) {
+            affected = new BitSet(graph.size());
+            affected.set(0, graph.size());
+        } else {
+            BitSet seeds = new BitSet(graph.size());
+            for (String module : changed) {
+                seeds.set(graph.id(module));
+            }
+            affected = graph.transitiveDependents(seeds);
+        }
+
+        List<String> ordered = new ArrayList<>();
+        for (int module : graph.topologicalOrder()) {
+            if (affected.get(module)) {
+                ordered.add(graph.name(module));
+            }
+        }
+        return new Result(new ArrayList<>(changed), ordered, unowned, fullBuild);
+    }
+
+    private boolean isIgnored(String file) {
+        for (PathMatcher matcher : ignored) {
+            if (matcher.matches(Paths.get(file))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Módulos modificados y afectados, en orden de build
+     */
+    public static class Result {
+        private final List<String> changedModules;
+        private final List<String> affectedModules;
+        private final List<String> unownedFiles;
+        private final boolean fullBuild;
+
+        Result(List<String> changedModules, List<String> affectedModules, List<String> unownedFiles,
+               boolean fullBuild) {
+            this.changedModules = changedModules;
+            this.affectedModules = affectedModules;
+            this.unownedFiles = unownedFiles;
+            this.fullBuild = fullBuild;
+        }
+
+        // Getters
+        public List<String> getChangedModules() { return new ArrayList<>(changedModules); }
+        public List<String> getAffectedModules() { return new ArrayList<>(affectedModules); }
+        public List<String> getUnownedFiles() { return new ArrayList<>(unownedFiles); }
+        public boolean isFullBuild() { return fullBuild; }
+    }
+}
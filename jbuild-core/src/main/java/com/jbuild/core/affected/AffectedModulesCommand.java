@@ -0,0 +1,101 @@
+package com.jbuild.core.affected;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comando para CI: imprime en stdout, uno por línea y en orden de build, los módulos
+ * afectados por los cambios respecto a una revisión base.
+ * <pre>
+ *   AffectedModulesCommand --base origin/main [--repository dir] [--ignore glob]...
+ *       --module jbuild-model --module jbuild-core=jbuild-model ...
+ * </pre>
+ * Cada {@code --module} es {@code nombre[=dependencia,dependencia...]}; el directorio del
+ * módulo es su nombre relativo al repositorio, con la estructura estándar de directorios.
+ */
+public class AffectedModulesCommand {
+    private static final List<String> SOURCE_DIRECTORIES = Arrays.asList("src/main/java", "src/test/java");
+    private static final List<String> RESOURCE_DIRECTORIES = Arrays.asList("src/main/resources", "src/test/resources");
+
+    public static void main(String[] args) throws Exception {
+        String base = null;
+        Path repository = Paths.get(".");
+        List<String> ignored = new ArrayList<>();
+        Map<String, List<String>> dependencies = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--base":
+                    base = value;
+                    i++;
+                    break;
+                case "--repository":
+                    repository = Paths.get(value);
+                    i++;
+                    break;
+                case "--ignore":
+                    ignored.add(value);
+                    i++;
+                    break;
+                case "--module":
+                    addModule(value, dependencies);
+                    i++;
+                    break;
+                default:
+                    usage("Argumento desconocido: " + args[i]);
+            }
+        }
+        if (base == null || dependencies.isEmpty()) {
+            usage("Se necesitan --base y al menos un --module");
+        }
+
+        List<ModuleLayout> layouts = new ArrayList<>();
+        for (String module : dependencies.keySet()) {
+            ModuleLayout layout = ModuleLayout.builder().name(module).directory(module);
+            SOURCE_DIRECTORIES.forEach(layout::sourceDirectory);
+            RESOURCE_DIRECTORIES.forEach(layout::resourceDirectory);
+            layouts.add(layout);
+        }
+        AffectedModules affected = new AffectedModules(layouts, dependencies);
+        ignored.forEach(affected::ignore);
+
+        List<String> changedFiles = GitChanges.since(repository, base);
+        AffectedModules.Result result = affected.compute(changedFiles);
+        System.err.println("Archivos modificados: " + changedFiles.size());
+        System.err.println("Módulos modificados: " + result.getChangedModules());
+        if (result.isFullBuild()) {
+            System.err.println("Build completo: archivos fuera de los módulos " + result.getUnownedFiles());
+        }
+        for (String module : result.getAffectedModules()) {
+            System.out.println(module);
+        }
+    }
+
+    private static void addModule(String value, Map<String, List<String>> dependencies) {
+        if (value == null) {
+            usage("--module necesita un nombre");
+        }
+        int equals = value.indexOf('=');
+        String name = equals < 0 ? value : value.substring(0, equals);
+        List<String> moduleDependencies = dependencies.computeIfAbsent(name, ignored -> new ArrayList<>());
+        if (equals >= 0) {
+            for (String dependency : value.substring(equals + 1).split(",")) {
+                if (!dependency.trim().isEmpty()) {
+                    moduleDependencies.add(dependency.trim());
+                }
+            }
+        }
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Uso: AffectedModulesCommand --base <revisión> [--repository <dir>] [--ignore <glob>]..."
+            + " --module <nombre>[=<dependencia>,...]...");
+        System.exit(2);
+    }
+}
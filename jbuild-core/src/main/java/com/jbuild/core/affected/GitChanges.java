@@ -0,0 +1,69 @@
+package com.jbuild.core.affected;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Archivos modificados en el repositorio git local respecto a una revisión base
+ */
+public final class GitChanges {
+
+    private GitChanges() {}
+
+    /**
+     * Archivos que difieren entre el punto de bifurcación con {@code base} y el árbol de
+     * trabajo (commits de la rama, cambios sin commitear y archivos nuevos sin seguimiento),
+     * relativos a {@code repository}. Los renombrados aparecen con la ruta antigua y la nueva.
+     */
+    public static List<String> since(Path repository, String base) throws IOException {
+        String mergeBase = git(repository, "merge-base", base, "HEAD").trim();
+        Set<String> changed = new LinkedHashSet<>();
+        addLines(changed, git(repository, "diff", "--name-only", "--no-renames", "--relative", mergeBase));
+        addLines(changed, git(repository, "ls-files", "--others", "--exclude-standard"));
+        return new ArrayList<>(changed);
+    }
+
+    private static void addLines(Set<String> target, String output) {
+        for (String line : output.split("\n")) {
+            if (!line.trim().isEmpty()) {
+                target.add(line.trim());
+            }
+        }
+    }
+
+    private static String git(Path repository, String... arguments) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(arguments));
+        Path errors = Files.createTempFile("jbuild-git", ".err");
+        try {
+            Process process = new ProcessBuilder(command)
+                .directory(repository.toFile())
+                .redirectError(errors.toFile())
+                .start();
+            String output;
+            try (InputStream in = process.getInputStream()) {
+                output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException("git " + String.join(" ", arguments) + " terminó con código " + exitCode
+                    + ": " + new String(Files.readAllBytes(errors), StandardCharsets.UTF_8).trim());
+            }
+            return output;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrumpido ejecutando git", e);
+        } finally {
+            Files.deleteIfExists(errors);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.jbuild.core.affected;
+
+import com.jbuild.core.dsl.type_safe.BuildConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Directorios de un módulo relativos a la raíz del repositorio, usados para saber a qué
+ * módulo pertenece cada archivo modificado
+ */
+public class ModuleLayout {
+    private String name;
+    private String directory = "";
+    private final List<String> sourceDirectories = new ArrayList<>();
+    private final List<String> resourceDirectories = new ArrayList<>();
+
+    public ModuleLayout() {}
+
+    public static ModuleLayout builder() {
+        return new ModuleLayout();
+    }
+
+    /**
+     * Módulo en {@code directory} con los directorios de fuentes y recursos (principales
+     * y de test) del BuildConfig
+     */
+    public static ModuleLayout fromBuildConfig(String name, String directory, BuildConfig config) {
+        ModuleLayout layout = builder()
+            .name(name)
+            .directory(directory)
+            .sourceDirectory(config.getSourceDirectory())
+            .sourceDirectory(config.getTestSourceDirectory());
+        for (String resources : config.getResources()) {
+            layout.resourceDirectory(resources);
+        }
+        for (String resources : config.getTestResources()) {
+            layout.resourceDirectory(resources);
+        }
+        return layout;
+    }
+
+    public ModuleLayout name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public ModuleLayout directory(String directory) {
+        this.directory = normalize(directory);
+        return this;
+    }
+
+    /**
+     * Directorio de fuentes relativo al directorio del módulo
+     */
+    public ModuleLayout sourceDirectory(String directory) {
+        if (directory != null) {
+            sourceDirectories.add(normalize(directory));
+        }
+        return this;
+    }
+
+    /**
+     * Directorio de recursos relativo al directorio del módulo
+     */
+    public ModuleLayout resourceDirectory(String directory) {
+        if (directory != null) {
+            resourceDirectories.add(normalize(directory));
+        }
+        return this;
+    }
+
+    /**
+     * Directorios del módulo relativos a la raíz del repositorio, empezando por el propio módulo
+     */
+    List<String> ownedDirectories() {
+        List<String> owned = new ArrayList<>();
+        owned.add(directory);
+        for (String source : sourceDirectories) {
+            owned.add(resolve(source));
+        }
+        for (String resources : resourceDirectories) {
+            owned.add(resolve(resources));
+        }
+        return owned;
+    }
+
+    private String resolve(String relative) {
+        return directory.isEmpty() ? relative : directory + "/" + relative;
+    }
+
+    static String normalize(String path) {
+        String normalized = path.replace('\\', '/');
+        while (normalized.startsWith("./")) {
+            normalized = normalized.substring(2);
+        }
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized.equals(".") ? "" : normalized;
+    }
+
+    // Getters
+    public String getName() { return name; }
+    public String getDirectory() { return directory; }
+    public List<String> getSourceDirectories() { return new ArrayList<>(sourceDirectories); }
+    public List<String> getResourceDirectories() { return new ArrayList<>(resourceDirectories); }
+}
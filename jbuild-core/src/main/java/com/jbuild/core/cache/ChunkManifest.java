@@ -0,0 +1,67 @@
+package com.jbuild.core.cache;
+
+import com.jbuild.core.remote.Digest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entrada de la cache troceada: digest del artefacto completo y lista ordenada de sus trozos
+ */
+public class ChunkManifest {
+    private static final int FORMAT_VERSION = 1;
+
+    private final String key;
+    private final Digest digest;
+    private final List<Digest> chunks;
+
+    public ChunkManifest(String key, Digest digest, List<Digest> chunks) {
+        this.key = key;
+        this.digest = digest;
+        this.chunks = new ArrayList<>(chunks);
+    }
+
+    public byte[] serialize() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(key);
+            out.writeUTF(digest.toString());
+            out.writeInt(chunks.size());
+            for (Digest chunk : chunks) {
+                out.writeUTF(chunk.toString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static ChunkManifest parse(byte[] content) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(content))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Formato de manifiesto no soportado");
+            }
+            String key = in.readUTF();
+            Digest digest = Digest.parse(in.readUTF());
+            int count = in.readInt();
+            List<Digest> chunks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                chunks.add(Digest.parse(in.readUTF()));
+            }
+            return new ChunkManifest(key, digest, chunks);
+        }
+    }
+
+    // Getters
+    public String getKey() { return key; }
+    public Digest getDigest() { return digest; }
+    public List<Digest> getChunks() { return new ArrayList<>(chunks); }
+    public long getSize() { return digest.getSize(); }
+}
@@ -0,0 +1,246 @@
+package com.jbuild.core.cache;
+
+import com.jbuild.core.metrics.BuildMetrics;
+import com.jbuild.core.metrics.Counter;
+import com.jbuild.core.remote.Digest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Cache de artefactos (JARs, ensamblados...) guardados como trozos definidos por su
+ * contenido ({@link ContentChunker}). Cada trozo se guarda una sola vez y cada entrada es
+ * la lista de sus trozos, así que dos versiones casi iguales de un JAR solo ocupan y
+ * transfieren los trozos que cambian.
+ * <p>
+ * Funciona bien con JARs porque cada entrada se comprime por separado: cambiar una
+ * clase solo altera su entrada comprimida y el directorio central.
+ */
+public class ChunkedArtifactStore {
+    private static final long GARBAGE_GRACE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final Path directory;
+    private final ContentChunker chunker;
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final AtomicLong deduplicatedBytes = new AtomicLong();
+    private final Counter uploaded = BuildMetrics.shared().bytesTransferred("upload");
+
+    public ChunkedArtifactStore(Path directory) {
+        this(directory, new ContentChunker());
+    }
+
+    public ChunkedArtifactStore(Path directory, ContentChunker chunker) {
+        this.directory = directory;
+        this.chunker = chunker;
+    }
+
+    /**
+     * Guarda el archivo con la clave indicada; solo se escriben los trozos que no estaban
+     */
+    public ChunkManifest put(String key, Path file) throws IOException {
+        List<Digest> chunks = new ArrayList<>();
+        MessageDigest whole = Digest.sha256();
+        long[] size = new long[1];
+        try (InputStream in = Files.newInputStream(file)) {
+            chunker.chunk(in, (buffer, offset, length) -> {
+                whole.update(buffer, offset, length);
+                size[0] += length;
+                byte[] chunk = new byte[length];
+                System.arraycopy(buffer, offset, chunk, 0, length);
+                chunks.add(storeChunk(chunk));
+            });
+        }
+        ChunkManifest manifest = new ChunkManifest(key, Digest.fromHash(whole.digest(), size[0]), chunks);
+        writeAtomically(manifestPath(key), manifest.serialize());
+        return manifest;
+    }
+
+    /**
+     * Manifiesto de la clave, o null si no está o le falta algún trozo
+     */
+    public ChunkManifest manifest(String key) throws IOException {
+        Path path = manifestPath(key);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        ChunkManifest manifest = ChunkManifest.parse(Files.readAllBytes(path));
+        return missingChunks(manifest).isEmpty() ? manifest : null;
+    }
+
+    /**
+     * Reconstruye el artefacto en {@code target} verificando su digest; false si no está en la cache
+     */
+    public boolean restore(String key, Path target) throws IOException {
+        ChunkManifest manifest = manifest(key);
+        if (manifest == null) {
+            return false;
+        }
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        MessageDigest whole = Digest.sha256();
+        long size = 0;
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                for (Digest chunk : manifest.getChunks()) {
+                    byte[] bytes = Files.readAllBytes(chunkPath(chunk));
+                    whole.update(bytes);
+                    out.write(bytes);
+                    size += bytes.length;
+                }
+            }
+            if (!Digest.fromHash(whole.digest(), size).equals(manifest.getDigest())) {
+                throw new IOException("El artefacto reconstruido de " + key + " no coincide con su digest");
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public List<Digest> missingChunks(ChunkManifest manifest) {
+        List<Digest> missing = new ArrayList<>();
+        for (Digest chunk : new HashSet<>(manifest.getChunks())) {
+            if (!Files.isRegularFile(chunkPath(chunk))) {
+                missing.add(chunk);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Copia la entrada a otra cache (p. ej. la compartida) enviando solo los trozos que
+     * le faltan. Devuelve los bytes de trozos transferidos.
+     */
+    public long transferTo(String key, ChunkedArtifactStore target) throws IOException {
+        ChunkManifest manifest = manifest(key);
+        if (manifest == null) {
+            throw new IOException("No hay ninguna entrada completa para " + key);
+        }
+        long transferred = 0;
+        for (Digest chunk : new HashSet<>(manifest.getChunks())) {
+            if (!touch(target.chunkPath(chunk))) {
+                target.writeAtomically(target.chunkPath(chunk), Files.readAllBytes(chunkPath(chunk)));
+                transferred += chunk.getSize();
+            }
+        }
+        target.writeAtomically(target.manifestPath(key), manifest.serialize());
+        uploaded.add(transferred);
+        return transferred;
+    }
+
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(manifestPath(key));
+    }
+
+    /**
+     * Borra los trozos que no usa ninguna entrada. Los trozos recientes se conservan
+     * aunque no estén referenciados, porque pueden ser de un {@link #put} en curso
+     * (que también renueva la fecha de los trozos que reutiliza).
+     * Devuelve los bytes liberados.
+     */
+    public long collectGarbage() throws IOException {
+        Set<Digest> referenced = new HashSet<>();
+        for (Path manifest : list(directory.resolve("entries"))) {
+            referenced.addAll(ChunkManifest.parse(Files.readAllBytes(manifest)).getChunks());
+        }
+        long cutoff = System.currentTimeMillis() - GARBAGE_GRACE_MILLIS;
+        long freed = 0;
+        for (Path chunk : list(directory.resolve("chunks"))) {
+            String name = chunk.getFileName().toString();
+            long size = Files.size(chunk);
+            if (name.length() == 64 && !referenced.contains(new Digest(name, size))
+                    && Files.getLastModifiedTime(chunk).toMillis() < cutoff) {
+                Files.deleteIfExists(chunk);
+                freed += size;
+            }
+        }
+        return freed;
+    }
+
+    /**
+     * Bytes de trozos nuevos escritos por esta instancia
+     */
+    public long getStoredBytes() { return storedBytes.get(); }
+
+    /**
+     * Bytes que no se escribieron porque el trozo ya estaba guardado
+     */
+    public long getDeduplicatedBytes() { return deduplicatedBytes.get(); }
+
+    private Digest storeChunk(byte[] chunk) throws IOException {
+        Digest digest = Digest.of(chunk);
+        Path path = chunkPath(digest);
+        if (touch(path)) {
+            deduplicatedBytes.addAndGet(chunk.length);
+        } else {
+            writeAtomically(path, chunk);
+            storedBytes.addAndGet(chunk.length);
+        }
+        return digest;
+    }
+
+    /**
+     * Renueva la fecha del trozo para que {@link #collectGarbage} no lo borre mientras
+     * se escribe el manifiesto que lo usa; false si el trozo no existe
+     */
+    private static boolean touch(Path chunk) throws IOException {
+        try {
+            Files.setLastModifiedTime(chunk, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private Path chunkPath(Digest digest) {
+        String hash = digest.getHash();
+        return directory.resolve("chunks").resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path manifestPath(String key) {
+        String hash = Digest.of(key.getBytes(StandardCharsets.UTF_8)).getHash();
+        return directory.resolve("entries").resolve(hash.substring(0, 2)).resolve(hash + ".manifest");
+    }
+
+    private void writeAtomically(Path target, byte[] content) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        Files.write(temp, content);
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static List<Path> list(Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> walk = Files.walk(root)) {
+            return walk.filter(Files::isRegularFile)
+                .filter(path -> !path.getFileName().toString().endsWith(".tmp"))
+                .collect(Collectors.toList());
+        }
+    }
+}
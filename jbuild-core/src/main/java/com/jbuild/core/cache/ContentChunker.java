@@ -0,0 +1,114 @@
+package com.jbuild.core.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.SplittableRandom;
+
+/**
+ * Troceado por contenido (FastCDC con hash "gear"): los cortes dependen solo de los
+ * bytes cercanos, de modo que insertar o cambiar datos en un punto de un archivo solo
+ * cambia los trozos de alrededor y el resto se reconoce como ya almacenado.
+ * <p>
+ * Usa chunking normalizado: hasta el tamaño medio se exige una máscara más estricta y a
+ * partir de él una más laxa, lo que concentra los tamaños cerca de la media.
+ * La tabla gear y las máscaras forman parte del formato de la cache: cambiarlas invalida
+ * la deduplicación con los trozos ya guardados.
+ */
+public class ContentChunker {
+    public static final int DEFAULT_MIN_SIZE = 2 * 1024;
+    public static final int DEFAULT_AVERAGE_SIZE = 8 * 1024;
+    public static final int DEFAULT_MAX_SIZE = 64 * 1024;
+
+    private static final long[] GEAR = new long[256];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x6A6275696C64L);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Recibe cada trozo; el array se reutiliza después de la llamada
+     */
+    public interface ChunkConsumer {
+        void accept(byte[] buffer, int offset, int length) throws IOException;
+    }
+
+    private final int minSize;
+    private final int averageSize;
+    private final int maxSize;
+    private final long strictMask;
+    private final long looseMask;
+
+    public ContentChunker() {
+        this(DEFAULT_MIN_SIZE, DEFAULT_AVERAGE_SIZE, DEFAULT_MAX_SIZE);
+    }
+
+    public ContentChunker(int minSize, int averageSize, int maxSize) {
+        if (Integer.bitCount(averageSize) != 1 || minSize >= averageSize || averageSize >= maxSize) {
+            throw new IllegalArgumentException("Tamaños de trozo no válidos: " + minSize + "/" + averageSize + "/" + maxSize);
+        }
+        this.minSize = minSize;
+        this.averageSize = averageSize;
+        this.maxSize = maxSize;
+        int bits = Integer.numberOfTrailingZeros(averageSize);
+        // Bits altos: en el hash gear dependen de los últimos ~64 bytes
+        this.strictMask = -1L << (64 - (bits + 2));
+        this.looseMask = -1L << (64 - (bits - 2));
+    }
+
+    public void chunk(InputStream in, ChunkConsumer consumer) throws IOException {
+        byte[] buffer = new byte[maxSize];
+        int filled = fill(in, buffer, 0);
+        while (filled > 0) {
+            int cut = cut(buffer, filled);
+            consumer.accept(buffer, 0, cut);
+            System.arraycopy(buffer, cut, buffer, 0, filled - cut);
+            filled = fill(in, buffer, filled - cut);
+        }
+    }
+
+    /**
+     * Longitud del siguiente trozo al principio del buffer
+     */
+    int cut(byte[] data, int length) {
+        if (length <= minSize) {
+            return length;
+        }
+        int limit = Math.min(length, maxSize);
+        int normal = Math.min(limit, averageSize);
+        long hash = 0;
+        int i = minSize;
+        for (; i < normal; i++) {
+            hash = (hash << 1) + GEAR[data[i] & 0xFF];
+            if ((hash & strictMask) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < limit; i++) {
+            hash = (hash << 1) + GEAR[data[i] & 0xFF];
+            if ((hash & looseMask) == 0) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    private static int fill(InputStream in, byte[] buffer, int filled) throws IOException {
+        int total = filled;
+        while (total < buffer.length) {
+            int read = in.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    // Getters
+    public int getMinSize() { return minSize; }
+    public int getAverageSize() { return averageSize; }
+    public int getMaxSize() { return maxSize; }
+}
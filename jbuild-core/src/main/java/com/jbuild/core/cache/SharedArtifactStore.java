@@ -0,0 +1,224 @@
+package com.jbuild.core.cache;
+
+import com.jbuild.core.dsl.type_safe.BuildConfig;
+import com.jbuild.core.remote.Digest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Almacén de artefactos de toda la máquina (JARs de dependencias, salidas de build),
+ * direccionado por contenido. Los workspaces reciben enlaces duros a sus objetos en
+ * lugar de copias, así que varios checkouts del mismo repositorio comparten disco y
+ * materializar un artefacto no copia datos.
+ * <p>
+ * El número de enlaces del objeto (nlink) hace de contador de referencias: un objeto
+ * con un único enlace ya no lo usa ningún workspace y {@link #collectGarbage()} puede
+ * borrarlo. Los objetos son de solo lectura, porque modificar un enlace en un workspace
+ * modificaría el de todos; las herramientas que reescriben sus salidas las sustituyen.
+ * Si el enlace no es posible (otro sistema de archivos, sin soporte) se copia.
+ */
+public class SharedArtifactStore {
+    private static final long GARBAGE_GRACE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final Path directory;
+    private final AtomicLong linked = new AtomicLong();
+    private final AtomicLong copied = new AtomicLong();
+    private final AtomicLong savedBytes = new AtomicLong();
+
+    public SharedArtifactStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Almacén configurado en {@link BuildConfig#getSharedArtifactStore()}
+     */
+    public static SharedArtifactStore forBuildConfig(BuildConfig config) {
+        return new SharedArtifactStore(BuildConfig.resolvePath(config.getSharedArtifactStore()));
+    }
+
+    public Path getDirectory() { return directory; }
+
+    /**
+     * Guarda el contenido del archivo (si no estaba) y devuelve su digest. Si ya estaba
+     * solo se lee el archivo para calcular el digest, sin copiarlo.
+     */
+    public Digest add(Path file) throws IOException {
+        MessageDigest sha = Digest.sha256();
+        long size;
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), sha)) {
+            size = in.transferTo(OutputStream.nullOutputStream());
+        }
+        Digest digest = Digest.fromHash(sha.digest(), size);
+        if (touch(objectPath(digest))) {
+            return digest;
+        }
+
+        Path staging = directory.resolve("tmp");
+        Files.createDirectories(staging);
+        Path temp = Files.createTempFile(staging, "add", ".tmp");
+        try {
+            // El archivo puede haber cambiado desde la primera lectura: manda el de la copia
+            MessageDigest copySha = Digest.sha256();
+            long copySize;
+            try (InputStream in = Files.newInputStream(file);
+                 OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), copySha)) {
+                copySize = in.transferTo(out);
+            }
+            digest = Digest.fromHash(copySha.digest(), copySize);
+            Path object = objectPath(digest);
+            if (touch(object)) {
+                return digest;
+            }
+            Files.createDirectories(object.getParent());
+            temp.toFile().setWritable(false, false);
+            try {
+                Files.move(temp, object, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Otro proceso lo guardó a la vez
+            }
+            return digest;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public boolean contains(Digest digest) {
+        return Files.isRegularFile(objectPath(digest));
+    }
+
+    /**
+     * Crea {@code target} como enlace duro al objeto (o como copia si no se puede enlazar),
+     * sustituyendo lo que hubiera
+     */
+    public void link(Digest digest, Path target) throws IOException {
+        Path object = objectPath(digest);
+        if (!Files.isRegularFile(object)) {
+            throw new IOException("Artefacto no encontrado en " + directory + ": " + digest);
+        }
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        if (Files.exists(target) && Files.isSameFile(target, object)) {
+            return;
+        }
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, object);
+            linked.incrementAndGet();
+            savedBytes.addAndGet(digest.getSize());
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(object, target, StandardCopyOption.REPLACE_EXISTING);
+            target.toFile().setWritable(true);
+            copied.incrementAndGet();
+        }
+    }
+
+    /**
+     * Guarda el archivo en el almacén y lo enlaza en {@code target}
+     */
+    public Digest materialize(Path source, Path target) throws IOException {
+        Digest digest = add(source);
+        link(digest, target);
+        return digest;
+    }
+
+    /**
+     * Workspaces que enlazan el objeto (enlaces duros menos el propio almacén), o -1 si
+     * el sistema de archivos no lo expone
+     */
+    public int references(Digest digest) throws IOException {
+        Integer links = linkCount(objectPath(digest));
+        return links == null ? -1 : links - 1;
+    }
+
+    /**
+     * Borra los objetos que ya no enlaza ningún workspace, salvo los recientes (pueden
+     * estar a punto de enlazarse; {@link #add} renueva la fecha de los que ya estaban).
+     * Sin contador de enlaces disponible no se borra nada. Devuelve los bytes liberados.
+     */
+    public long collectGarbage() throws IOException {
+        Path objects = directory.resolve("objects");
+        if (!Files.isDirectory(objects)) {
+            return 0;
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(objects)) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        long cutoff = System.currentTimeMillis() - GARBAGE_GRACE_MILLIS;
+        long freed = 0;
+        for (Path object : files) {
+            Integer links = linkCount(object);
+            if (links == null) {
+                return freed;
+            }
+            if (links == 1 && Files.getLastModifiedTime(object).toMillis() < cutoff) {
+                long size = Files.size(object);
+                Files.deleteIfExists(object);
+                freed += size;
+            }
+        }
+        return freed;
+    }
+
+    /**
+     * Artefactos enlazados (sin copia)
+     */
+    public long getLinked() { return linked.get(); }
+
+    /**
+     * Artefactos copiados porque no se pudo enlazar
+     */
+    public long getCopied() { return copied.get(); }
+
+    /**
+     * Bytes que no se copiaron gracias a los enlaces
+     */
+    public long getSavedBytes() { return savedBytes.get(); }
+
+    /**
+     * Renueva la fecha del objeto para que {@link #collectGarbage} no lo borre antes de
+     * enlazarlo; false si no existe. Un objeto de otro usuario de la máquina no se puede
+     * tocar, pero existe.
+     */
+    private static boolean touch(Path object) throws IOException {
+        try {
+            Files.setLastModifiedTime(object, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (FileSystemException e) {
+            return Files.isRegularFile(object);
+        }
+    }
+
+    private Path objectPath(Digest digest) {
+        String hash = digest.getHash();
+        return directory.resolve("objects").resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static Integer linkCount(Path path) throws IOException {
+        try {
+            return (Integer) Files.getAttribute(path, "unix:nlink");
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
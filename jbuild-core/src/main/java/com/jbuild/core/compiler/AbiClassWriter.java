@@ -0,0 +1,756 @@
+package com.jbuild.core.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.IntersectionType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.Elements;
+
+/**
+ * Genera archivos .class solo-ABI (firmas sin cuerpos) a partir de los elementos
+ * de javac tras la fase de enter. Los métodos concretos reciben un cuerpo mínimo
+ * ({@code throw null}) para que las clases sigan siendo verificables.
+ */
+final class AbiClassWriter {
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_PROTECTED = 0x0004;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int ACC_SYNCHRONIZED = 0x0020;
+    private static final int ACC_VOLATILE = 0x0040;
+    private static final int ACC_VARARGS = 0x0080;
+    private static final int ACC_TRANSIENT = 0x0080;
+    private static final int ACC_NATIVE = 0x0100;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final int ACC_STRICT = 0x0800;
+    private static final int ACC_ANNOTATION = 0x2000;
+    private static final int ACC_ENUM = 0x4000;
+
+    private static final int CLASS_FILE_VERSION = 44 + Runtime.version().feature();
+
+    private final Elements elements;
+
+    AbiClassWriter(Elements elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * Tipos (incluidos los anidados no privados) que forman parte de la ABI
+     */
+    static List<TypeElement> abiTypes(TypeElement type) {
+        List<TypeElement> result = new ArrayList<>();
+        result.add(type);
+        for (Element member : type.getEnclosedElements()) {
+            if (isType(member) && !member.getModifiers().contains(Modifier.PRIVATE)) {
+                result.addAll(abiTypes((TypeElement) member));
+            }
+        }
+        return result;
+    }
+
+    String binaryName(TypeElement type) {
+        return elements.getBinaryName(type).toString();
+    }
+
+    byte[] write(TypeElement type) throws IOException {
+        ConstantPool pool = new ConstantPool();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+
+        boolean isInterface = type.getKind().isInterface();
+        out.writeShort(classAccess(type));
+        out.writeShort(pool.classRef(internalName(type)));
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() == TypeKind.DECLARED) {
+            out.writeShort(pool.classRef(internalName(asElement(superclass))));
+        } else if (isInterface || !"java.lang.Object".contentEquals(type.getQualifiedName())) {
+            out.writeShort(pool.classRef("java/lang/Object"));
+        } else {
+            out.writeShort(0);
+        }
+        List<? extends TypeMirror> interfaces = type.getInterfaces();
+        out.writeShort(interfaces.size());
+        for (TypeMirror iface : interfaces) {
+            out.writeShort(pool.classRef(internalName(asElement(iface))));
+        }
+
+        List<VariableElement> fields = new ArrayList<>();
+        List<ExecutableElement> methods = new ArrayList<>();
+        List<TypeElement> memberTypes = new ArrayList<>();
+        for (Element member : type.getEnclosedElements()) {
+            if (member.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            if (member.getKind() == ElementKind.FIELD || member.getKind() == ElementKind.ENUM_CONSTANT) {
+                fields.add((VariableElement) member);
+            } else if (member.getKind() == ElementKind.METHOD || member.getKind() == ElementKind.CONSTRUCTOR) {
+                methods.add((ExecutableElement) member);
+            } else if (isType(member)) {
+                memberTypes.add((TypeElement) member);
+            }
+        }
+
+        out.writeShort(fields.size());
+        for (VariableElement field : fields) {
+            writeField(out, pool, field);
+        }
+        out.writeShort(methods.size());
+        for (ExecutableElement method : methods) {
+            writeMethod(out, pool, type, method);
+        }
+
+        List<byte[]> attributes = new ArrayList<>();
+        String signature = classSignature(type);
+        if (signature != null) {
+            attributes.add(attribute(pool, "Signature", u2(pool.utf8(signature))));
+        }
+        byte[] innerClasses = innerClasses(pool, type, memberTypes);
+        if (innerClasses != null) {
+            attributes.add(attribute(pool, "InnerClasses", innerClasses));
+        }
+        attributes.addAll(annotationAttributes(pool, type));
+        out.writeShort(attributes.size());
+        for (byte[] attribute : attributes) {
+            out.write(attribute);
+        }
+
+        ByteArrayOutputStream classFile = new ByteArrayOutputStream(body.size() + pool.size() + 10);
+        DataOutputStream header = new DataOutputStream(classFile);
+        header.writeInt(0xCAFEBABE);
+        header.writeShort(0);
+        header.writeShort(CLASS_FILE_VERSION);
+        header.writeShort(pool.count());
+        pool.writeTo(header);
+        body.writeTo(header);
+        header.flush();
+        return classFile.toByteArray();
+    }
+
+    private void writeField(DataOutputStream out, ConstantPool pool, VariableElement field) throws IOException {
+        int access = memberAccess(field.getModifiers());
+        if (field.getKind() == ElementKind.ENUM_CONSTANT) {
+            access |= ACC_ENUM;
+        }
+        out.writeShort(access);
+        out.writeShort(pool.utf8(field.getSimpleName().toString()));
+        out.writeShort(pool.utf8(descriptor(field.asType())));
+
+        List<byte[]> attributes = new ArrayList<>();
+        Object constant = field.getModifiers().contains(Modifier.FINAL) ? field.getConstantValue() : null;
+        if (constant != null) {
+            attributes.add(attribute(pool, "ConstantValue", u2(pool.constant(constant))));
+        }
+        String signature = typeSignature(field.asType());
+        if (!signature.equals(descriptor(field.asType()))) {
+            attributes.add(attribute(pool, "Signature", u2(pool.utf8(signature))));
+        }
+        attributes.addAll(annotationAttributes(pool, field));
+        out.writeShort(attributes.size());
+        for (byte[] attribute : attributes) {
+            out.write(attribute);
+        }
+    }
+
+    private void writeMethod(DataOutputStream out, ConstantPool pool, TypeElement owner,
+                             ExecutableElement method) throws IOException {
+        Set<Modifier> modifiers = method.getModifiers();
+        int access = memberAccess(modifiers);
+        if (modifiers.contains(Modifier.SYNCHRONIZED)) {
+            access |= ACC_SYNCHRONIZED;
+        }
+        if (modifiers.contains(Modifier.NATIVE)) {
+            access |= ACC_NATIVE;
+        }
+        if (modifiers.contains(Modifier.ABSTRACT)) {
+            access |= ACC_ABSTRACT;
+        }
+        if (modifiers.contains(Modifier.STRICTFP)) {
+            access |= ACC_STRICT;
+        }
+        if (method.isVarArgs()) {
+            access |= ACC_VARARGS;
+        }
+        boolean constructor = method.getKind() == ElementKind.CONSTRUCTOR;
+        boolean innerConstructor = constructor && isInnerClass(owner);
+
+        StringBuilder descriptor = new StringBuilder("(");
+        int locals = modifiers.contains(Modifier.STATIC) ? 0 : 1;
+        if (innerConstructor) {
+            TypeMirror outer = owner.getEnclosingElement().asType();
+            descriptor.append(descriptor(outer));
+            locals++;
+        }
+        for (VariableElement parameter : method.getParameters()) {
+            descriptor.append(descriptor(parameter.asType()));
+            TypeKind kind = parameter.asType().getKind();
+            locals += kind == TypeKind.LONG || kind == TypeKind.DOUBLE ? 2 : 1;
+        }
+        descriptor.append(')').append(descriptor(method.getReturnType()));
+
+        out.writeShort(access);
+        out.writeShort(pool.utf8(constructor ? "<init>" : method.getSimpleName().toString()));
+        out.writeShort(pool.utf8(descriptor.toString()));
+
+        List<byte[]> attributes = new ArrayList<>();
+        if ((access & (ACC_ABSTRACT | ACC_NATIVE)) == 0) {
+            ByteArrayOutputStream code = new ByteArrayOutputStream();
+            DataOutputStream codeOut = new DataOutputStream(code);
+            codeOut.writeShort(1);       // max_stack
+            codeOut.writeShort(locals);  // max_locals
+            codeOut.writeInt(2);         // code_length
+            codeOut.writeByte(0x01);     // aconst_null
+            codeOut.writeByte(0xBF);     // athrow
+            codeOut.writeShort(0);       // exception_table_length
+            codeOut.writeShort(0);       // attributes_count
+            attributes.add(attribute(pool, "Code", code.toByteArray()));
+        }
+        List<? extends TypeMirror> thrown = method.getThrownTypes();
+        if (!thrown.isEmpty()) {
+            ByteArrayOutputStream exceptions = new ByteArrayOutputStream();
+            DataOutputStream exceptionsOut = new DataOutputStream(exceptions);
+            exceptionsOut.writeShort(thrown.size());
+            for (TypeMirror type : thrown) {
+                String erased = descriptor(type);
+                exceptionsOut.writeShort(pool.classRef(erased.substring(1, erased.length() - 1)));
+            }
+            attributes.add(attribute(pool, "Exceptions", exceptions.toByteArray()));
+        }
+        String signature = methodSignature(method);
+        if (signature != null) {
+            attributes.add(attribute(pool, "Signature", u2(pool.utf8(signature))));
+        }
+        AnnotationValue defaultValue = method.getDefaultValue();
+        if (defaultValue != null) {
+            ByteArrayOutputStream value = new ByteArrayOutputStream();
+            writeElementValue(new DataOutputStream(value), pool, defaultValue);
+            attributes.add(attribute(pool, "AnnotationDefault", value.toByteArray()));
+        }
+        attributes.addAll(annotationAttributes(pool, method));
+        attributes.addAll(parameterAnnotationAttributes(pool, method));
+        out.writeShort(attributes.size());
+        for (byte[] attribute : attributes) {
+            out.write(attribute);
+        }
+    }
+
+    // --- Flags ---
+
+    private int classAccess(TypeElement type) {
+        Set<Modifier> modifiers = type.getModifiers();
+        int access = modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.PROTECTED) ? ACC_PUBLIC : 0;
+        if (modifiers.contains(Modifier.FINAL)) {
+            access |= ACC_FINAL;
+        }
+        switch (type.getKind()) {
+            case INTERFACE:
+                return access | ACC_INTERFACE | ACC_ABSTRACT;
+            case ANNOTATION_TYPE:
+                return access | ACC_INTERFACE | ACC_ABSTRACT | ACC_ANNOTATION;
+            case ENUM:
+                return access | ACC_SUPER | ACC_ENUM;
+            default:
+                return access | ACC_SUPER | (modifiers.contains(Modifier.ABSTRACT) ? ACC_ABSTRACT : 0);
+        }
+    }
+
+    private static int memberAccess(Set<Modifier> modifiers) {
+        int access = 0;
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            access |= ACC_PUBLIC;
+        }
+        if (modifiers.contains(Modifier.PROTECTED)) {
+            access |= ACC_PROTECTED;
+        }
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            access |= ACC_PRIVATE;
+        }
+        if (modifiers.contains(Modifier.STATIC)) {
+            access |= ACC_STATIC;
+        }
+        if (modifiers.contains(Modifier.FINAL)) {
+            access |= ACC_FINAL;
+        }
+        if (modifiers.contains(Modifier.VOLATILE)) {
+            access |= ACC_VOLATILE;
+        }
+        if (modifiers.contains(Modifier.TRANSIENT)) {
+            access |= ACC_TRANSIENT;
+        }
+        return access;
+    }
+
+    private int innerClassAccess(TypeElement type) {
+        int access = memberAccess(type.getModifiers()) & ~(ACC_VOLATILE | ACC_TRANSIENT);
+        switch (type.getKind()) {
+            case INTERFACE:
+                return access | ACC_INTERFACE | ACC_ABSTRACT | ACC_STATIC;
+            case ANNOTATION_TYPE:
+                return access | ACC_INTERFACE | ACC_ABSTRACT | ACC_ANNOTATION | ACC_STATIC;
+            case ENUM:
+                return access | ACC_ENUM | ACC_STATIC;
+            default:
+                return access | (type.getModifiers().contains(Modifier.ABSTRACT) ? ACC_ABSTRACT : 0);
+        }
+    }
+
+    // --- Attributes ---
+
+    private byte[] innerClasses(ConstantPool pool, TypeElement type, List<TypeElement> memberTypes) throws IOException {
+        List<TypeElement> entries = new ArrayList<>();
+        for (Element current = type; current != null && current.getEnclosingElement() != null
+                && isType(current.getEnclosingElement()); current = current.getEnclosingElement()) {
+            entries.add(0, (TypeElement) current);
+        }
+        entries.addAll(memberTypes);
+        if (entries.isEmpty()) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(entries.size());
+        for (TypeElement inner : entries) {
+            out.writeShort(pool.classRef(internalName(inner)));
+            out.writeShort(pool.classRef(internalName((TypeElement) inner.getEnclosingElement())));
+            out.writeShort(pool.utf8(inner.getSimpleName().toString()));
+            out.writeShort(innerClassAccess(inner));
+        }
+        return bytes.toByteArray();
+    }
+
+    private List<byte[]> annotationAttributes(ConstantPool pool, Element element) throws IOException {
+        List<AnnotationMirror> visible = new ArrayList<>();
+        List<AnnotationMirror> invisible = new ArrayList<>();
+        splitByRetention(element, visible, invisible);
+        List<byte[]> attributes = new ArrayList<>();
+        if (!visible.isEmpty()) {
+            attributes.add(attribute(pool, "RuntimeVisibleAnnotations", annotations(pool, visible)));
+        }
+        if (!invisible.isEmpty()) {
+            attributes.add(attribute(pool, "RuntimeInvisibleAnnotations", annotations(pool, invisible)));
+        }
+        return attributes;
+    }
+
+    /**
+     * Anotaciones de los parámetros declarados (sin el parámetro sintético de la clase
+     * externa en constructores de clases internas, como hace javac)
+     */
+    private List<byte[]> parameterAnnotationAttributes(ConstantPool pool, ExecutableElement method) throws IOException {
+        List<List<AnnotationMirror>> visible = new ArrayList<>();
+        List<List<AnnotationMirror>> invisible = new ArrayList<>();
+        boolean anyVisible = false;
+        boolean anyInvisible = false;
+        for (VariableElement parameter : method.getParameters()) {
+            List<AnnotationMirror> parameterVisible = new ArrayList<>();
+            List<AnnotationMirror> parameterInvisible = new ArrayList<>();
+            splitByRetention(parameter, parameterVisible, parameterInvisible);
+            visible.add(parameterVisible);
+            invisible.add(parameterInvisible);
+            anyVisible |= !parameterVisible.isEmpty();
+            anyInvisible |= !parameterInvisible.isEmpty();
+        }
+        List<byte[]> attributes = new ArrayList<>();
+        if (anyVisible) {
+            attributes.add(attribute(pool, "RuntimeVisibleParameterAnnotations", parameterAnnotations(pool, visible)));
+        }
+        if (anyInvisible) {
+            attributes.add(attribute(pool, "RuntimeInvisibleParameterAnnotations", parameterAnnotations(pool, invisible)));
+        }
+        return attributes;
+    }
+
+    private static void splitByRetention(Element element, List<AnnotationMirror> visible,
+                                         List<AnnotationMirror> invisible) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            Element annotationType = annotation.getAnnotationType().asElement();
+            Retention retention = annotationType.getAnnotation(Retention.class);
+            RetentionPolicy policy = retention == null ? RetentionPolicy.CLASS : retention.value();
+            if (policy == RetentionPolicy.RUNTIME) {
+                visible.add(annotation);
+            } else if (policy == RetentionPolicy.CLASS) {
+                invisible.add(annotation);
+            }
+        }
+    }
+
+    private byte[] parameterAnnotations(ConstantPool pool, List<List<AnnotationMirror>> parameters) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(parameters.size());
+        for (List<AnnotationMirror> annotations : parameters) {
+            out.write(annotations(pool, annotations));
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] annotations(ConstantPool pool, List<AnnotationMirror> annotations) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(annotations.size());
+        for (AnnotationMirror annotation : annotations) {
+            writeAnnotation(out, pool, annotation);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void writeAnnotation(DataOutputStream out, ConstantPool pool, AnnotationMirror annotation) throws IOException {
+        out.writeShort(pool.utf8(descriptor(annotation.getAnnotationType())));
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values = annotation.getElementValues();
+        out.writeShort(values.size());
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            out.writeShort(pool.utf8(entry.getKey().getSimpleName().toString()));
+            writeElementValue(out, pool, entry.getValue());
+        }
+    }
+
+    private void writeElementValue(DataOutputStream out, ConstantPool pool, AnnotationValue annotationValue)
+            throws IOException {
+        Object value = annotationValue.getValue();
+        if (value instanceof String) {
+            out.writeByte('s');
+            out.writeShort(pool.utf8((String) value));
+        } else if (value instanceof Boolean) {
+            out.writeByte('Z');
+            out.writeShort(pool.integer((Boolean) value ? 1 : 0));
+        } else if (value instanceof Character) {
+            out.writeByte('C');
+            out.writeShort(pool.integer((Character) value));
+        } else if (value instanceof Byte || value instanceof Short || value instanceof Integer) {
+            out.writeByte(value instanceof Byte ? 'B' : value instanceof Short ? 'S' : 'I');
+            out.writeShort(pool.integer(((Number) value).intValue()));
+        } else if (value instanceof Long || value instanceof Float || value instanceof Double) {
+            out.writeByte(value instanceof Long ? 'J' : value instanceof Float ? 'F' : 'D');
+            out.writeShort(pool.constant(value));
+        } else if (value instanceof TypeMirror) {
+            out.writeByte('c');
+            out.writeShort(pool.utf8(descriptor((TypeMirror) value)));
+        } else if (value instanceof VariableElement) {
+            VariableElement constant = (VariableElement) value;
+            out.writeByte('e');
+            out.writeShort(pool.utf8(descriptor(constant.asType())));
+            out.writeShort(pool.utf8(constant.getSimpleName().toString()));
+        } else if (value instanceof AnnotationMirror) {
+            out.writeByte('@');
+            writeAnnotation(out, pool, (AnnotationMirror) value);
+        } else if (value instanceof List) {
+            List<?> items = (List<?>) value;
+            out.writeByte('[');
+            out.writeShort(items.size());
+            for (Object item : items) {
+                writeElementValue(out, pool, (AnnotationValue) item);
+            }
+        } else {
+            throw new AbiException("Valor de anotación no soportado: " + annotationValue);
+        }
+    }
+
+    private static byte[] attribute(ConstantPool pool, String name, byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length + 6);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(pool.utf8(name));
+        out.writeInt(content.length);
+        out.write(content);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] u2(int value) {
+        return new byte[] {(byte) (value >>> 8), (byte) value};
+    }
+
+    // --- Descriptores y firmas ---
+
+    private String internalName(TypeElement type) {
+        return binaryName(type).replace('.', '/');
+    }
+
+    private TypeElement asElement(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            throw new AbiException("Tipo no resuelto: " + type);
+        }
+        return (TypeElement) ((DeclaredType) type).asElement();
+    }
+
+    String descriptor(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN: return "Z";
+            case BYTE: return "B";
+            case CHAR: return "C";
+            case SHORT: return "S";
+            case INT: return "I";
+            case LONG: return "J";
+            case FLOAT: return "F";
+            case DOUBLE: return "D";
+            case VOID: return "V";
+            case ARRAY: return "[" + descriptor(((ArrayType) type).getComponentType());
+            case DECLARED: return "L" + internalName(asElement(type)) + ";";
+            case TYPEVAR:
+                return descriptor(((TypeVariable) type).getUpperBound());
+            case INTERSECTION:
+                return descriptor(((IntersectionType) type).getBounds().get(0));
+            default:
+                throw new AbiException("Tipo no resuelto: " + type);
+        }
+    }
+
+    String typeSignature(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return "[" + typeSignature(((ArrayType) type).getComponentType());
+            case TYPEVAR:
+                return "T" + ((TypeVariable) type).asElement().getSimpleName() + ";";
+            case DECLARED:
+                return declaredSignature((DeclaredType) type) + ";";
+            default:
+                return descriptor(type);
+        }
+    }
+
+    private String declaredSignature(DeclaredType type) {
+        TypeElement element = asElement(type);
+        StringBuilder signature = new StringBuilder();
+        TypeMirror enclosing = type.getEnclosingType();
+        if (enclosing.getKind() == TypeKind.DECLARED && !((DeclaredType) enclosing).getTypeArguments().isEmpty()) {
+            signature.append(declaredSignature((DeclaredType) enclosing)).append('.').append(element.getSimpleName());
+        } else {
+            signature.append('L').append(internalName(element));
+        }
+        List<? extends TypeMirror> arguments = type.getTypeArguments();
+        if (!arguments.isEmpty()) {
+            signature.append('<');
+            for (TypeMirror argument : arguments) {
+                signature.append(typeArgumentSignature(argument));
+            }
+            signature.append('>');
+        }
+        return signature.toString();
+    }
+
+    private String typeArgumentSignature(TypeMirror argument) {
+        if (argument.getKind() != TypeKind.WILDCARD) {
+            return typeSignature(argument);
+        }
+        WildcardType wildcard = (WildcardType) argument;
+        if (wildcard.getExtendsBound() != null) {
+            return "+" + typeSignature(wildcard.getExtendsBound());
+        }
+        if (wildcard.getSuperBound() != null) {
+            return "-" + typeSignature(wildcard.getSuperBound());
+        }
+        return "*";
+    }
+
+    private String typeParametersSignature(List<? extends TypeParameterElement> parameters) {
+        if (parameters.isEmpty()) {
+            return "";
+        }
+        StringBuilder signature = new StringBuilder("<");
+        for (TypeParameterElement parameter : parameters) {
+            signature.append(parameter.getSimpleName());
+            List<? extends TypeMirror> bounds = parameter.getBounds();
+            if (bounds.isEmpty()) {
+                signature.append(":Ljava/lang/Object;");
+            }
+            for (int i = 0; i < bounds.size(); i++) {
+                TypeMirror bound = bounds.get(i);
+                boolean interfaceBound = bound.getKind() == TypeKind.DECLARED
+                    && ((DeclaredType) bound).asElement().getKind().isInterface();
+                signature.append(i == 0 && interfaceBound ? "::" : ":").append(typeSignature(bound));
+            }
+        }
+        return signature.append('>').toString();
+    }
+
+    private String classSignature(TypeElement type) {
+        boolean generic = !type.getTypeParameters().isEmpty();
+        StringBuilder signature = new StringBuilder(typeParametersSignature(type.getTypeParameters()));
+        TypeMirror superclass = type.getSuperclass();
+        String superSignature = superclass.getKind() == TypeKind.DECLARED
+            ? typeSignature(superclass) : "Ljava/lang/Object;";
+        generic |= superclass.getKind() == TypeKind.DECLARED
+            && !((DeclaredType) superclass).getTypeArguments().isEmpty();
+        signature.append(superSignature);
+        for (TypeMirror iface : type.getInterfaces()) {
+            generic |= !((DeclaredType) iface).getTypeArguments().isEmpty();
+            signature.append(typeSignature(iface));
+        }
+        return generic ? signature.toString() : null;
+    }
+
+    private String methodSignature(ExecutableElement method) {
+        StringBuilder signature = new StringBuilder(typeParametersSignature(method.getTypeParameters()));
+        StringBuilder erased = new StringBuilder();
+        signature.append('(');
+        erased.append('(');
+        for (VariableElement parameter : method.getParameters()) {
+            signature.append(typeSignature(parameter.asType()));
+            erased.append(descriptor(parameter.asType()));
+        }
+        signature.append(')').append(typeSignature(method.getReturnType()));
+        erased.append(')').append(descriptor(method.getReturnType()));
+        boolean genericThrows = false;
+        StringBuilder throwsSignature = new StringBuilder();
+        for (TypeMirror thrown : method.getThrownTypes()) {
+            genericThrows |= thrown.getKind() == TypeKind.TYPEVAR;
+            throwsSignature.append('^').append(typeSignature(thrown));
+        }
+        if (genericThrows) {
+            signature.append(throwsSignature);
+        }
+        String result = signature.toString();
+        return result.equals(erased.toString()) ? null : result;
+    }
+
+    private static boolean isType(Element element) {
+        return element.getKind().isClass() || element.getKind().isInterface();
+    }
+
+    private static boolean isInnerClass(TypeElement type) {
+        return type.getNestingKind() == NestingKind.MEMBER
+            && !type.getModifiers().contains(Modifier.STATIC)
+            && type.getKind() == ElementKind.CLASS
+            && !type.getEnclosingElement().getKind().isInterface();
+    }
+
+    /**
+     * Constant pool que se construye mientras se escribe el cuerpo de la clase
+     */
+    private static final class ConstantPool {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private int next = 1;
+
+        int utf8(String value) throws IOException {
+            Integer index = indexes.get("U" + value);
+            if (index != null) {
+                return index;
+            }
+            out.writeByte(1);
+            out.writeUTF(value);
+            return register("U" + value, 1);
+        }
+
+        int classRef(String internalName) throws IOException {
+            Integer index = indexes.get("C" + internalName);
+            if (index != null) {
+                return index;
+            }
+            int name = utf8(internalName);
+            out.writeByte(7);
+            out.writeShort(name);
+            return register("C" + internalName, 1);
+        }
+
+        int integer(int value) throws IOException {
+            Integer index = indexes.get("I" + value);
+            if (index != null) {
+                return index;
+            }
+            out.writeByte(3);
+            out.writeInt(value);
+            return register("I" + value, 1);
+        }
+
+        int constant(Object value) throws IOException {
+            if (value instanceof Boolean) {
+                return integer((Boolean) value ? 1 : 0);
+            }
+            if (value instanceof Character) {
+                return integer((Character) value);
+            }
+            if (value instanceof Byte || value instanceof Short || value instanceof Integer) {
+                return integer(((Number) value).intValue());
+            }
+            String key = value.getClass().getSimpleName().charAt(0) + String.valueOf(value);
+            if (value instanceof Float) {
+                key = "F" + Float.floatToRawIntBits((Float) value);
+            } else if (value instanceof Double) {
+                key = "D" + Double.doubleToRawLongBits((Double) value);
+            }
+            Integer index = indexes.get(key);
+            if (index != null) {
+                return index;
+            }
+            if (value instanceof String) {
+                int utf8 = utf8((String) value);
+                out.writeByte(8);
+                out.writeShort(utf8);
+                return register(key, 1);
+            }
+            if (value instanceof Long) {
+                out.writeByte(5);
+                out.writeLong((Long) value);
+                return register(key, 2);
+            }
+            if (value instanceof Float) {
+                out.writeByte(4);
+                out.writeFloat((Float) value);
+                return register(key, 1);
+            }
+            if (value instanceof Double) {
+                out.writeByte(6);
+                out.writeDouble((Double) value);
+                return register(key, 2);
+            }
+            throw new AbiException("Constante no soportada: " + value);
+        }
+
+        private int register(String key, int slots) {
+            int index = next;
+            indexes.put(key, index);
+            next += slots;
+            return index;
+        }
+
+        int count() {
+            return next;
+        }
+
+        int size() {
+            return bytes.size();
+        }
+
+        void writeTo(DataOutputStream target) throws IOException {
+            out.flush();
+            bytes.writeTo(target);
+        }
+    }
+
+    /**
+     * La ABI no se puede generar (tipos sin resolver, valores no soportados...)
+     */
+    static final class AbiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        AbiException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.jbuild.core.compiler;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+import javax.annotation.processing.Processor;
+
+/**
+ * Procesadores de anotaciones de un módulo, descubiertos como lo haría javac
+ * (opción {@code -processor} o ServiceLoader sobre el processor path, que por defecto
+ * es el classpath) y clasificados según {@value #INCREMENTAL_METADATA}.
+ * <p>
+ * Se instancian aquí para poder envolverlos con {@link TrackingProcessor}; el cargador
+ * se cierra al terminar la compilación.
+ */
+class AnnotationProcessors implements AutoCloseable {
+    static final String INCREMENTAL_METADATA = "META-INF/gradle/incremental.annotation.processors";
+    static final String DYNAMIC_ISOLATING_OPTION = "org.gradle.annotation.processing.isolating";
+    static final String DYNAMIC_AGGREGATING_OPTION = "org.gradle.annotation.processing.aggregating";
+
+    private final URLClassLoader loader;
+    private final Map<String, Processor> processors;
+    private final Map<String, ProcessorKind> kinds;
+
+    private AnnotationProcessors(URLClassLoader loader, Map<String, Processor> processors,
+                                 Map<String, ProcessorKind> kinds) {
+        this.loader = loader;
+        this.processors = processors;
+        this.kinds = kinds;
+    }
+
+    static AnnotationProcessors discover(List<String> options, List<Path> classpath, ClassLoader parent)
+            throws IOException {
+        if (options.contains("-proc:none")) {
+            return new AnnotationProcessors(null, Collections.emptyMap(), Collections.emptyMap());
+        }
+        List<Path> processorPath = classpath;
+        List<String> names = null;
+        for (int i = 0; i + 1 < options.size(); i++) {
+            String option = options.get(i);
+            if (option.equals("-processorpath") || option.equals("--processor-path")) {
+                processorPath = new ArrayList<>();
+                for (String entry : options.get(i + 1).split(File.pathSeparator)) {
+                    if (!entry.isEmpty()) {
+                        processorPath.add(Paths.get(entry));
+                    }
+                }
+            } else if (option.equals("-processor")) {
+                names = new ArrayList<>();
+                for (String name : options.get(i + 1).split(",")) {
+                    if (!name.trim().isEmpty()) {
+                        names.add(name.trim());
+                    }
+                }
+            }
+        }
+        URL[] urls = new URL[processorPath.size()];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = processorPath.get(i).toUri().toURL();
+        }
+        URLClassLoader loader = new URLClassLoader(urls, parent);
+        try {
+            Map<String, Processor> processors = new LinkedHashMap<>();
+            if (names != null) {
+                for (String name : names) {
+                    processors.put(name, instantiate(loader, name));
+                }
+            } else {
+                for (Processor processor : ServiceLoader.load(Processor.class, loader)) {
+                    processors.put(processor.getClass().getName(), processor);
+                }
+            }
+            Map<String, ProcessorKind> declared = readMetadata(loader);
+            Map<String, ProcessorKind> kinds = new LinkedHashMap<>();
+            for (Map.Entry<String, Processor> entry : processors.entrySet()) {
+                kinds.put(entry.getKey(), classify(entry.getValue(), declared));
+            }
+            return new AnnotationProcessors(loader, processors, kinds);
+        } catch (IOException | RuntimeException e) {
+            loader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Los procesadores "dynamic" indican su tipo con la opción correspondiente en
+     * {@link Processor#getSupportedOptions()}; sin declaración no son incrementales
+     */
+    private static ProcessorKind classify(Processor processor, Map<String, ProcessorKind> declared) {
+        String name = processor.getClass().getName();
+        if (!declared.containsKey(name)) {
+            return ProcessorKind.NON_INCREMENTAL;
+        }
+        ProcessorKind kind = declared.get(name);
+        if (kind != null) {
+            return kind;
+        }
+        Set<String> supported = processor.getSupportedOptions();
+        if (supported.contains(DYNAMIC_ISOLATING_OPTION)) {
+            return ProcessorKind.ISOLATING;
+        }
+        if (supported.contains(DYNAMIC_AGGREGATING_OPTION)) {
+            return ProcessorKind.AGGREGATING;
+        }
+        return ProcessorKind.NON_INCREMENTAL;
+    }
+
+    /**
+     * Líneas {@code clase,tipo} de todos los archivos de metadatos del processor path;
+     * los procesadores "dynamic" quedan con valor null
+     */
+    private static Map<String, ProcessorKind> readMetadata(ClassLoader loader) throws IOException {
+        Map<String, ProcessorKind> declared = new HashMap<>();
+        Enumeration<URL> resources = loader.getResources(INCREMENTAL_METADATA);
+        while (resources.hasMoreElements()) {
+            URL resource = resources.nextElement();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    int separator = line.indexOf(',');
+                    if (separator <= 0) {
+                        throw new IOException("Línea no válida en " + resource + ": " + line);
+                    }
+                    declared.put(line.substring(0, separator).trim(), ProcessorKind.parse(line.substring(separator + 1)));
+                }
+            }
+        }
+        return declared;
+    }
+
+    private static Processor instantiate(ClassLoader loader, String name) {
+        try {
+            return (Processor) loader.loadClass(name).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("No se pudo instanciar el procesador " + name, e);
+        }
+    }
+
+    /**
+     * Procesadores envueltos para registrar sus salidas en {@code outputs}
+     */
+    List<Processor> tracking(List<CompilationLedger.GeneratedOutput> outputs) {
+        List<Processor> wrapped = new ArrayList<>();
+        for (Map.Entry<String, Processor> entry : processors.entrySet()) {
+            wrapped.add(new TrackingProcessor(entry.getKey(), entry.getValue(), outputs));
+        }
+        return wrapped;
+    }
+
+    Map<String, ProcessorKind> getKinds() {
+        return Collections.unmodifiableMap(kinds);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (loader != null) {
+            loader.close();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.jbuild.core.compiler;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+/**
+ * File manager de un lote de módulos compilados juntos: cada clase generada va a la
+ * salida en memoria del módulo al que pertenece la fuente de la que procede
+ */
+class BatchFileManager extends ModuleFileManager {
+    private final StandardJavaFileManager standard;
+    private final Map<Path, InMemoryClassStore> outputBySource;
+
+    BatchFileManager(JavaFileManager delegate, StandardJavaFileManager standard,
+                     Map<Path, InMemoryClassStore> outputBySource, List<InMemoryClassStore> upstream) {
+        super(delegate, null, upstream);
+        this.standard = standard;
+        this.outputBySource = outputBySource;
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                               JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+        if (location != StandardLocation.CLASS_OUTPUT || kind != JavaFileObject.Kind.CLASS) {
+            return super.getJavaFileForOutput(location, className, kind, sibling);
+        }
+        InMemoryClassStore output = null;
+        if (sibling != null && "file".equals(sibling.toUri().getScheme())) {
+            try {
+                output = outputBySource.get(standard.asPath(sibling).toAbsolutePath().normalize());
+            } catch (IllegalArgumentException e) {
+                output = null;
+            }
+        }
+        if (output == null) {
+            // Clases sin fuente conocida (p. ej. de procesadores de anotaciones): el lote no es válido
+            throw new IOException("No se puede asignar " + className + " a ningún módulo del lote");
+        }
+        return output.outputFile(className);
+    }
+}
@@ -0,0 +1,192 @@
+package com.jbuild.core.compiler;
+
+import com.jbuild.core.graph.ModuleGraph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Compilación por lotes para builds con muchos módulos pequeños: los módulos pequeños
+ * de la misma profundidad del grafo (que por tanto no dependen entre sí) se compilan
+ * en una sola invocación de javac y su salida se reparte después por módulo.
+ * <p>
+ * Solo comparten lote los módulos con las mismas opciones, el mismo classpath y las
+ * mismas dependencias, y solo si no tienen procesadores de anotaciones: sus fuentes y
+ * recursos generados no podrían repartirse por módulo. Si un lote falla o alguno de sus módulos usa clases de otro
+ * módulo del lote sin declararlo, los módulos del lote se compilan por separado, de
+ * modo que los errores y el resultado son los mismos que sin lotes.
+ */
+public class BatchedModuleCompiler {
+    private final InProcessModuleCompiler compiler;
+    private int smallModuleThreshold = 30;
+    private int maxBatchSources = 500;
+    private int batches;
+    private int fallbacks;
+
+    public BatchedModuleCompiler(InProcessModuleCompiler compiler) {
+        this.compiler = compiler;
+    }
+
+    /**
+     * Número máximo de fuentes para que un módulo se considere pequeño
+     */
+    public BatchedModuleCompiler smallModuleThreshold(int sources) {
+        this.smallModuleThreshold = sources;
+        return this;
+    }
+
+    /**
+     * Número máximo de fuentes por invocación de javac
+     */
+    public BatchedModuleCompiler maxBatchSources(int sources) {
+        this.maxBatchSources = sources;
+        return this;
+    }
+
+    public List<ModuleCompilationResult> compileAll(List<ModuleCompilation> modules) {
+        Map<String, ModuleCompilation> byName = new LinkedHashMap<>();
+        Map<String, List<String>> dependencies = new LinkedHashMap<>();
+        for (ModuleCompilation module : modules) {
+            compiler.register(module);
+            byName.put(module.getName(), module);
+            dependencies.put(module.getName(), module.getDependencies());
+        }
+
+        Map<String, ModuleCompilationResult> results = new HashMap<>();
+        Set<String> failed = new HashSet<>();
+        for (List<String> level : depthLevels(dependencies)) {
+            Map<List<Object>, List<ModuleCompilation>> smallByKey = new LinkedHashMap<>();
+            for (String name : level) {
+                ModuleCompilation module = byName.get(name);
+                if (upstreamFailed(name, failed)) {
+                    results.put(name, skipped(name));
+                } else if (module.collectSources().size() <= smallModuleThreshold) {
+                    // Solo se agrupan módulos que javac compilaría con las mismas opciones y el mismo classpath
+                    smallByKey.computeIfAbsent(compiler.batchKey(module), ignored -> new ArrayList<>()).add(module);
+                } else {
+                    results.put(name, compiler.compile(module));
+                }
+            }
+            for (List<ModuleCompilation> group : smallByKey.values()) {
+                // Misma clave, mismos procesadores: basta con mirar el primero
+                if (compiler.hasAnnotationProcessors(group.get(0))) {
+                    for (ModuleCompilation module : group) {
+                        results.put(module.getName(), compiler.compile(module));
+                    }
+                    continue;
+                }
+                for (List<ModuleCompilation> batch : split(group)) {
+                    compileBatch(batch, results);
+                }
+            }
+            for (String name : level) {
+                if (!results.get(name).isSuccess()) {
+                    failed.add(name);
+                }
+            }
+        }
+
+        List<ModuleCompilationResult> ordered = new ArrayList<>();
+        for (ModuleCompilation module : InProcessModuleCompiler.topologicalOrder(modules)) {
+            ordered.add(results.get(module.getName()));
+        }
+        return ordered;
+    }
+
+    private void compileBatch(List<ModuleCompilation> batch, Map<String, ModuleCompilationResult> results) {
+        Map<String, ModuleCompilationResult> batchResults = batch.size() > 1 ? compiler.compileBatch(batch) : null;
+        if (batchResults != null) {
+            batches++;
+            results.putAll(batchResults);
+            return;
+        }
+        if (batch.size() > 1) {
+            fallbacks++;
+        }
+        for (ModuleCompilation module : batch) {
+            results.put(module.getName(), compiler.compile(module));
+        }
+    }
+
+    private List<List<ModuleCompilation>> split(List<ModuleCompilation> group) {
+        List<List<ModuleCompilation>> batchList = new ArrayList<>();
+        List<ModuleCompilation> current = new ArrayList<>();
+        int sources = 0;
+        for (ModuleCompilation module : group) {
+            int moduleSources = module.collectSources().size();
+            if (!current.isEmpty() && sources + moduleSources > maxBatchSources) {
+                batchList.add(current);
+                current = new ArrayList<>();
+                sources = 0;
+            }
+            current.add(module);
+            sources += moduleSources;
+        }
+        if (!current.isEmpty()) {
+            batchList.add(current);
+        }
+        return batchList;
+    }
+
+    private boolean upstreamFailed(String module, Set<String> failed) {
+        for (String dependency : compiler.transitiveDependencies(module)) {
+            if (failed.contains(dependency)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ModuleCompilationResult skipped(String module) {
+        return new ModuleCompilationResult(module, false,
+            Collections.singletonList("Omitido: falló la compilación de un módulo del que depende"),
+            0, 0, CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Agrupa los módulos por profundidad en el grafo (p. ej. el de
+     * {@code MultiProjectDefinitionImpl.getModuleDependencies()}): profundidad 0 para
+     * los que no dependen de ningún módulo del grafo y 1 + la mayor de sus dependencias
+     * para el resto. Los módulos de un mismo nivel nunca dependen entre sí.
+     */
+    public static List<List<String>> depthLevels(Map<String, List<String>> moduleDependencies) {
+        ModuleGraph.Builder builder = ModuleGraph.builder();
+        for (Map.Entry<String, List<String>> entry : moduleDependencies.entrySet()) {
+            builder.module(entry.getKey());
+            for (String dependency : entry.getValue()) {
+                if (moduleDependencies.containsKey(dependency)) {
+                    builder.dependency(entry.getKey(), dependency);
+                }
+            }
+        }
+        ModuleGraph graph = builder.build();
+        int[] depths = graph.depths();
+        TreeMap<Integer, List<String>> levels = new TreeMap<>();
+        for (int module = 0; module < depths.length; module++) {
+            levels.computeIfAbsent(depths[module], ignored -> new ArrayList<>()).add(graph.name(module));
+        }
+        return new ArrayList<>(levels.values());
+    }
+
+    // Getters
+    public int getSmallModuleThreshold() { return smallModuleThreshold; }
+    public int getMaxBatchSources() { return maxBatchSources; }
+
+    /**
+     * Lotes compilados en una sola invocación de javac
+     */
+    public int getBatches() { return batches; }
+
+    /**
+     * Lotes descartados y compilados módulo a módulo
+     */
+    public int getFallbacks() { return fallbacks; }
+}
@@ -0,0 +1,248 @@
+package com.jbuild.core.compiler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Índice de JARs compartido por todo el proceso. Cada JAR se indexa una sola vez
+ * mapeando en memoria su directorio central; las compilaciones y ejecuciones de
+ * tests consultan después la tabla paquete -> JARs en lugar de recorrer el classpath.
+ */
+public final class ClasspathIndex {
+    private static final ClasspathIndex SHARED = new ClasspathIndex();
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int EOCD_MIN_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    private final Map<Path, JarIndex> jars = new ConcurrentHashMap<>();
+    private final Map<List<Path>, Map<String, List<JarIndex>>> views = new ConcurrentHashMap<>();
+
+    public static ClasspathIndex shared() {
+        return SHARED;
+    }
+
+    /**
+     * Índice de un JAR; se reconstruye si el archivo cambió de tamaño o fecha
+     */
+    public JarIndex jar(Path jar) throws IOException {
+        Path key = jar.toAbsolutePath().normalize();
+        long size = Files.size(key);
+        long modified = Files.getLastModifiedTime(key).toMillis();
+        JarIndex current = jars.get(key);
+        if (current != null && current.size == size && current.lastModified == modified) {
+            return current;
+        }
+        JarIndex index = new JarIndex(key, size, modified, readPackages(key));
+        JarIndex previous = jars.put(key, index);
+        if (previous != null && previous != index) {
+            previous.close();
+            views.clear();
+        }
+        return index;
+    }
+
+    /**
+     * Tabla paquete -> JARs (en orden de classpath) para los JARs de un classpath
+     */
+    public Map<String, List<JarIndex>> packages(List<Path> classpath) throws IOException {
+        List<Path> jarsOnly = new ArrayList<>();
+        for (Path entry : classpath) {
+            if (isJar(entry)) {
+                jarsOnly.add(entry.toAbsolutePath().normalize());
+            }
+        }
+        Map<String, List<JarIndex>> view = views.get(jarsOnly);
+        if (view != null) {
+            boolean fresh = true;
+            for (Path jar : jarsOnly) {
+                fresh &= jars.containsKey(jar) && jar(jar) == jars.get(jar);
+            }
+            if (fresh) {
+                return view;
+            }
+        }
+        Map<String, List<JarIndex>> built = new HashMap<>();
+        for (Path jar : jarsOnly) {
+            JarIndex index = jar(jar);
+            for (String pkg : index.packages.keySet()) {
+                built.computeIfAbsent(pkg, k -> new ArrayList<>(2)).add(index);
+            }
+        }
+        views.put(jarsOnly, built);
+        return built;
+    }
+
+    /**
+     * Indexa en paralelo los JARs de un classpath (p. ej. al arrancar el build)
+     */
+    public void preload(Collection<Path> classpath) {
+        classpath.parallelStream().filter(ClasspathIndex::isJar).forEach(jar -> {
+            try {
+                jar(jar);
+            } catch (IOException e) {
+                // Se reintentará (y se reportará) en la primera consulta real
+            }
+        });
+    }
+
+    public static boolean isJar(Path entry) {
+        String name = entry.getFileName() == null ? "" : entry.getFileName().toString().toLowerCase();
+        return (name.endsWith(".jar") || name.endsWith(".zip")) && Files.isRegularFile(entry);
+    }
+
+    public void clear() {
+        for (JarIndex index : jars.values()) {
+            index.close();
+        }
+        jars.clear();
+        views.clear();
+    }
+
+    /**
+     * Lee los nombres de entrada del directorio central mapeado en memoria
+     */
+    private static Map<String, Set<String>> readPackages(Path jar) throws IOException {
+        Map<String, Set<String>> packages = new LinkedHashMap<>();
+        try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long tailSize = Math.min(fileSize, EOCD_MIN_SIZE + MAX_COMMENT_SIZE);
+            MappedByteBuffer tail = channel.map(FileChannel.MapMode.READ_ONLY, fileSize - tailSize, tailSize);
+            tail.order(ByteOrder.LITTLE_ENDIAN);
+
+            int eocd = -1;
+            for (int i = (int) tailSize - EOCD_MIN_SIZE; i >= 0; i--) {
+                if (tail.getInt(i) == EOCD_SIGNATURE) {
+                    eocd = i;
+                    break;
+                }
+            }
+            if (eocd < 0) {
+                throw new IOException("Directorio central no encontrado en " + jar);
+            }
+            long cdSize = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+            long cdOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+            if ((cdOffset == 0xFFFFFFFFL || cdSize == 0xFFFFFFFFL) && eocd >= 20
+                    && tail.getInt(eocd - 20) == ZIP64_LOCATOR_SIGNATURE) {
+                long zip64Eocd = tail.getLong(eocd - 20 + 8);
+                MappedByteBuffer record = channel.map(FileChannel.MapMode.READ_ONLY, zip64Eocd, 56);
+                record.order(ByteOrder.LITTLE_ENDIAN);
+                cdSize = record.getLong(40);
+                cdOffset = record.getLong(48);
+            }
+
+            MappedByteBuffer cd = channel.map(FileChannel.MapMode.READ_ONLY, cdOffset, cdSize);
+            cd.order(ByteOrder.LITTLE_ENDIAN);
+            byte[] nameBuffer = new byte[256];
+            int pos = 0;
+            while (pos + 46 <= cdSize && cd.getInt(pos) == CENTRAL_HEADER_SIGNATURE) {
+                int nameLength = cd.getShort(pos + 28) & 0xFFFF;
+                int extraLength = cd.getShort(pos + 30) & 0xFFFF;
+                int commentLength = cd.getShort(pos + 32) & 0xFFFF;
+                if (nameBuffer.length < nameLength) {
+                    nameBuffer = new byte[nameLength];
+                }
+                cd.position(pos + 46);
+                cd.get(nameBuffer, 0, nameLength);
+                String name = new String(nameBuffer, 0, nameLength, StandardCharsets.UTF_8);
+                if (!name.endsWith("/")) {
+                    int slash = name.lastIndexOf('/');
+                    String pkg = slash < 0 ? "" : name.substring(0, slash).replace('/', '.');
+                    packages.computeIfAbsent(pkg, k -> new LinkedHashSet<>()).add(name);
+                }
+                pos += 46 + nameLength + extraLength + commentLength;
+            }
+        }
+        return packages;
+    }
+
+    /**
+     * Entradas de un JAR agrupadas por paquete; el contenido se lee bajo demanda
+     */
+    public static final class JarIndex {
+        private final Path path;
+        private final long size;
+        private final long lastModified;
+        private final Map<String, Set<String>> packages;
+        private volatile ZipFile zip;
+
+        JarIndex(Path path, long size, long lastModified, Map<String, Set<String>> packages) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.packages = packages;
+        }
+
+        public Path getPath() { return path; }
+
+        public Collection<String> getPackages() {
+            return Collections.unmodifiableSet(packages.keySet());
+        }
+
+        /**
+         * Nombres completos de entrada (p. ej. "java/util/List.class") de un paquete
+         */
+        public Collection<String> entries(String packageName) {
+            Set<String> names = packages.get(packageName);
+            return names == null ? Collections.emptySet() : Collections.unmodifiableSet(names);
+        }
+
+        /**
+         * Si el JAR contiene la entrada (p. ej. "java/util/List.class") del paquete indicado
+         */
+        public boolean contains(String packageName, String entryName) {
+            Set<String> names = packages.get(packageName);
+            return names != null && names.contains(entryName);
+        }
+
+        public InputStream open(String entryName) throws IOException {
+            ZipFile file = zip;
+            if (file == null) {
+                synchronized (this) {
+                    file = zip;
+                    if (file == null) {
+                        file = new ZipFile(path.toFile());
+                        zip = file;
+                    }
+                }
+            }
+            ZipEntry entry = file.getEntry(entryName);
+            if (entry == null) {
+                throw new IOException("Entrada " + entryName + " no encontrada en " + path);
+            }
+            return file.getInputStream(entry);
+        }
+
+        synchronized void close() {
+            if (zip != null) {
+                try {
+                    zip.close();
+                } catch (IOException ignored) {
+                    // El índice se descarta de todas formas
+                }
+                zip = null;
+            }
+        }
+    }
+}
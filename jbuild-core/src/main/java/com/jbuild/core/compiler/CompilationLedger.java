@@ -0,0 +1,525 @@
+package com.jbuild.core.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.jbuild.core.optimizer.ClassFileInfo;
+import com.jbuild.core.optimizer.ClassFileParser;
+import com.jbuild.core.remote.Digest;
+
+/**
+ * Registro persistente de la última compilación de un módulo para compilar de forma
+ * incremental:
+ * <ul>
+ *   <li>por cada fuente (original o generada), su hash, las clases que produjo y las
+ *       clases que referencian esas clases;</li>
+ *   <li>por cada procesador de anotaciones, su tipo y cada fuente, clase o recurso que
+ *       generó con las fuentes de sus elementos de origen;</li>
+ *   <li>el hash de las clases de otros módulos que usan las fuentes del módulo.</li>
+ * </ul>
+ * Con esto un cambio recompila las fuentes cambiadas y las que dependen de ellas, y
+ * solo regenera las salidas de procesadores aislantes cuyo origen cambió; las de los
+ * agregadores se regeneran volviendo a procesar todos sus orígenes. Los procesadores
+ * no incrementales, las salidas aislantes sin origen y las constantes (que javac copia
+ * en quien las usa sin dejar referencia) obligan a recompilar el módulo entero.
+ */
+public class CompilationLedger {
+    private static final int FORMAT_VERSION = 1;
+
+    public enum OutputKind { SOURCE, CLASS, RESOURCE }
+
+    /**
+     * Salida de un procesador creada a través del Filer
+     */
+    public static class GeneratedOutput {
+        private final String processor;
+        private final OutputKind kind;
+        private final String name;
+        private final Path file;
+        private final Set<Path> originatingSources;
+
+        public GeneratedOutput(String processor, OutputKind kind, String name, Path file, Set<Path> originatingSources) {
+            this.processor = processor;
+            this.kind = kind;
+            this.name = name;
+            this.file = file;
+            this.originatingSources = new LinkedHashSet<>(originatingSources);
+        }
+
+        @Override
+        public String toString() {
+            return processor + " " + kind + " " + name + " <- " + originatingSources;
+        }
+
+        // Getters
+        public String getProcessor() { return processor; }
+        public OutputKind getKind() { return kind; }
+        public String getName() { return name; }
+        public Path getFile() { return file; }
+        public Set<Path> getOriginatingSources() { return Collections.unmodifiableSet(originatingSources); }
+    }
+
+    /**
+     * Lectura de clases de fuera del módulo (otros módulos del build) por nombre interno;
+     * null si no se encuentra o viene de un JAR
+     */
+    interface ClassLookup {
+        byte[] find(String internalName) throws IOException;
+    }
+
+    static final class SourceRecord {
+        String hash = "";
+        long size;
+        long modified;
+        boolean generated;
+        boolean constants;
+        final Set<String> classes = new TreeSet<>();
+        final Set<String> references = new TreeSet<>();
+    }
+
+    private String configuration = "";
+    private final Map<String, ProcessorKind> processors = new LinkedHashMap<>();
+    private final Map<Path, SourceRecord> sources = new HashMap<>();
+    private final List<GeneratedOutput> generated = new ArrayList<>();
+    private final Map<String, String> externalClasses = new HashMap<>();
+
+    /**
+     * Registro guardado, o uno vacío (que planifica una compilación completa) si no
+     * existe o es de otro formato
+     */
+    public static CompilationLedger load(Path file) {
+        CompilationLedger ledger = new CompilationLedger();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return new CompilationLedger();
+            }
+            ledger.configuration = in.readUTF();
+            for (int i = in.readInt(); i > 0; i--) {
+                ledger.processors.put(in.readUTF(), ProcessorKind.valueOf(in.readUTF()));
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                Path source = Paths.get(in.readUTF());
+                SourceRecord record = new SourceRecord();
+                record.hash = in.readUTF();
+                record.size = in.readLong();
+                record.modified = in.readLong();
+                record.generated = in.readBoolean();
+                record.constants = in.readBoolean();
+                readStrings(in, record.classes);
+                readStrings(in, record.references);
+                ledger.sources.put(source, record);
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                String processor = in.readUTF();
+                OutputKind kind = OutputKind.valueOf(in.readUTF());
+                String name = in.readUTF();
+                String outputFile = in.readUTF();
+                Set<String> origins = new LinkedHashSet<>();
+                readStrings(in, origins);
+                Set<Path> originPaths = new LinkedHashSet<>();
+                for (String origin : origins) {
+                    originPaths.add(Paths.get(origin));
+                }
+                ledger.generated.add(new GeneratedOutput(processor, kind, name,
+                    outputFile.isEmpty() ? null : Paths.get(outputFile), originPaths));
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                ledger.externalClasses.put(in.readUTF(), in.readUTF());
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // Sin registro o dañado: se recompila todo y se reescribe
+            return new CompilationLedger();
+        }
+        return ledger;
+    }
+
+    public void save(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(configuration);
+                out.writeInt(processors.size());
+                for (Map.Entry<String, ProcessorKind> entry : processors.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue().name());
+                }
+                out.writeInt(sources.size());
+                for (Map.Entry<Path, SourceRecord> entry : sources.entrySet()) {
+                    SourceRecord record = entry.getValue();
+                    out.writeUTF(entry.getKey().toString());
+                    out.writeUTF(record.hash);
+                    out.writeLong(record.size);
+                    out.writeLong(record.modified);
+                    out.writeBoolean(record.generated);
+                    out.writeBoolean(record.constants);
+                    writeStrings(out, record.classes);
+                    writeStrings(out, record.references);
+                }
+                out.writeInt(generated.size());
+                for (GeneratedOutput output : generated) {
+                    out.writeUTF(output.processor);
+                    out.writeUTF(output.kind.name());
+                    out.writeUTF(output.name);
+                    out.writeUTF(output.file == null ? "" : output.file.toString());
+                    Set<String> origins = new LinkedHashSet<>();
+                    for (Path origin : output.originatingSources) {
+                        origins.add(origin.toString());
+                    }
+                    writeStrings(out, origins);
+                }
+                out.writeInt(externalClasses.size());
+                for (Map.Entry<String, String> entry : externalClasses.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue());
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Compara las fuentes actuales (rutas absolutas normalizadas) con el registro.
+     * {@code configuration} resume opciones, classpath de JARs y procesadores: si
+     * cambia, se recompila todo.
+     */
+    IncrementalPlan plan(List<Path> currentSources, String configuration, Map<String, ProcessorKind> currentProcessors,
+                         Path outputDirectory, ClassLookup lookup) throws IOException {
+        Set<Path> current = new LinkedHashSet<>(currentSources);
+        Map<Path, SourceRecord> stamps = new HashMap<>();
+        Set<Path> changed = new LinkedHashSet<>();
+        for (Path source : current) {
+            BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+            SourceRecord stamp = new SourceRecord();
+            stamp.size = attributes.size();
+            stamp.modified = attributes.lastModifiedTime().toMillis();
+            SourceRecord previous = sources.get(source);
+            if (previous != null && !previous.generated
+                    && previous.size == stamp.size && previous.modified == stamp.modified) {
+                stamp.hash = previous.hash;
+            } else {
+                stamp.hash = hash(Files.readAllBytes(source));
+                if (previous == null || previous.generated || !previous.hash.equals(stamp.hash)) {
+                    changed.add(source);
+                }
+            }
+            stamps.put(source, stamp);
+        }
+
+        if (!configuration.equals(this.configuration)) {
+            return fullRebuild(this.configuration.isEmpty() ? "sin compilación anterior"
+                : "cambiaron las opciones, el classpath o los procesadores", configuration, current, stamps, outputDirectory);
+        }
+        for (Map.Entry<String, ProcessorKind> processor : currentProcessors.entrySet()) {
+            if (!processor.getValue().isIncremental()) {
+                return fullRebuild("el procesador " + processor.getKey() + " no es incremental",
+                    configuration, current, stamps, outputDirectory);
+            }
+        }
+        Set<Path> removed = new LinkedHashSet<>();
+        for (Map.Entry<Path, SourceRecord> entry : sources.entrySet()) {
+            if (!entry.getValue().generated && !current.contains(entry.getKey())) {
+                removed.add(entry.getKey());
+            }
+        }
+        Set<String> changedClasses = new HashSet<>();
+        for (Map.Entry<String, String> external : externalClasses.entrySet()) {
+            byte[] bytes = lookup.find(external.getKey());
+            if (bytes == null || !hash(bytes).equals(external.getValue())) {
+                changedClasses.add(external.getKey());
+                if (bytes != null && hasConstants(ClassFileParser.parse(bytes))) {
+                    return fullRebuild("cambió " + external.getKey() + ", que declara constantes",
+                        configuration, current, stamps, outputDirectory);
+                }
+            }
+        }
+        for (Path source : union(changed, removed)) {
+            SourceRecord record = sources.get(source);
+            if (record != null && record.constants) {
+                return fullRebuild("cambió " + source.getFileName() + ", que declara constantes",
+                    configuration, current, stamps, outputDirectory);
+            }
+        }
+        if (!changed.isEmpty() || !removed.isEmpty() || !changedClasses.isEmpty()) {
+            for (GeneratedOutput output : generated) {
+                if (processors.get(output.processor) == ProcessorKind.ISOLATING && output.originatingSources.isEmpty()) {
+                    return fullRebuild("el procesador aislante " + output.processor + " generó " + output.name
+                        + " sin elemento de origen", configuration, current, stamps, outputDirectory);
+                }
+            }
+        }
+
+        // Cierre: fuentes cambiadas, salidas de procesadores afectadas y quien use sus clases
+        Set<Path> dirty = new LinkedHashSet<>(changed);
+        Set<Path> invalidated = new LinkedHashSet<>(removed);
+        Set<Path> recompiledGenerated = new LinkedHashSet<>();
+        Map<GeneratedOutput, Boolean> deleted = new IdentityHashMap<>();
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            Set<Path> touched = union(dirty, invalidated);
+            for (GeneratedOutput output : generated) {
+                if (deleted.containsKey(output)) {
+                    continue;
+                }
+                boolean aggregating = processors.get(output.processor) == ProcessorKind.AGGREGATING;
+                boolean regenerate = aggregating ? !dirty.isEmpty() || !removed.isEmpty()
+                    : !Collections.disjoint(output.originatingSources, touched);
+                if (!regenerate) {
+                    continue;
+                }
+                deleted.put(output, Boolean.TRUE);
+                progress = true;
+                if (aggregating) {
+                    for (Path origin : output.originatingSources) {
+                        if (current.contains(origin)) {
+                            dirty.add(origin);
+                        }
+                    }
+                }
+                if (output.kind == OutputKind.SOURCE && output.file != null) {
+                    recompiledGenerated.remove(output.file);
+                    invalidated.add(output.file);
+                } else if (output.kind == OutputKind.CLASS) {
+                    changedClasses.add(output.name.replace('.', '/'));
+                }
+            }
+            for (Path source : union(union(dirty, invalidated), recompiledGenerated)) {
+                SourceRecord record = sources.get(source);
+                if (record != null) {
+                    for (String binaryName : record.classes) {
+                        changedClasses.add(binaryName.replace('.', '/'));
+                    }
+                }
+            }
+            for (Map.Entry<Path, SourceRecord> entry : sources.entrySet()) {
+                Path source = entry.getKey();
+                SourceRecord record = entry.getValue();
+                if (dirty.contains(source) || invalidated.contains(source) || recompiledGenerated.contains(source)
+                        || Collections.disjoint(record.references, changedClasses)) {
+                    continue;
+                }
+                if (record.generated) {
+                    recompiledGenerated.add(source);
+                } else if (current.contains(source)) {
+                    dirty.add(source);
+                }
+                progress = true;
+            }
+        }
+
+        Set<Path> replaced = union(union(dirty, invalidated), recompiledGenerated);
+        List<Path> outputsToDelete = new ArrayList<>();
+        for (Path source : replaced) {
+            SourceRecord record = sources.get(source);
+            if (record != null) {
+                for (String binaryName : record.classes) {
+                    outputsToDelete.add(classFile(outputDirectory, binaryName));
+                }
+            }
+        }
+        for (GeneratedOutput output : deleted.keySet()) {
+            if (output.file != null) {
+                outputsToDelete.add(output.file);
+            }
+        }
+        List<Path> toCompile = new ArrayList<>(dirty);
+        for (Path source : recompiledGenerated) {
+            if (Files.isRegularFile(source)) {
+                toCompile.add(source);
+            }
+        }
+        replaced.addAll(removed);
+        return new IncrementalPlan(false, null, configuration, toCompile, outputsToDelete, replaced,
+            new ArrayList<>(deleted.keySet()), stamps);
+    }
+
+    private IncrementalPlan fullRebuild(String reason, String configuration, Set<Path> current,
+                                        Map<Path, SourceRecord> stamps, Path outputDirectory) {
+        List<Path> outputsToDelete = new ArrayList<>();
+        for (SourceRecord record : sources.values()) {
+            for (String binaryName : record.classes) {
+                outputsToDelete.add(classFile(outputDirectory, binaryName));
+            }
+        }
+        for (GeneratedOutput output : generated) {
+            if (output.file != null) {
+                outputsToDelete.add(output.file);
+            }
+        }
+        return new IncrementalPlan(true, reason, configuration, new ArrayList<>(current), outputsToDelete,
+            new HashSet<>(sources.keySet()), new ArrayList<>(generated), stamps);
+    }
+
+    /**
+     * Incorpora el resultado de compilar según {@code plan}: las clases producidas por
+     * cada fuente ({@code classSources}, nombre binario a fuente), sus bytes y las
+     * salidas que registraron los procesadores
+     */
+    void update(IncrementalPlan plan, Map<String, ProcessorKind> currentProcessors, Map<String, Path> classSources,
+                Map<String, byte[]> classes, List<GeneratedOutput> outputs, ClassLookup lookup) throws IOException {
+        if (plan.isFullRebuild()) {
+            sources.clear();
+            generated.clear();
+            externalClasses.clear();
+        } else {
+            sources.keySet().removeAll(plan.getReplacedSources());
+            Map<GeneratedOutput, Boolean> deleted = new IdentityHashMap<>();
+            for (GeneratedOutput output : plan.getDeletedOutputs()) {
+                deleted.put(output, Boolean.TRUE);
+            }
+            generated.removeIf(deleted::containsKey);
+        }
+        Map<Path, SourceRecord> fresh = new HashMap<>();
+        for (Path source : plan.getSourcesToCompile()) {
+            SourceRecord stamp = plan.getStamps().get(source);
+            if (stamp != null) {
+                fresh.put(source, stamp);
+            }
+        }
+        for (Map.Entry<String, Path> entry : classSources.entrySet()) {
+            SourceRecord record = fresh.computeIfAbsent(entry.getValue(), source -> {
+                SourceRecord generatedSource = new SourceRecord();
+                generatedSource.generated = true;
+                return generatedSource;
+            });
+            record.classes.add(entry.getKey());
+            byte[] bytes = classes.get(entry.getKey());
+            if (bytes != null) {
+                ClassFileInfo info = ClassFileParser.parse(bytes);
+                record.references.addAll(info.getReferencedClasses());
+                record.constants |= hasConstants(info);
+            }
+        }
+        sources.putAll(fresh);
+        // Fuentes tocadas pero sin cambios: se actualiza la fecha para no volver a leerlas
+        for (Map.Entry<Path, SourceRecord> stamp : plan.getStamps().entrySet()) {
+            SourceRecord record = sources.get(stamp.getKey());
+            if (record != null && !record.generated && record.hash.equals(stamp.getValue().hash)) {
+                record.size = stamp.getValue().size;
+                record.modified = stamp.getValue().modified;
+            }
+        }
+        generated.addAll(outputs);
+
+        Set<String> own = new HashSet<>();
+        for (SourceRecord record : sources.values()) {
+            for (String binaryName : record.classes) {
+                own.add(binaryName.replace('.', '/'));
+            }
+        }
+        for (GeneratedOutput output : generated) {
+            if (output.kind == OutputKind.CLASS) {
+                own.add(output.name.replace('.', '/'));
+            }
+        }
+        for (SourceRecord record : fresh.values()) {
+            for (String reference : record.references) {
+                if (own.contains(reference)) {
+                    continue;
+                }
+                byte[] bytes = lookup.find(reference);
+                if (bytes != null) {
+                    externalClasses.put(reference, hash(bytes));
+                }
+            }
+        }
+        externalClasses.keySet().removeAll(own);
+        this.configuration = plan.getConfiguration();
+        this.processors.clear();
+        this.processors.putAll(currentProcessors);
+    }
+
+    /**
+     * Marca como cambiadas las fuentes cuyas salidas va a borrar {@code plan}, de modo
+     * que un plan posterior las vuelva a compilar aunque la compilación falle y el
+     * desarrollador deshaga el cambio. En una compilación completa se descarta la
+     * configuración, lo que obliga a otra compilación completa.
+     */
+    void invalidate(IncrementalPlan plan) {
+        if (plan.isFullRebuild()) {
+            configuration = "";
+            return;
+        }
+        for (Path source : plan.getReplacedSources()) {
+            SourceRecord record = sources.get(source);
+            if (record != null && !record.generated) {
+                record.hash = "";
+                record.size = -1;
+            }
+        }
+    }
+
+    /**
+     * Salidas registradas de cada procesador
+     */
+    public List<GeneratedOutput> getGeneratedOutputs() {
+        return Collections.unmodifiableList(generated);
+    }
+
+    public Map<String, ProcessorKind> getProcessors() {
+        return Collections.unmodifiableMap(processors);
+    }
+
+    /**
+     * Campos no privados con valor constante (ConstantValue): javac copia su valor en
+     * quien los usa sin dejar referencia a la clase
+     */
+    private static boolean hasConstants(ClassFileInfo info) {
+        for (ClassFileInfo.MemberInfo member : info.getMembers()) {
+            if (member.isConstant() && !member.isPrivate()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Path classFile(Path outputDirectory, String binaryName) {
+        return outputDirectory.resolve(binaryName.replace('.', '/') + ".class");
+    }
+
+    private static <T> Set<T> union(Set<T> a, Set<T> b) {
+        Set<T> result = new LinkedHashSet<>(a);
+        result.addAll(b);
+        return result;
+    }
+
+    static String hash(byte[] bytes) {
+        return Digest.hex(Digest.sha256().digest(bytes));
+    }
+
+    private static void writeStrings(DataOutputStream out, Set<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static void readStrings(DataInputStream in, Set<String> values) throws IOException {
+        for (int i = in.readInt(); i > 0; i--) {
+            values.add(in.readUTF());
+        }
+    }
+}
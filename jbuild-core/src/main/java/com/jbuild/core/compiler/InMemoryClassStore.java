@@ -0,0 +1,124 @@
+package com.jbuild.core.compiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+/**
+ * Clases compiladas de un módulo mantenidas en memoria para entregarlas
+ * directamente a los módulos que dependen de él
+ */
+public class InMemoryClassStore {
+    private final String module;
+    private final Map<String, byte[]> classes = new ConcurrentHashMap<>();
+
+    public InMemoryClassStore(String module) {
+        this.module = module;
+    }
+
+    public String getModule() { return module; }
+
+    public int size() {
+        return classes.size();
+    }
+
+    public byte[] get(String binaryName) {
+        return classes.get(binaryName);
+    }
+
+    public void put(String binaryName, byte[] bytes) {
+        classes.put(binaryName, bytes);
+    }
+
+    /**
+     * Copia ordenada por nombre binario
+     */
+    public Map<String, byte[]> snapshot() {
+        return Collections.unmodifiableMap(new TreeMap<>(classes));
+    }
+
+    /**
+     * Archivo de salida que se guarda en este almacén al cerrarse
+     */
+    public JavaFileObject outputFile(String binaryName) {
+        return new MemoryClassFile(this, binaryName);
+    }
+
+    public List<JavaFileObject> list(String packageName, boolean recurse) {
+        List<JavaFileObject> files = new ArrayList<>();
+        String prefix = packageName.isEmpty() ? "" : packageName + ".";
+        for (String binaryName : classes.keySet()) {
+            if (!binaryName.startsWith(prefix)) {
+                continue;
+            }
+            if (recurse || binaryName.indexOf('.', prefix.length()) < 0) {
+                files.add(new MemoryClassFile(this, binaryName));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Escribe todas las clases bajo el directorio de salida del módulo
+     */
+    public void writeTo(Path outputDirectory) throws IOException {
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            Path file = outputDirectory.resolve(entry.getKey().replace('.', '/') + JavaFileObject.Kind.CLASS.extension);
+            Files.createDirectories(file.getParent());
+            Files.write(file, entry.getValue());
+        }
+    }
+
+    /**
+     * .class en memoria, tanto de salida (javac escribe) como de entrada (javac lee)
+     */
+    static final class MemoryClassFile extends SimpleJavaFileObject {
+        private final InMemoryClassStore store;
+        private final String binaryName;
+
+        MemoryClassFile(InMemoryClassStore store, String binaryName) {
+            super(URI.create("mem:///" + store.module + "/" + binaryName.replace('.', '/') + Kind.CLASS.extension),
+                Kind.CLASS);
+            this.store = store;
+            this.binaryName = binaryName;
+        }
+
+        String binaryName() {
+            return binaryName;
+        }
+
+        @Override
+        public InputStream openInputStream() throws IOException {
+            byte[] bytes = store.get(binaryName);
+            if (bytes == null) {
+                throw new IOException("Clase " + binaryName + " no disponible en memoria para " + store.module);
+            }
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return new ByteArrayOutputStream() {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    store.put(binaryName, toByteArray());
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,708 @@
+package com.jbuild.core.compiler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.ServiceConfigurationError;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.jbuild.core.graph.ModuleGraph;
+import com.jbuild.core.metrics.BuildMetrics;
+import com.jbuild.core.metrics.Counter;
+import com.jbuild.core.optimizer.ClassFileParser;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+/**
+ * Compila varios módulos dentro de la misma JVM del build.
+ * <ul>
+ *   <li>Cada hilo reutiliza su StandardJavaFileManager entre módulos, de modo que las
+ *       clases de la plataforma (jrt/ct.sym) se abren una sola vez por hilo.</li>
+ *   <li>Los JARs de librerías se resuelven con el {@link ClasspathIndex} compartido.</li>
+ *   <li>La salida de un módulo queda en memoria y se entrega tal cual a los módulos
+ *       que dependen de él; la escritura a disco se hace de forma asíncrona.</li>
+ *   <li>{@link #compileIncremental} recompila solo lo afectado por los cambios según el
+ *       {@link CompilationLedger} del módulo, incluidas las salidas de los procesadores
+ *       de anotaciones.</li>
+ * </ul>
+ */
+public class InProcessModuleCompiler implements AutoCloseable {
+    private final JavaCompiler compiler;
+    private final ClasspathIndex index;
+    private final ExecutorService writer;
+    private final Queue<StandardJavaFileManager> openManagers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<StandardJavaFileManager> fileManagers;
+    private final Map<String, ModuleCompilation> modules = new ConcurrentHashMap<>();
+    private final Map<String, InMemoryClassStore> outputs = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> writes = new ConcurrentHashMap<>();
+    private final Map<String, IncrementalPlan> plans = new ConcurrentHashMap<>();
+    private ModuleGraph graph;
+    private final Counter compiledModules = BuildMetrics.shared().compiledModules();
+    private final Counter compiledClasses = BuildMetrics.shared().compiledClasses();
+    private final Counter compileMillis = BuildMetrics.shared().compileMillis();
+
+    public InProcessModuleCompiler() {
+        this(ClasspathIndex.shared());
+    }
+
+    public InProcessModuleCompiler(ClasspathIndex index) {
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No hay compilador Java disponible (¿se está ejecutando con un JRE?)");
+        }
+        this.index = index;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jbuild-class-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.fileManagers = ThreadLocal.withInitial(() -> {
+            StandardJavaFileManager manager = compiler.getStandardFileManager(null, Locale.getDefault(), null);
+            openManagers.add(manager);
+            return manager;
+        });
+    }
+
+    /**
+     * Registra un módulo para que otros puedan depender de él (p. ej. uno ya
+     * compilado en un build anterior, que se leerá de su directorio de salida)
+     */
+    public void register(ModuleCompilation module) {
+        ModuleCompilation previous = modules.put(module.getName(), module);
+        if (previous == null || !previous.getDependencies().equals(module.getDependencies())) {
+            synchronized (this) {
+                graph = null;
+            }
+        }
+    }
+
+    /**
+     * Grafo de los módulos registrados; se reconstruye solo cuando cambian
+     */
+    private synchronized ModuleGraph graph() {
+        if (graph == null) {
+            ModuleGraph.Builder builder = ModuleGraph.builder();
+            for (ModuleCompilation module : modules.values()) {
+                builder.module(module.getName());
+                for (String dependency : module.getDependencies()) {
+                    builder.dependency(module.getName(), dependency);
+                }
+            }
+            graph = builder.build();
+        }
+        return graph;
+    }
+
+    /**
+     * Compila los módulos en orden topológico
+     */
+    public List<ModuleCompilationResult> compileAll(List<ModuleCompilation> toCompile) {
+        for (ModuleCompilation module : toCompile) {
+            register(module);
+        }
+        List<ModuleCompilationResult> results = new ArrayList<>();
+        Set<String> failed = new HashSet<>();
+        for (ModuleCompilation module : topologicalOrder(toCompile)) {
+            boolean upstreamFailed = false;
+            for (String dependency : transitiveDependencies(module.getName())) {
+                upstreamFailed |= failed.contains(dependency);
+            }
+            if (upstreamFailed) {
+                failed.add(module.getName());
+                results.add(new ModuleCompilationResult(module.getName(), false,
+                    Collections.singletonList("Omitido: falló la compilación de un módulo del que depende"),
+                    0, 0, CompletableFuture.completedFuture(null)));
+                continue;
+            }
+            ModuleCompilationResult result = compile(module);
+            if (!result.isSuccess()) {
+                failed.add(module.getName());
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Compila un módulo; sus dependencias deben estar compiladas en este proceso o registradas
+     */
+    public ModuleCompilationResult compile(ModuleCompilation module) {
+        return compileAgainst(module, outputs);
+    }
+
+    /**
+     * Compila un módulo contra las salidas en memoria indicadas para sus dependencias
+     * (p. ej. su ABI en la compilación en pipeline)
+     */
+    public ModuleCompilationResult compileAgainst(ModuleCompilation module,
+                                                  Map<String, InMemoryClassStore> upstreamOutputs) {
+        return compileAgainst(module, upstreamOutputs, CompletableFuture.completedFuture(true));
+    }
+
+    /**
+     * Como {@link #compileAgainst(ModuleCompilation, Map)}, pero la escritura a disco
+     * espera a {@code writeWhen} y se omite si no termina con true (p. ej. porque falló
+     * la compilación completa de una dependencia cuya ABI se usó)
+     */
+    public ModuleCompilationResult compileAgainst(ModuleCompilation module,
+                                                  Map<String, InMemoryClassStore> upstreamOutputs,
+                                                  CompletableFuture<Boolean> writeWhen) {
+        register(module);
+        long start = System.currentTimeMillis();
+        InMemoryClassStore output = new InMemoryClassStore(module.getName());
+        List<InMemoryClassStore> upstream = new ArrayList<>();
+        List<Path> classpath = resolveClasspath(module, upstreamOutputs, upstream);
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        boolean success;
+        try {
+            StandardJavaFileManager standard = fileManagers.get();
+            setOutputLocations(standard, module.getOutputDirectory(), module.getGeneratedSourcesDirectory());
+            try {
+                ModuleFileManager fileManager = new ModuleFileManager(
+                    new IndexedJavaFileManager(standard, classpath, index), output, upstream);
+                Iterable<? extends JavaFileObject> sources = standard.getJavaFileObjectsFromPaths(module.collectSources());
+                success = compiler.getTask(null, fileManager, diagnostics, module.getOptions(), null, sources).call();
+            } finally {
+                clearOutputLocations(standard);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error preparando la compilación de " + module.getName(), e);
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        compileMillis.add(duration);
+        CompletableFuture<Void> written = CompletableFuture.completedFuture(null);
+        if (success) {
+            compiledModules.increment();
+            compiledClasses.add(output.size());
+            written = publish(module, output, writeWhen);
+        }
+        return new ModuleCompilationResult(module.getName(), success, format(diagnostics.getDiagnostics()),
+            output.size(), duration, written);
+    }
+
+    /**
+     * Compila un módulo de forma incremental según su {@link CompilationLedger}: solo las
+     * fuentes cambiadas y las que dependen de ellas, y de las salidas de los procesadores
+     * de anotaciones solo las afectadas. Las clases se escriben a disco antes de volver y
+     * los módulos que dependen de este las leen del directorio de salida, donde están
+     * junto a las que no hubo que recompilar.
+     */
+    public ModuleCompilationResult compileIncremental(ModuleCompilation module) {
+        if (module.getOutputDirectory() == null) {
+            throw new IllegalArgumentException("La compilación incremental de " + module.getName()
+                + " necesita un directorio de salida");
+        }
+        register(module);
+        long start = System.currentTimeMillis();
+        Path outputDirectory = module.getOutputDirectory().toAbsolutePath().normalize();
+        InMemoryClassStore output = new InMemoryClassStore(module.getName());
+        List<InMemoryClassStore> upstream = new ArrayList<>();
+        List<Path> classpath = resolveClasspath(module, outputs, upstream);
+        List<Path> sources = new ArrayList<>();
+        for (Path source : module.collectSources()) {
+            sources.add(source.toAbsolutePath().normalize());
+        }
+        // Sin salida en memoria: quien dependa de este módulo lee el directorio completo
+        outputs.remove(module.getName());
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        boolean success = true;
+        try (AnnotationProcessors processors = AnnotationProcessors.discover(
+                module.getOptions(), classpath, processorClassLoader())) {
+            CompilationLedger.ClassLookup lookup = upstreamLookup(classpath, upstream);
+            CompilationLedger ledger = CompilationLedger.load(module.getLedgerFile());
+            IncrementalPlan plan = ledger.plan(sources, configuration(module, classpath, processors.getKinds()),
+                processors.getKinds(), outputDirectory, lookup);
+            plans.put(module.getName(), plan);
+            if (plan.isUpToDate()) {
+                return new ModuleCompilationResult(module.getName(), true, Collections.emptyList(), 0,
+                    System.currentTimeMillis() - start, CompletableFuture.completedFuture(null));
+            }
+            // Antes de borrar nada: si la compilación falla, el siguiente plan vuelve a incluir lo borrado
+            ledger.invalidate(plan);
+            ledger.save(module.getLedgerFile());
+            for (Path stale : plan.getOutputsToDelete()) {
+                Files.deleteIfExists(stale);
+            }
+
+            Map<String, Path> classSources = new ConcurrentHashMap<>();
+            List<CompilationLedger.GeneratedOutput> generated = Collections.synchronizedList(new ArrayList<>());
+            if (!plan.getSourcesToCompile().isEmpty()) {
+                // Las clases que no se recompilan se leen de la salida anterior
+                List<Path> compileClasspath = new ArrayList<>(classpath);
+                if (!plan.isFullRebuild()) {
+                    compileClasspath.add(0, outputDirectory);
+                }
+                StandardJavaFileManager standard = fileManagers.get();
+                setOutputLocations(standard, outputDirectory, module.getGeneratedSourcesDirectory());
+                try {
+                    ModuleFileManager fileManager = new ModuleFileManager(
+                        new IndexedJavaFileManager(standard, compileClasspath, index), output, upstream);
+                    fileManager.trackClassSources(classSources);
+                    JavacTask task = (JavacTask) compiler.getTask(null, fileManager, diagnostics, module.getOptions(),
+                        null, standard.getJavaFileObjectsFromPaths(plan.getSourcesToCompile()));
+                    task.setProcessors(processors.tracking(generated));
+                    success = task.call();
+                } finally {
+                    clearOutputLocations(standard);
+                }
+            }
+            if (success) {
+                output.writeTo(outputDirectory);
+                ledger.update(plan, processors.getKinds(), classSources, output.snapshot(), generated, lookup);
+                ledger.save(module.getLedgerFile());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error en la compilación incremental de " + module.getName(), e);
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        compileMillis.add(duration);
+        if (success) {
+            compiledModules.increment();
+            compiledClasses.add(output.size());
+        }
+        return new ModuleCompilationResult(module.getName(), success, format(diagnostics.getDiagnostics()),
+            output.size(), duration, CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Plan de la última compilación incremental de un módulo, o null
+     */
+    public IncrementalPlan getPlan(String module) {
+        return plans.get(module);
+    }
+
+    /**
+     * Resumen de lo que, fuera de las fuentes, cambia el resultado de compilar un módulo:
+     * versión de javac, opciones, JARs del classpath y procesadores con su tipo. Los
+     * directorios del classpath se siguen clase a clase en el registro.
+     */
+    private static String configuration(ModuleCompilation module, List<Path> classpath,
+                                        Map<String, ProcessorKind> processors) throws IOException {
+        StringBuilder text = new StringBuilder(Runtime.version().toString()).append('\n');
+        for (String option : module.getOptions()) {
+            text.append(option).append('\n');
+        }
+        text.append(module.getGeneratedSourcesDirectory()).append('\n');
+        for (Path entry : classpath) {
+            if (ClasspathIndex.isJar(entry)) {
+                text.append(entry.toAbsolutePath()).append(' ');
+                if (Files.isRegularFile(entry)) {
+                    text.append(Files.size(entry)).append(' ').append(Files.getLastModifiedTime(entry).toMillis());
+                }
+                text.append('\n');
+            }
+        }
+        for (Map.Entry<String, ProcessorKind> processor : processors.entrySet()) {
+            text.append(processor.getKey()).append(' ').append(processor.getValue()).append('\n');
+        }
+        return CompilationLedger.hash(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Clases de otros módulos del build: primero su salida en memoria, después los
+     * directorios del classpath. Las de JARs no se siguen (cuentan en la configuración).
+     */
+    private static CompilationLedger.ClassLookup upstreamLookup(List<Path> classpath, List<InMemoryClassStore> upstream) {
+        return internalName -> {
+            String binaryName = internalName.replace('/', '.');
+            for (InMemoryClassStore store : upstream) {
+                byte[] bytes = store.get(binaryName);
+                if (bytes != null) {
+                    return bytes;
+                }
+            }
+            for (Path entry : classpath) {
+                Path file = entry.resolve(internalName + ".class");
+                if (!ClasspathIndex.isJar(entry) && Files.isRegularFile(file)) {
+                    return Files.readAllBytes(file);
+                }
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Directorios de salida de un módulo en el file manager del hilo. Las clases van a
+     * memoria, pero los recursos y fuentes de los procesadores se escriben aquí.
+     */
+    private static void setOutputLocations(StandardJavaFileManager standard, Path classOutput,
+                                           Path sourceOutput) throws IOException {
+        clearOutputLocations(standard);
+        if (classOutput != null) {
+            Files.createDirectories(classOutput);
+            standard.setLocationFromPaths(StandardLocation.CLASS_OUTPUT, Collections.singletonList(classOutput));
+        }
+        if (sourceOutput != null) {
+            Files.createDirectories(sourceOutput);
+            standard.setLocationFromPaths(StandardLocation.SOURCE_OUTPUT, Collections.singletonList(sourceOutput));
+        }
+    }
+
+    /**
+     * El file manager es del hilo: el siguiente módulo no debe heredar los directorios de este
+     */
+    private static void clearOutputLocations(StandardJavaFileManager standard) throws IOException {
+        standard.setLocation(StandardLocation.CLASS_OUTPUT, null);
+        standard.setLocation(StandardLocation.SOURCE_OUTPUT, null);
+    }
+
+    /**
+     * Padre de los cargadores de procesadores: el de javac, para que vean jdk.compiler
+     */
+    private ClassLoader processorClassLoader() {
+        ClassLoader loader = compiler.getClass().getClassLoader();
+        return loader != null ? loader : ClassLoader.getPlatformClassLoader();
+    }
+
+    /**
+     * Compila varios módulos independientes entre sí en una única invocación de javac;
+     * cada clase generada se asigna al módulo de la fuente de la que procede.
+     * <p>
+     * El lote se compila sin procesadores de anotaciones, así que solo deben agruparse
+     * módulos sin ellos ({@link #hasAnnotationProcessors}).
+     * <p>
+     * Devuelve null si el lote no puede darse por bueno (errores de compilación, clases
+     * sin fuente de origen conocida o referencias entre módulos del lote); en ese caso
+     * no se publica nada y los módulos deben compilarse por separado.
+     */
+    Map<String, ModuleCompilationResult> compileBatch(List<ModuleCompilation> batch) {
+        long start = System.currentTimeMillis();
+        Set<Path> classpath = new LinkedHashSet<>();
+        Set<InMemoryClassStore> upstream = new LinkedHashSet<>();
+        Map<Path, InMemoryClassStore> outputBySource = new HashMap<>();
+        Map<String, InMemoryClassStore> batchOutputs = new LinkedHashMap<>();
+        List<Path> sources = new ArrayList<>();
+        for (ModuleCompilation module : batch) {
+            register(module);
+        }
+        for (ModuleCompilation module : batch) {
+            List<InMemoryClassStore> moduleUpstream = new ArrayList<>();
+            classpath.addAll(resolveClasspath(module, outputs, moduleUpstream));
+            upstream.addAll(moduleUpstream);
+            InMemoryClassStore output = new InMemoryClassStore(module.getName());
+            batchOutputs.put(module.getName(), output);
+            for (Path source : module.collectSources()) {
+                outputBySource.put(source.toAbsolutePath().normalize(), output);
+                sources.add(source);
+            }
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try {
+            StandardJavaFileManager standard = fileManagers.get();
+            clearOutputLocations(standard);
+            BatchFileManager fileManager = new BatchFileManager(
+                new IndexedJavaFileManager(standard, new ArrayList<>(classpath), index),
+                standard, outputBySource, new ArrayList<>(upstream));
+            // Sin procesadores: sus salidas no podrían repartirse por módulo (ver hasAnnotationProcessors)
+            List<String> options = batch.get(0).getOptions();
+            options.add("-proc:none");
+            boolean success = compiler.getTask(null, fileManager, diagnostics, options, null,
+                standard.getJavaFileObjectsFromPaths(sources)).call();
+            if (!success || leaksAcrossModules(batchOutputs)) {
+                return null;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error preparando la compilación del lote " + batchOutputs.keySet(), e);
+        }
+
+        // Los avisos se reparten por el módulo de la fuente que los produjo; los generales, a todos
+        Map<InMemoryClassStore, List<Diagnostic<? extends JavaFileObject>>> moduleDiagnostics = new HashMap<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            URI source = diagnostic.getSource() == null ? null : diagnostic.getSource().toUri();
+            InMemoryClassStore owner = source == null || !"file".equals(source.getScheme()) ? null
+                : outputBySource.get(Paths.get(source).toAbsolutePath().normalize());
+            moduleDiagnostics.computeIfAbsent(owner, ignored -> new ArrayList<>()).add(diagnostic);
+        }
+        long duration = System.currentTimeMillis() - start;
+        compileMillis.add(duration);
+        compiledModules.add(batch.size());
+        Map<String, ModuleCompilationResult> results = new LinkedHashMap<>();
+        for (ModuleCompilation module : batch) {
+            InMemoryClassStore output = batchOutputs.get(module.getName());
+            List<Diagnostic<? extends JavaFileObject>> own = new ArrayList<>(
+                moduleDiagnostics.getOrDefault(null, Collections.emptyList()));
+            own.addAll(moduleDiagnostics.getOrDefault(output, Collections.emptyList()));
+            compiledClasses.add(output.size());
+            results.put(module.getName(), new ModuleCompilationResult(module.getName(), true, format(own),
+                output.size(), duration, publish(module, output, CompletableFuture.completedFuture(true))));
+        }
+        return results;
+    }
+
+    /**
+     * Lo que javac ve de un módulo aparte de sus fuentes: opciones, classpath resuelto en
+     * orden y salidas en memoria de sus dependencias. Solo los módulos con la misma clave
+     * pueden compartir lote y obtener el mismo resultado que compilados por separado.
+     */
+    List<Object> batchKey(ModuleCompilation module) {
+        List<InMemoryClassStore> upstream = new ArrayList<>();
+        List<Path> classpath = resolveClasspath(module, outputs, upstream);
+        List<String> upstreamModules = new ArrayList<>();
+        for (InMemoryClassStore store : upstream) {
+            upstreamModules.add(store.getModule());
+        }
+        return Arrays.asList(module.getOptions(), classpath, upstreamModules);
+    }
+
+    /**
+     * Si javac ejecutaría procesadores de anotaciones al compilar el módulo. Si no se
+     * pueden descubrir se responde que sí: la compilación por separado informará del error.
+     */
+    boolean hasAnnotationProcessors(ModuleCompilation module) {
+        List<Path> classpath = resolveClasspath(module, outputs, new ArrayList<>());
+        try (AnnotationProcessors processors = AnnotationProcessors.discover(
+                module.getOptions(), classpath, processorClassLoader())) {
+            return !processors.getKinds().isEmpty();
+        } catch (IOException | IllegalArgumentException | ServiceConfigurationError e) {
+            return true;
+        }
+    }
+
+    /**
+     * Comprueba que ninguna clase del lote use clases de otro módulo del mismo lote:
+     * compilados juntos se verían entre sí aunque no declaren la dependencia
+     */
+    private static boolean leaksAcrossModules(Map<String, InMemoryClassStore> batchOutputs) throws IOException {
+        Map<String, String> owners = new HashMap<>();
+        for (InMemoryClassStore output : batchOutputs.values()) {
+            for (String binaryName : output.snapshot().keySet()) {
+                owners.put(binaryName.replace('.', '/'), output.getModule());
+            }
+        }
+        for (InMemoryClassStore output : batchOutputs.values()) {
+            for (byte[] bytes : output.snapshot().values()) {
+                for (String referenced : ClassFileParser.parse(bytes).getReferencedClasses()) {
+                    String owner = owners.get(referenced);
+                    if (owner != null && !owner.equals(output.getModule())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Publica la salida en memoria de un módulo compilado y programa su escritura a disco
+     * para cuando {@code writeWhen} termine con true
+     */
+    private CompletableFuture<Void> publish(ModuleCompilation module, InMemoryClassStore output,
+                                            CompletableFuture<Boolean> writeWhen) {
+        outputs.put(module.getName(), output);
+        if (module.getOutputDirectory() == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> written = writeWhen.exceptionally(failure -> false).thenAcceptAsync(write -> {
+            if (!Boolean.TRUE.equals(write)) {
+                return;
+            }
+            try {
+                output.writeTo(module.getOutputDirectory());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error escribiendo las clases de " + module.getName(), e);
+            }
+        }, writer);
+        writes.put(module.getName(), written);
+        return written;
+    }
+
+    /**
+     * Genera la ABI del módulo (clases con firmas y sin cuerpos) tras la fase de enter
+     * de javac, sin atribuir ni generar código. Devuelve null si la ABI no puede
+     * obtenerse de las fuentes (p. ej. tipos generados por procesadores de anotaciones).
+     */
+    public InMemoryClassStore generateAbi(ModuleCompilation module, Map<String, InMemoryClassStore> upstreamAbi) {
+        register(module);
+        InMemoryClassStore abi = new InMemoryClassStore(module.getName() + "-abi");
+        List<InMemoryClassStore> upstream = new ArrayList<>();
+        List<Path> classpath = resolveClasspath(module, upstreamAbi, upstream);
+        List<String> options = module.getOptions();
+        options.add("-proc:none");
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try {
+            StandardJavaFileManager standard = fileManagers.get();
+            ModuleFileManager fileManager = new ModuleFileManager(
+                new IndexedJavaFileManager(standard, classpath, index), abi, upstream);
+            Iterable<? extends JavaFileObject> sources = standard.getJavaFileObjectsFromPaths(module.collectSources());
+            JavacTask task = (JavacTask) compiler.getTask(null, fileManager, diagnostics, options, null, sources);
+            Elements elements = task.getElements();
+            AbiClassWriter writer = new AbiClassWriter(elements);
+            for (CompilationUnitTree unit : task.parse()) {
+                String packagePrefix = unit.getPackageName() == null ? "" : unit.getPackageName() + ".";
+                for (Tree declaration : unit.getTypeDecls()) {
+                    if (!(declaration instanceof ClassTree)) {
+                        continue;
+                    }
+                    // getTypeElement completa la fase de enter sobre las fuentes parseadas
+                    TypeElement element = elements.getTypeElement(
+                        packagePrefix + ((ClassTree) declaration).getSimpleName());
+                    if (element == null) {
+                        return null;
+                    }
+                    for (TypeElement type : AbiClassWriter.abiTypes(element)) {
+                        abi.put(writer.binaryName(type), writer.write(type));
+                    }
+                }
+            }
+        } catch (AbiClassWriter.AbiException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error generando la ABI de " + module.getName(), e);
+        }
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                return null;
+            }
+        }
+        return abi;
+    }
+
+    /**
+     * Classpath de un módulo: dependencias con salida en memoria van a {@code upstream};
+     * el resto se leen de su directorio de salida
+     */
+    private List<Path> resolveClasspath(ModuleCompilation module, Map<String, InMemoryClassStore> upstreamOutputs,
+                                        List<InMemoryClassStore> upstream) {
+        Set<Path> classpath = new LinkedHashSet<>();
+        for (String dependency : transitiveDependencies(module.getName())) {
+            InMemoryClassStore store = upstreamOutputs.get(dependency);
+            ModuleCompilation upstreamModule = modules.get(dependency);
+            if (store != null) {
+                upstream.add(store);
+            } else if (upstreamModule != null && upstreamModule.getOutputDirectory() != null) {
+                classpath.add(upstreamModule.getOutputDirectory());
+            }
+            if (upstreamModule != null) {
+                classpath.addAll(upstreamModule.getClasspath());
+            }
+        }
+        classpath.addAll(module.getClasspath());
+        return new ArrayList<>(classpath);
+    }
+
+    /**
+     * Salida en memoria de un módulo ya compilado, o null
+     */
+    public InMemoryClassStore getOutput(String module) {
+        return outputs.get(module);
+    }
+
+    /**
+     * Libera la salida en memoria de un módulo cuando ya no la necesita ningún otro
+     */
+    public void release(String module) {
+        outputs.remove(module);
+    }
+
+    /**
+     * Espera a que terminen todas las escrituras pendientes a disco
+     */
+    public void awaitWrites() {
+        CompletableFuture.allOf(writes.values().toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            awaitWrites();
+        } finally {
+            writer.shutdown();
+            for (StandardJavaFileManager manager : openManagers) {
+                manager.close();
+            }
+            openManagers.clear();
+        }
+    }
+
+    /**
+     * Dependencias transitivas de un módulo, de las más cercanas a las más lejanas
+     */
+    List<String> transitiveDependencies(String module) {
+        ModuleGraph current = graph();
+        int id = current.id(module);
+        if (id < 0) {
+            return new ArrayList<>();
+        }
+        int[] order = current.transitiveDependencyOrder(id);
+        List<String> result = new ArrayList<>(order.length);
+        for (int dependency : order) {
+            result.add(current.name(dependency));
+        }
+        return result;
+    }
+
+    /**
+     * Módulos en orden de build; las dependencias fuera de la lista se ignoran
+     *
+     * @throws ModuleGraph.CycleException si hay un ciclo
+     */
+    static List<ModuleCompilation> topologicalOrder(List<ModuleCompilation> modules) {
+        Map<String, ModuleCompilation> byName = new LinkedHashMap<>();
+        ModuleGraph.Builder builder = ModuleGraph.builder();
+        for (ModuleCompilation module : modules) {
+            byName.put(module.getName(), module);
+            builder.module(module.getName());
+        }
+        for (ModuleCompilation module : modules) {
+            for (String dependency : module.getDependencies()) {
+                if (byName.containsKey(dependency)) {
+                    builder.dependency(module.getName(), dependency);
+                }
+            }
+        }
+        ModuleGraph graph = builder.build();
+        List<ModuleCompilation> ordered = new ArrayList<>(modules.size());
+        for (int id : graph.topologicalOrder()) {
+            ordered.add(byName.get(graph.name(id)));
+        }
+        return ordered;
+    }
+
+    private static List<String> format(List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+        List<String> messages = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+            String source = diagnostic.getSource() == null ? "" : diagnostic.getSource().getName() + ":"
+                + diagnostic.getLineNumber() + ": ";
+            messages.add(diagnostic.getKind() + ": " + source + diagnostic.getMessage(Locale.getDefault()));
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,64 @@
+package com.jbuild.core.compiler;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resultado de comparar las fuentes de un módulo con su {@link CompilationLedger}:
+ * qué fuentes recompilar y qué salidas (clases, fuentes y recursos generados) borrar
+ * antes, o si hace falta recompilar el módulo entero y por qué
+ */
+public class IncrementalPlan {
+    private final boolean fullRebuild;
+    private final String reason;
+    private final String configuration;
+    private final List<Path> sourcesToCompile;
+    private final List<Path> outputsToDelete;
+    private final Set<Path> replacedSources;
+    private final List<CompilationLedger.GeneratedOutput> deletedOutputs;
+    private final Map<Path, CompilationLedger.SourceRecord> stamps;
+
+    IncrementalPlan(boolean fullRebuild, String reason, String configuration, List<Path> sourcesToCompile,
+                    List<Path> outputsToDelete, Set<Path> replacedSources,
+                    List<CompilationLedger.GeneratedOutput> deletedOutputs,
+                    Map<Path, CompilationLedger.SourceRecord> stamps) {
+        this.fullRebuild = fullRebuild;
+        this.reason = reason;
+        this.configuration = configuration;
+        this.sourcesToCompile = sourcesToCompile;
+        this.outputsToDelete = outputsToDelete;
+        this.replacedSources = replacedSources;
+        this.deletedOutputs = deletedOutputs;
+        this.stamps = stamps;
+    }
+
+    /**
+     * Nada que compilar ni borrar: la salida está al día con las fuentes
+     */
+    public boolean isUpToDate() {
+        return !fullRebuild && sourcesToCompile.isEmpty() && outputsToDelete.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        if (fullRebuild) {
+            return "compilación completa: " + reason;
+        }
+        return isUpToDate() ? "al día" : sourcesToCompile.size() + " fuentes a recompilar, "
+            + outputsToDelete.size() + " salidas obsoletas";
+    }
+
+    // Getters
+    public boolean isFullRebuild() { return fullRebuild; }
+    public String getReason() { return reason; }
+    public List<Path> getSourcesToCompile() { return Collections.unmodifiableList(sourcesToCompile); }
+    public List<Path> getOutputsToDelete() { return Collections.unmodifiableList(outputsToDelete); }
+    public List<CompilationLedger.GeneratedOutput> getDeletedOutputs() { return new ArrayList<>(deletedOutputs); }
+    String getConfiguration() { return configuration; }
+    Set<Path> getReplacedSources() { return replacedSources; }
+    Map<Path, CompilationLedger.SourceRecord> getStamps() { return stamps; }
+}
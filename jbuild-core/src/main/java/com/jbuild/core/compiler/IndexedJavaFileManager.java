@@ -0,0 +1,201 @@
+package com.jbuild.core.compiler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+/**
+ * JavaFileManager que resuelve los JARs del classpath mediante {@link ClasspathIndex}.
+ * Los directorios del classpath siguen en manos del file manager estándar; entre
+ * directorios y JARs se respeta el orden declarado del classpath.
+ */
+public class IndexedJavaFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+    private final Map<String, List<ClasspathIndex.JarIndex>> packages;
+    private final Map<Path, Integer> positions = new HashMap<>();
+    private final List<Path> directories = new ArrayList<>();
+
+    public IndexedJavaFileManager(StandardJavaFileManager delegate, List<Path> classpath) throws IOException {
+        this(delegate, classpath, ClasspathIndex.shared());
+    }
+
+    public IndexedJavaFileManager(StandardJavaFileManager delegate, List<Path> classpath,
+                                  ClasspathIndex index) throws IOException {
+        super(delegate);
+        for (Path entry : classpath) {
+            Path normalized = entry.toAbsolutePath().normalize();
+            positions.putIfAbsent(normalized, positions.size());
+            if (!ClasspathIndex.isJar(entry)) {
+                directories.add(normalized);
+            }
+        }
+        delegate.setLocationFromPaths(StandardLocation.CLASS_PATH, directories);
+        this.packages = index.packages(classpath);
+    }
+
+    @Override
+    public Iterable<JavaFileObject> list(Location location, String packageName,
+                                         Set<JavaFileObject.Kind> kinds, boolean recurse) throws IOException {
+        Iterable<JavaFileObject> fromDelegate = super.list(location, packageName, kinds, recurse);
+        if (location != StandardLocation.CLASS_PATH) {
+            return fromDelegate;
+        }
+        List<JavaFileObject> result = new ArrayList<>();
+        for (JavaFileObject file : fromDelegate) {
+            result.add(file);
+        }
+        if (recurse) {
+            String prefix = packageName.isEmpty() ? "" : packageName + ".";
+            for (Map.Entry<String, List<ClasspathIndex.JarIndex>> entry : packages.entrySet()) {
+                if (entry.getKey().equals(packageName) || entry.getKey().startsWith(prefix)) {
+                    addEntries(entry.getKey(), entry.getValue(), kinds, result);
+                }
+            }
+        } else {
+            addEntries(packageName, packages.getOrDefault(packageName, Collections.emptyList()), kinds, result);
+        }
+        if (!directories.isEmpty() && directories.size() < positions.size()) {
+            // Orden estable por posición en el classpath: javac se queda con la primera clase de cada nombre
+            result.sort(Comparator.comparingInt(file -> positionOf(location, file)));
+        }
+        return result;
+    }
+
+    private static void addEntries(String packageName, List<ClasspathIndex.JarIndex> jars,
+                                   Set<JavaFileObject.Kind> kinds, List<JavaFileObject> result) {
+        for (ClasspathIndex.JarIndex jar : jars) {
+            for (String entryName : jar.entries(packageName)) {
+                JavaFileObject.Kind kind = kindOf(entryName);
+                if (kinds.contains(kind)) {
+                    result.add(new IndexedFileObject(jar, entryName, kind));
+                }
+            }
+        }
+    }
+
+    @Override
+    public String inferBinaryName(Location location, JavaFileObject file) {
+        if (file instanceof IndexedFileObject) {
+            return ((IndexedFileObject) file).binaryName();
+        }
+        return super.inferBinaryName(location, file);
+    }
+
+    @Override
+    public boolean isSameFile(FileObject a, FileObject b) {
+        if (a instanceof IndexedFileObject || b instanceof IndexedFileObject) {
+            return a.toUri().equals(b.toUri());
+        }
+        return super.isSameFile(a, b);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForInput(Location location, String className,
+                                              JavaFileObject.Kind kind) throws IOException {
+        JavaFileObject file = super.getJavaFileForInput(location, className, kind);
+        if (location != StandardLocation.CLASS_PATH) {
+            return file;
+        }
+        int dot = className.lastIndexOf('.');
+        String packageName = dot < 0 ? "" : className.substring(0, dot);
+        String entryName = className.replace('.', '/') + kind.extension;
+        for (ClasspathIndex.JarIndex jar : packages.getOrDefault(packageName, Collections.emptyList())) {
+            if (jar.contains(packageName, entryName)) {
+                JavaFileObject fromJar = new IndexedFileObject(jar, entryName, kind);
+                return file == null || positionOf(location, fromJar) < positionOf(location, file) ? fromJar : file;
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Posición en el classpath de la entrada (JAR o directorio) de la que procede el archivo
+     */
+    private int positionOf(Location location, JavaFileObject file) {
+        if (file instanceof IndexedFileObject) {
+            return positions.getOrDefault(((IndexedFileObject) file).jar.getPath(), Integer.MAX_VALUE);
+        }
+        if (!"file".equals(file.toUri().getScheme())) {
+            return Integer.MAX_VALUE;
+        }
+        Path path = Paths.get(file.toUri()).toAbsolutePath().normalize();
+        String binaryName = super.inferBinaryName(location, file);
+        if (binaryName != null) {
+            Path root = path;
+            for (int i = binaryName.split("\\.").length; i > 0 && root != null; i--) {
+                root = root.getParent();
+            }
+            Integer position = root == null ? null : positions.get(root);
+            if (position != null) {
+                return position;
+            }
+        }
+        for (Path directory : directories) {
+            if (path.startsWith(directory)) {
+                return positions.get(directory);
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    private static JavaFileObject.Kind kindOf(String entryName) {
+        if (entryName.endsWith(JavaFileObject.Kind.CLASS.extension)) {
+            return JavaFileObject.Kind.CLASS;
+        }
+        if (entryName.endsWith(JavaFileObject.Kind.SOURCE.extension)) {
+            return JavaFileObject.Kind.SOURCE;
+        }
+        return JavaFileObject.Kind.OTHER;
+    }
+
+    /**
+     * Entrada de un JAR indexado
+     */
+    static final class IndexedFileObject extends SimpleJavaFileObject {
+        private final ClasspathIndex.JarIndex jar;
+        private final String entryName;
+
+        IndexedFileObject(ClasspathIndex.JarIndex jar, String entryName, Kind kind) {
+            super(Paths.get(jar.getPath() + "!", entryName).toUri(), kind);
+            this.jar = jar;
+            this.entryName = entryName;
+        }
+
+        String binaryName() {
+            String withoutExtension = entryName.substring(0, entryName.length() - getKind().extension.length());
+            return withoutExtension.replace('/', '.');
+        }
+
+        @Override
+        public InputStream openInputStream() throws IOException {
+            return jar.open(entryName);
+        }
+
+        @Override
+        public String getName() {
+            return jar.getPath() + "(" + entryName + ")";
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) throws IOException {
+            try (InputStream in = openInputStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+    }
+}
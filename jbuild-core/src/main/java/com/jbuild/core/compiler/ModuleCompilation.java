@@ -0,0 +1,155 @@
+package com.jbuild.core.compiler;
+
+import com.jbuild.core.dsl.type_safe.BuildConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Unidad de compilación de un módulo: fuentes, dependencias entre módulos,
+ * classpath externo y directorio de salida
+ */
+public class ModuleCompilation {
+    private String name;
+    private final List<String> dependencies = new ArrayList<>();
+    private final List<Path> sourceDirectories = new ArrayList<>();
+    private final List<Path> sourceFiles = new ArrayList<>();
+    private final List<Path> classpath = new ArrayList<>();
+    private final List<String> options = new ArrayList<>();
+    private Path outputDirectory;
+    private Path generatedSourcesDirectory;
+    private Path ledgerFile;
+
+    public ModuleCompilation() {}
+
+    public static ModuleCompilation builder() {
+        return new ModuleCompilation();
+    }
+
+    /**
+     * Módulo con los directorios de fuentes y salida de su BuildConfig, relativos a baseDirectory;
+     * las fuentes de los procesadores de anotaciones van a generated-sources/annotations
+     * junto al directorio de salida
+     */
+    public static ModuleCompilation fromBuildConfig(String name, Path baseDirectory, BuildConfig config) {
+        Path outputDirectory = baseDirectory.resolve(config.getOutputDirectory());
+        return builder()
+            .name(name)
+            .sourceDirectory(baseDirectory.resolve(config.getSourceDirectory()))
+            .outputDirectory(outputDirectory)
+            .generatedSourcesDirectory(outputDirectory.resolveSibling("generated-sources").resolve("annotations"));
+    }
+
+    public ModuleCompilation name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public ModuleCompilation dependsOn(String... modules) {
+        for (String module : modules) {
+            dependencies.add(module);
+        }
+        return this;
+    }
+
+    public ModuleCompilation dependsOn(List<String> modules) {
+        dependencies.addAll(modules);
+        return this;
+    }
+
+    public ModuleCompilation sourceDirectory(Path directory) {
+        sourceDirectories.add(directory);
+        return this;
+    }
+
+    public ModuleCompilation sourceFile(Path file) {
+        sourceFiles.add(file);
+        return this;
+    }
+
+    public ModuleCompilation classpath(Path entry) {
+        classpath.add(entry);
+        return this;
+    }
+
+    public ModuleCompilation classpath(List<Path> entries) {
+        classpath.addAll(entries);
+        return this;
+    }
+
+    public ModuleCompilation option(String... values) {
+        for (String value : values) {
+            options.add(value);
+        }
+        return this;
+    }
+
+    public ModuleCompilation outputDirectory(Path directory) {
+        this.outputDirectory = directory;
+        return this;
+    }
+
+    /**
+     * Directorio de las fuentes generadas por procesadores de anotaciones (SOURCE_OUTPUT);
+     * sin él, javac las deja junto a las clases
+     */
+    public ModuleCompilation generatedSourcesDirectory(Path directory) {
+        this.generatedSourcesDirectory = directory;
+        return this;
+    }
+
+    /**
+     * Registro de la compilación incremental ({@link CompilationLedger})
+     */
+    public ModuleCompilation ledgerFile(Path file) {
+        this.ledgerFile = file;
+        return this;
+    }
+
+    /**
+     * Fuentes explícitas más todos los .java de los directorios de fuentes
+     */
+    public List<Path> collectSources() {
+        List<Path> sources = new ArrayList<>(sourceFiles);
+        for (Path directory : sourceDirectories) {
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(directory)) {
+                sources.addAll(files
+                    .filter(file -> file.toString().endsWith(".java") && Files.isRegularFile(file))
+                    .sorted()
+                    .collect(Collectors.toList()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudieron listar las fuentes de " + directory, e);
+            }
+        }
+        return sources;
+    }
+
+    // Getters
+    public String getName() { return name; }
+    public List<String> getDependencies() { return new ArrayList<>(dependencies); }
+    public List<Path> getSourceDirectories() { return new ArrayList<>(sourceDirectories); }
+    public List<Path> getSourceFiles() { return new ArrayList<>(sourceFiles); }
+    public List<Path> getClasspath() { return new ArrayList<>(classpath); }
+    public List<String> getOptions() { return new ArrayList<>(options); }
+    public Path getOutputDirectory() { return outputDirectory; }
+    public Path getGeneratedSourcesDirectory() { return generatedSourcesDirectory; }
+
+    /**
+     * Registro indicado o, por defecto, jbuild-status/nombre.ledger junto al directorio de salida
+     */
+    public Path getLedgerFile() {
+        if (ledgerFile != null || outputDirectory == null) {
+            return ledgerFile;
+        }
+        return outputDirectory.resolveSibling("jbuild-status").resolve(name + ".ledger");
+    }
+}
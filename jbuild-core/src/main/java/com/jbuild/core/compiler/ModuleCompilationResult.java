@@ -0,0 +1,44 @@
+package com.jbuild.core.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resultado de compilar un módulo
+ */
+public class ModuleCompilationResult {
+    private final String module;
+    private final boolean success;
+    private final List<String> diagnostics;
+    private final int classCount;
+    private final long durationMillis;
+    private final CompletableFuture<Void> written;
+
+    public ModuleCompilationResult(String module, boolean success, List<String> diagnostics,
+                                   int classCount, long durationMillis, CompletableFuture<Void> written) {
+        this.module = module;
+        this.success = success;
+        this.diagnostics = new ArrayList<>(diagnostics);
+        this.classCount = classCount;
+        this.durationMillis = durationMillis;
+        this.written = written;
+    }
+
+    // Getters
+    public String getModule() { return module; }
+    public boolean isSuccess() { return success; }
+    public List<String> getDiagnostics() { return new ArrayList<>(diagnostics); }
+    public int getClassCount() { return classCount; }
+    public long getDurationMillis() { return durationMillis; }
+
+    /**
+     * Se completa cuando las clases están escritas en el directorio de salida
+     */
+    public CompletableFuture<Void> getWritten() { return written; }
+
+    @Override
+    public String toString() {
+        return module + (success ? " OK" : " FALLÓ") + " (" + classCount + " clases, " + durationMillis + " ms)";
+    }
+}
@@ -0,0 +1,87 @@
+package com.jbuild.core.compiler;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * File manager de un módulo: las clases generadas van a memoria y las clases de
+ * los módulos de los que depende se leen desde memoria antes que del classpath
+ */
+class ModuleFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+    private final InMemoryClassStore output;
+    private final List<InMemoryClassStore> upstream;
+    private Map<String, Path> classSources;
+
+    ModuleFileManager(JavaFileManager delegate, InMemoryClassStore output, List<InMemoryClassStore> upstream) {
+        super(delegate);
+        this.output = output;
+        this.upstream = upstream;
+    }
+
+    /**
+     * Registra en {@code classSources} la fuente de la que sale cada clase generada
+     */
+    void trackClassSources(Map<String, Path> classSources) {
+        this.classSources = classSources;
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                               JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+        if (location == StandardLocation.CLASS_OUTPUT && kind == JavaFileObject.Kind.CLASS) {
+            if (classSources != null && sibling != null) {
+                URI source = sibling.toUri();
+                if ("file".equals(source.getScheme())) {
+                    classSources.put(className, Paths.get(source).toAbsolutePath().normalize());
+                }
+            }
+            return output.outputFile(className);
+        }
+        return super.getJavaFileForOutput(location, className, kind, sibling);
+    }
+
+    @Override
+    public Iterable<JavaFileObject> list(Location location, String packageName,
+                                         Set<JavaFileObject.Kind> kinds, boolean recurse) throws IOException {
+        Iterable<JavaFileObject> fromDelegate = super.list(location, packageName, kinds, recurse);
+        if (location != StandardLocation.CLASS_PATH || !kinds.contains(JavaFileObject.Kind.CLASS) || upstream.isEmpty()) {
+            return fromDelegate;
+        }
+        List<JavaFileObject> result = new ArrayList<>();
+        for (InMemoryClassStore store : upstream) {
+            result.addAll(store.list(packageName, recurse));
+        }
+        for (JavaFileObject file : fromDelegate) {
+            result.add(file);
+        }
+        return result;
+    }
+
+    @Override
+    public String inferBinaryName(Location location, JavaFileObject file) {
+        if (file instanceof InMemoryClassStore.MemoryClassFile) {
+            return ((InMemoryClassStore.MemoryClassFile) file).binaryName();
+        }
+        return super.inferBinaryName(location, file);
+    }
+
+    @Override
+    public boolean isSameFile(FileObject a, FileObject b) {
+        if (a instanceof InMemoryClassStore.MemoryClassFile || b instanceof InMemoryClassStore.MemoryClassFile) {
+            return a.toUri().equals(b.toUri());
+        }
+        return super.isSameFile(a, b);
+    }
+}
@@ -0,0 +1,262 @@
+package com.jbuild.core.compiler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.jbuild.core.dsl.type_safe.BuildConfig;
+import com.jbuild.core.history.BuildHistory;
+import com.jbuild.core.history.BuildRecorder;
+import com.jbuild.core.metrics.BuildMetrics;
+import com.jbuild.core.metrics.MetricsEndpoint;
+
+/**
+ * Build de módulos en pipeline: cada módulo publica primero su ABI (firmas sin
+ * cuerpos) y los módulos que dependen de él empiezan a compilar contra ella
+ * mientras el módulo de origen termina su compilación completa, recursos y tests.
+ * <p>
+ * Si la ABI de un módulo no puede obtenerse de sus fuentes, sus dependientes
+ * esperan a la compilación completa, como en un build secuencial. Un módulo solo
+ * escribe sus clases a disco si la compilación completa de sus dependencias tuvo éxito.
+ * <p>
+ * Durante el build las métricas se publican por JMX y, si se indica un puerto, en
+ * un endpoint Prometheus que se cierra al terminar. Con un {@link BuildHistory} cada
+ * build queda registrado (compilación y etapas de cada módulo) para detectar regresiones.
+ */
+public class PipelinedModuleBuilder {
+
+    /**
+     * Etapa posterior a la compilación de un módulo (recursos, tests, empaquetado...).
+     * Se ejecuta cuando el módulo y todas sus dependencias están escritos en disco.
+     */
+    public interface ModuleStage {
+        void run(ModuleCompilation module, ModuleCompilationResult compilation) throws Exception;
+    }
+
+    private final InProcessModuleCompiler compiler;
+    private final int threads;
+    private final List<ModuleStage> stages = new ArrayList<>();
+    private int metricsPort = -1;
+    private BuildHistory history;
+
+    public PipelinedModuleBuilder(InProcessModuleCompiler compiler, int threads) {
+        this.compiler = compiler;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Builder con los hilos y el puerto de métricas de la configuración, que guarda
+     * el historial en {@code projectDirectory} (el que lee {@code jbuild.sh regressions})
+     */
+    public static PipelinedModuleBuilder forBuildConfig(InProcessModuleCompiler compiler, BuildConfig config,
+                                                        Path projectDirectory) {
+        return new PipelinedModuleBuilder(compiler, config.getThreads()).metricsPort(config.getMetricsPort())
+            .history(new BuildHistory(projectDirectory));
+    }
+
+    /**
+     * Puerto del endpoint de métricas en loopback; 0 elige uno libre y -1 lo desactiva
+     */
+    public PipelinedModuleBuilder metricsPort(int port) {
+        this.metricsPort = port;
+        return this;
+    }
+
+    /**
+     * Historial en el que se añade cada build; null no registra nada
+     */
+    public PipelinedModuleBuilder history(BuildHistory history) {
+        this.history = history;
+        return this;
+    }
+
+    public PipelinedModuleBuilder stage(ModuleStage stage) {
+        stages.add(stage);
+        return this;
+    }
+
+    public Map<String, PipelineResult> build(List<ModuleCompilation> modules) {
+        for (ModuleCompilation module : modules) {
+            compiler.register(module);
+        }
+        BuildMetrics.shared().registerMBean();
+        MetricsEndpoint endpoint;
+        try {
+            endpoint = metricsPort < 0 ? null : MetricsEndpoint.start(BuildMetrics.shared(), metricsPort);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el endpoint de métricas en el puerto " + metricsPort, e);
+        }
+        BuildRecorder recorder = history != null ? BuildRecorder.start() : null;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Map<String, CompletableFuture<InMemoryClassStore>> abis = new HashMap<>();
+            Map<String, CompletableFuture<ModuleCompilationResult>> compilations = new HashMap<>();
+            Map<String, CompletableFuture<PipelineResult>> results = new LinkedHashMap<>();
+
+            for (ModuleCompilation module : InProcessModuleCompiler.topologicalOrder(modules)) {
+                String name = module.getName();
+                List<String> upstream = new ArrayList<>();
+                for (String dependency : compiler.transitiveDependencies(name)) {
+                    if (abis.containsKey(dependency)) {
+                        upstream.add(dependency);
+                    }
+                }
+
+                // Ambas compilaciones solo esperan a la ABI de las dependencias, pero las clases
+                // no se escriben a disco si falla la compilación completa de alguna de ellas
+                CompletableFuture<Map<String, InMemoryClassStore>> upstreamAbi = collect(upstream, abis);
+                CompletableFuture<Boolean> upstreamSuccess = CompletableFuture.completedFuture(true);
+                for (String dependency : upstream) {
+                    upstreamSuccess = upstreamSuccess.thenCombine(compilations.get(dependency)
+                        .handle((result, failure) -> failure == null && result.isSuccess()), Boolean::logicalAnd);
+                }
+                CompletableFuture<Boolean> writeWhen = upstreamSuccess;
+                // La duración cuenta desde que empieza a compilar, no desde que se programa
+                AtomicLong start = new AtomicLong(-1);
+                CompletableFuture<ModuleCompilationResult> compilation = upstreamAbi.thenApplyAsync(abi -> {
+                    start.set(System.currentTimeMillis());
+                    return compiler.compileAgainst(module, abi, writeWhen);
+                }, executor);
+                CompletableFuture<InMemoryClassStore> moduleAbi = upstreamAbi
+                    .thenApplyAsync(abi -> compiler.generateAbi(module, abi), executor)
+                    .thenCompose(abi -> abi != null ? CompletableFuture.completedFuture(abi)
+                        : compilation.thenApply(result -> fullOutput(name, result)));
+                abis.put(name, moduleAbi);
+                compilations.put(name, compilation);
+
+                // Recursos y tests necesitan las clases reales (propias y de dependencias) en disco
+                List<CompletableFuture<?>> required = new ArrayList<>();
+                required.add(compilation.thenCompose(ModuleCompilationResult::getWritten));
+                for (String dependency : upstream) {
+                    required.add(compilations.get(dependency).thenCompose(result -> {
+                        if (!result.isSuccess()) {
+                            throw new CompletionException(new IllegalStateException(
+                                "Falló la compilación de " + dependency));
+                        }
+                        return result.getWritten();
+                    }));
+                }
+                results.put(name, CompletableFuture.allOf(required.toArray(new CompletableFuture<?>[0]))
+                    .handleAsync((ignored, failure) -> finish(module, compilation, failure, start, recorder), executor));
+            }
+
+            Map<String, PipelineResult> finished = new LinkedHashMap<>();
+            for (Map.Entry<String, CompletableFuture<PipelineResult>> entry : results.entrySet()) {
+                finished.put(entry.getKey(), entry.getValue().join());
+            }
+            if (recorder != null) {
+                for (CompletableFuture<ModuleCompilationResult> compilation : compilations.values()) {
+                    if (!compilation.isCompletedExceptionally()) {
+                        recorder.compilation(compilation.join());
+                    }
+                }
+                history.append(recorder.finish());
+            }
+            return finished;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar el build en " + history.getFile(), e);
+        } finally {
+            executor.shutdown();
+            if (endpoint != null) {
+                endpoint.close();
+            }
+        }
+    }
+
+    private PipelineResult finish(ModuleCompilation module, CompletableFuture<ModuleCompilationResult> compilation,
+                                  Throwable failure, AtomicLong compileStart, BuildRecorder recorder) {
+        // Sin compilación (falló antes una dependencia) la duración es 0
+        long start = compileStart.get() < 0 ? System.currentTimeMillis() : compileStart.get();
+        ModuleCompilationResult result = compilation.isDone() && !compilation.isCompletedExceptionally()
+            ? compilation.join() : null;
+        if (failure != null || result == null || !result.isSuccess()) {
+            return new PipelineResult(module.getName(), result, unwrap(failure), System.currentTimeMillis() - start);
+        }
+        long stagesStart = System.currentTimeMillis();
+        try {
+            for (ModuleStage stage : stages) {
+                stage.run(module, result);
+            }
+            return new PipelineResult(module.getName(), result, null, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            return new PipelineResult(module.getName(), result, e, System.currentTimeMillis() - start);
+        } finally {
+            if (recorder != null && !stages.isEmpty()) {
+                recorder.task("stages:" + module.getName(), System.currentTimeMillis() - stagesStart, 0, 0);
+            }
+        }
+    }
+
+    private InMemoryClassStore fullOutput(String module, ModuleCompilationResult result) {
+        InMemoryClassStore output = compiler.getOutput(module);
+        if (!result.isSuccess() || output == null) {
+            throw new CompletionException(new IllegalStateException("Falló la compilación de " + module));
+        }
+        return output;
+    }
+
+    private static CompletableFuture<Map<String, InMemoryClassStore>> collect(
+            List<String> modules, Map<String, CompletableFuture<InMemoryClassStore>> abis) {
+        List<CompletableFuture<InMemoryClassStore>> futures = new ArrayList<>();
+        for (String module : modules) {
+            futures.add(abis.get(module));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            Map<String, InMemoryClassStore> result = new HashMap<>();
+            for (int i = 0; i < modules.size(); i++) {
+                result.put(modules.get(i), futures.get(i).join());
+            }
+            return result;
+        });
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        Throwable current = failure;
+        while (current instanceof CompletionException && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    /**
+     * Resultado de un módulo en el build en pipeline
+     */
+    public static class PipelineResult {
+        private final String module;
+        private final ModuleCompilationResult compilation;
+        private final Throwable failure;
+        private final long durationMillis;
+
+        PipelineResult(String module, ModuleCompilationResult compilation, Throwable failure, long durationMillis) {
+            this.module = module;
+            this.compilation = compilation;
+            this.failure = failure;
+            this.durationMillis = durationMillis;
+        }
+
+        public boolean isSuccess() {
+            return failure == null && compilation != null && compilation.isSuccess();
+        }
+
+        // Getters
+        public String getModule() { return module; }
+        public ModuleCompilationResult getCompilation() { return compilation; }
+        public Throwable getFailure() { return failure; }
+        public long getDurationMillis() { return durationMillis; }
+
+        @Override
+        public String toString() {
+            return module + (isSuccess() ? " OK" : " FALLÓ" + (failure != null ? ": " + failure.getMessage() : ""));
+        }
+    }
+}
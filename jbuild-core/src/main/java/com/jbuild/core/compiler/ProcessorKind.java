@@ -0,0 +1,43 @@
+package com.jbuild.core.compiler;
+
+import java.util.Locale;
+
+/**
+ * Tipo de un procesador de anotaciones frente a la compilación incremental, con la
+ * misma clasificación que {@code META-INF/gradle/incremental.annotation.processors}
+ */
+public enum ProcessorKind {
+    /**
+     * Cada salida procede de un único elemento de origen y solo depende de él
+     */
+    ISOLATING,
+    /**
+     * Las salidas pueden combinar varios elementos; se regeneran con todos ellos
+     */
+    AGGREGATING,
+    /**
+     * Sin declaración: cualquier cambio obliga a recompilar todo el módulo
+     */
+    NON_INCREMENTAL;
+
+    /**
+     * Tipo declarado en el archivo de metadatos; "dynamic" devuelve null porque lo
+     * decide el propio procesador en sus opciones soportadas
+     */
+    public static ProcessorKind parse(String value) {
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "isolating":
+                return ISOLATING;
+            case "aggregating":
+                return AGGREGATING;
+            case "dynamic":
+                return null;
+            default:
+                throw new IllegalArgumentException("Tipo de procesador desconocido: " + value);
+        }
+    }
+
+    public boolean isIncremental() {
+        return this != NON_INCREMENTAL;
+    }
+}
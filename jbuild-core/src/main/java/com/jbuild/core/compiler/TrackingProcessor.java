@@ -0,0 +1,186 @@
+package com.jbuild.core.compiler;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+
+/**
+ * Envoltorio de un procesador de anotaciones que registra, a través del Filer, cada
+ * fuente, clase o recurso que genera y las fuentes de los elementos de origen que
+ * declara. El resto del entorno de procesamiento se delega sin cambios.
+ */
+class TrackingProcessor implements Processor {
+    private final String name;
+    private final Processor delegate;
+    private final List<CompilationLedger.GeneratedOutput> outputs;
+
+    TrackingProcessor(String name, Processor delegate, List<CompilationLedger.GeneratedOutput> outputs) {
+        this.name = name;
+        this.delegate = delegate;
+        this.outputs = outputs;
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return delegate.getSupportedOptions();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return delegate.getSupportedAnnotationTypes();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return delegate.getSupportedSourceVersion();
+    }
+
+    @Override
+    public void init(ProcessingEnvironment processingEnv) {
+        Trees trees;
+        try {
+            trees = Trees.instance(processingEnv);
+        } catch (IllegalArgumentException e) {
+            // Entorno que no es de javac: las salidas quedan sin fuentes de origen
+            trees = null;
+        }
+        delegate.init(new TrackingEnvironment(processingEnv,
+            new TrackingFiler(processingEnv.getFiler(), trees)));
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        return delegate.process(annotations, roundEnv);
+    }
+
+    @Override
+    public Iterable<? extends Completion> getCompletions(Element element, AnnotationMirror annotation,
+                                                         ExecutableElement member, String userText) {
+        return delegate.getCompletions(element, annotation, member, userText);
+    }
+
+    /**
+     * Entorno con el Filer que registra las salidas. El campo se llama {@code delegate}
+     * porque algunos procesadores (Lombok) buscan el entorno de javac por ese nombre.
+     */
+    private static final class TrackingEnvironment implements ProcessingEnvironment {
+        private final ProcessingEnvironment delegate;
+        private final Filer filer;
+
+        TrackingEnvironment(ProcessingEnvironment delegate, Filer filer) {
+            this.delegate = delegate;
+            this.filer = filer;
+        }
+
+        @Override public Map<String, String> getOptions() { return delegate.getOptions(); }
+        @Override public Messager getMessager() { return delegate.getMessager(); }
+        @Override public Filer getFiler() { return filer; }
+        @Override public Elements getElementUtils() { return delegate.getElementUtils(); }
+        @Override public Types getTypeUtils() { return delegate.getTypeUtils(); }
+        @Override public SourceVersion getSourceVersion() { return delegate.getSourceVersion(); }
+        @Override public Locale getLocale() { return delegate.getLocale(); }
+        @Override public boolean isPreviewEnabled() { return delegate.isPreviewEnabled(); }
+    }
+
+    private final class TrackingFiler implements Filer {
+        private final Filer delegate;
+        private final Trees trees;
+
+        TrackingFiler(Filer delegate, Trees trees) {
+            this.delegate = delegate;
+            this.trees = trees;
+        }
+
+        @Override
+        public JavaFileObject createSourceFile(CharSequence name, Element... originatingElements) throws IOException {
+            JavaFileObject file = delegate.createSourceFile(name, originatingElements);
+            record(CompilationLedger.OutputKind.SOURCE, name.toString(), file, originatingElements);
+            return file;
+        }
+
+        @Override
+        public JavaFileObject createClassFile(CharSequence name, Element... originatingElements) throws IOException {
+            JavaFileObject file = delegate.createClassFile(name, originatingElements);
+            record(CompilationLedger.OutputKind.CLASS, name.toString(), file, originatingElements);
+            return file;
+        }
+
+        @Override
+        public FileObject createResource(JavaFileManager.Location location, CharSequence moduleAndPkg,
+                                         CharSequence relativeName, Element... originatingElements) throws IOException {
+            FileObject file = delegate.createResource(location, moduleAndPkg, relativeName, originatingElements);
+            String pkg = moduleAndPkg.toString();
+            String resource = pkg.isEmpty() ? relativeName.toString() : pkg.replace('.', '/') + "/" + relativeName;
+            record(CompilationLedger.OutputKind.RESOURCE, resource, file, originatingElements);
+            return file;
+        }
+
+        @Override
+        public FileObject getResource(JavaFileManager.Location location, CharSequence moduleAndPkg,
+                                      CharSequence relativeName) throws IOException {
+            return delegate.getResource(location, moduleAndPkg, relativeName);
+        }
+
+        private void record(CompilationLedger.OutputKind kind, String outputName, FileObject file,
+                            Element... originatingElements) {
+            Set<Path> origins = new LinkedHashSet<>();
+            if (originatingElements != null) {
+                for (Element element : originatingElements) {
+                    Path source = sourceOf(element);
+                    if (source != null) {
+                        origins.add(source);
+                    }
+                }
+            }
+            outputs.add(new CompilationLedger.GeneratedOutput(name, kind, outputName, pathOf(file.toUri()), origins));
+        }
+
+        /**
+         * Fuente del tipo de nivel superior que contiene el elemento, o null si viene del classpath
+         */
+        private Path sourceOf(Element element) {
+            if (trees == null || element == null) {
+                return null;
+            }
+            Element top = element;
+            while (top.getEnclosingElement() != null
+                    && top.getEnclosingElement().getKind() != ElementKind.PACKAGE
+                    && top.getEnclosingElement().getKind() != ElementKind.MODULE) {
+                top = top.getEnclosingElement();
+            }
+            TreePath path = trees.getPath(top);
+            return path == null ? null : pathOf(path.getCompilationUnit().getSourceFile().toUri());
+        }
+    }
+
+    private static Path pathOf(URI uri) {
+        return "file".equals(uri.getScheme()) ? Paths.get(uri).toAbsolutePath().normalize() : null;
+    }
+}
@@ -1,5 +1,8 @@
 package com.jbuild.core.dsl.type_safe;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -97,6 +100,11 @@ public interface BuildConfig {
     BuildConfig parallel(boolean parallel);
     BuildConfig threads(int threads);
     
+    /**
+     * Puerto del endpoint de métricas Prometheus durante el build (0 elige uno libre, -1 lo desactiva)
+     */
+    BuildConfig metricsPort(int port);
+    
     /**
      * Configuración de reportes
      */
@@ -108,6 +116,11 @@ public interface BuildConfig {
      */
     BuildConfig localRepository(String path);
     
+    /**
+     * Configuración del almacén de artefactos compartido entre workspaces de la máquina
+     */
+    BuildConfig sharedArtifactStore(String path);
+    
     /**
      * Configuración de remote repositories
      */
@@ -163,7 +176,10 @@ public interface BuildConfig {
     String getTestSourceDirectory();
     String getOutputDirectory();
     String getTestOutputDirectory();
+    List<String> getResources();
+    List<String> getTestResources();
     String getLocalRepository();
+    String getSharedArtifactStore();
     Map<String, String> getRemoteRepositories();
     Map<String, String> getPluginRepositories();
     String getChecksumPolicy();
@@ -175,10 +191,31 @@ public interface BuildConfig {
     boolean isFailNever();
     boolean isParallel();
     int getThreads();
+    int getMetricsPort();
     boolean isSkipTests();
     boolean isSkipITs();
     boolean isSkipDocumentation();
     boolean isFiltering();
     String getSiteDirectory();
     String getReportDirectory();
+    
+    /**
+     * Ruta de la configuración con las propiedades de sistema sustituidas (p. ej. "${user.home}")
+     */
+    static Path resolvePath(String path) {
+        StringBuilder resolved = new StringBuilder();
+        int position = 0;
+        for (int start = path.indexOf("${"); start >= 0; start = path.indexOf("${", position)) {
+            int end = path.indexOf('}', start);
+            if (end < 0) {
+                break;
+            }
+            resolved.append(path, position, start);
+            String name = path.substring(start + 2, end);
+            resolved.append(System.getProperty(name, System.getenv().getOrDefault(name, "")));
+            position = end + 1;
+        }
+        resolved.append(path.substring(position));
+        return Paths.get(resolved.toString());
+    }
 }
\ No newline at end of file
@@ -26,6 +26,7 @@ class BuildConfigImpl implements BuildConfig {
     
     // Repositorios
     private String localRepository = "${user.home}/.m2/repository";
+    private String sharedArtifactStore = "${user.home}/.jbuild/store";
     private final Map<String, String> remoteRepositories = new HashMap<>();
     private final Map<String, String> pluginRepositories = new HashMap<>();
     
@@ -55,6 +56,7 @@ class BuildConfigImpl implements BuildConfig {
     private boolean failNever = false;
     private boolean parallel = false;
     private int threads = Runtime.getRuntime().availableProcessors();
+    private int metricsPort = -1;
     
     // Configuración de release
     private boolean release = false;
@@ -308,6 +310,12 @@ class BuildConfigImpl implements BuildConfig {
         return this;
     }
     
+    @Override
+    public BuildConfig metricsPort(int port) {
+        this.metricsPort = port;
+        return this;
+    }
+    
     @Override
     public BuildConfig siteDirectory(String directory) {
         this.siteDirectory = directory;
@@ -326,6 +334,12 @@ class BuildConfigImpl implements BuildConfig {
         return this;
     }
     
+    @Override
+    public BuildConfig sharedArtifactStore(String path) {
+        this.sharedArtifactStore = path;
+        return this;
+    }
+    
     @Override
     public BuildConfig remoteRepository(String id, String url) {
         remoteRepositories.put(id, url);
@@ -498,6 +512,9 @@ class BuildConfigImpl implements BuildConfig {
     @Override
     public String getLocalRepository() { return localRepository; }
     
+    @Override
+    public String getSharedArtifactStore() { return sharedArtifactStore; }
+    
     @Override
     public Map<String, String> getRemoteRepositories() { return new HashMap<>(remoteRepositories); }
     
@@ -531,6 +548,9 @@ class BuildConfigImpl implements BuildConfig {
     @Override
     public int getThreads() { return threads; }
     
+    @Override
+    public int getMetricsPort() { return metricsPort; }
+    
     @Override
     public boolean isSkipTests() { return skipTests; }
     
@@ -549,13 +569,17 @@ class BuildConfigImpl implements BuildConfig {
     @Override
     public String getReportDirectory() { return reportDirectory; }
     
+    @Override
+    public List<String> getResources() { return new ArrayList<>(resources); }
+    
+    @Override
+    public List<String> getTestResources() { return new ArrayList<>(testResources); }
+    
     // Getters adicionales
     public List<String> getProfiles() { return new ArrayList<>(profiles); }
     public List<String> getActiveProfiles() { return new ArrayList<>(activeProfiles); }
     public String getDefaultProfile() { return defaultProfile; }
     public List<String> getModules() { return new ArrayList<>(modules); }
-    public List<String> getResources() { return new ArrayList<>(resources); }
-    public List<String> getTestResources() { return new ArrayList<>(testResources); }
     public List<String> getIncludes() { return new ArrayList<>(includes); }
     public List<String> getExcludes() { return new ArrayList<>(excludes); }
     public List<String> getFilters() { return new ArrayList<>(filters); }
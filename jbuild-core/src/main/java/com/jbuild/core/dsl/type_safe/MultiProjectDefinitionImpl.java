@@ -1,7 +1,12 @@
 package com.jbuild.core.dsl.type_safe;
 
+import com.jbuild.core.affected.AffectedModules;
+import com.jbuild.core.affected.ModuleLayout;
+
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Implementación de MultiProjectDefinition
@@ -13,6 +18,7 @@ class MultiProjectDefinitionImpl implements MultiProjectDefinition {
     private String artifactId;
     private String description;
     private final List<ModuleDefinition> modules = new ArrayList<>();
+    private final Map<String, List<String>> moduleDependencies = new LinkedHashMap<>();
     
     public MultiProjectDefinitionImpl(String name, String version) {
         this.name = name;
@@ -48,9 +54,33 @@ class MultiProjectDefinitionImpl implements MultiProjectDefinition {
     public ModuleDefinition addModule(String name) {
         ModuleDefinitionImpl module = new ModuleDefinitionImpl(name, this);
         modules.add(module);
+        moduleDependencies.putIfAbsent(name, new ArrayList<>());
         return module;
     }
     
+    /**
+     * Dependencias entre módulos del proyecto (por nombre de módulo). Todos deben estar
+     * declarados antes con {@link #addModule} o {@link #modules}.
+     */
+    public MultiProjectDefinition moduleDependency(String module, String... dependencies) {
+        List<String> current = declaredModule(module);
+        for (String dependency : dependencies) {
+            declaredModule(dependency);
+            if (!current.contains(dependency)) {
+                current.add(dependency);
+            }
+        }
+        return this;
+    }
+    
+    private List<String> declaredModule(String module) {
+        List<String> dependencies = moduleDependencies.get(module);
+        if (dependencies == null) {
+            throw new IllegalArgumentException("Módulo no declarado en " + name + ": " + module);
+        }
+        return dependencies;
+    }
+    
     @Override
     public MultiProjectDefinition modules(String... moduleNames) {
         for (String moduleName : moduleNames) {
@@ -108,6 +138,18 @@ class MultiProjectDefinitionImpl implements MultiProjectDefinition {
             .version(this.version);
     }
     
+    /**
+     * Cálculo de módulos afectados por cambios: cada módulo declarado está en el
+     * directorio con su nombre y usa los directorios de fuentes y recursos de config
+     */
+    public AffectedModules affectedModules(BuildConfig config) {
+        List<ModuleLayout> layouts = new ArrayList<>();
+        for (String module : moduleDependencies.keySet()) {
+            layouts.add(ModuleLayout.fromBuildConfig(module, module, config));
+        }
+        return new AffectedModules(layouts, getModuleDependencies());
+    }
+    
     public Object buildDefinition() {
         return new com.jbuild.core.dsl.type_safe.config.BuildDefinitionImpl(this);
     }
@@ -119,4 +161,11 @@ class MultiProjectDefinitionImpl implements MultiProjectDefinition {
     public String getArtifactId() { return artifactId; }
     public String getDescription() { return description; }
     public List<ModuleDefinition> getModules() { return new ArrayList<>(modules); }
+    public Map<String, List<String>> getModuleDependencies() {
+        Map<String, List<String>> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : moduleDependencies.entrySet()) {
+            copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        return copy;
+    }
 }
\ No newline at end of file
@@ -1,11 +1,19 @@
 package com.jbuild.core.dsl.type_safe.config;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Configuración específica para JAR
  */
 public class JarConfig {
     private String mainClass;
     private boolean executable = false;
+    private boolean layered = false;
+    private boolean classDataSharing = false;
+    private final List<String> cdsTrainingArguments = new ArrayList<>();
+    private OptimizationConfig optimization = new OptimizationConfig();
     
     public JarConfig() {}
     
@@ -28,7 +36,50 @@ public class JarConfig {
         return this;
     }
     
+    /**
+     * JAR ejecutable por capas (dependencias, snapshots, recursos, clases) para imágenes de
+     * contenedor; activarlo lo hace también ejecutable
+     */
+    public JarConfig layered(boolean layered) {
+        this.layered = layered;
+        if (layered) {
+            this.executable = true;
+        }
+        return this;
+    }
+    
+    public JarConfig layered() {
+        return layered(true);
+    }
+    
+    /**
+     * Archivo CDS junto al JAR ejecutable, generado con una ejecución de entrenamiento
+     */
+    public JarConfig classDataSharing(boolean classDataSharing) {
+        this.classDataSharing = classDataSharing;
+        return this;
+    }
+    
+    public JarConfig classDataSharing() {
+        this.classDataSharing = true;
+        return this;
+    }
+    
+    public JarConfig cdsTrainingArguments(String... arguments) {
+        this.cdsTrainingArguments.addAll(Arrays.asList(arguments));
+        return this;
+    }
+    
+    public JarConfig optimization(OptimizationConfig optimization) {
+        this.optimization = optimization;
+        return this;
+    }
+    
     // Getters
     public String getMainClass() { return mainClass; }
     public boolean isExecutable() { return executable; }
+    public boolean isLayered() { return layered; }
+    public boolean isClassDataSharing() { return classDataSharing; }
+    public List<String> getCdsTrainingArguments() { return new ArrayList<>(cdsTrainingArguments); }
+    public OptimizationConfig getOptimization() { return optimization; }
 }
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.jbuild.core.dsl.type_safe.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuración de optimización de bytecode (asm-optimization)
+ */
+public class OptimizationConfig {
+    private boolean enabled = false;
+    private OptimizationLevel level = OptimizationLevel.BASIC;
+    private final List<String> entryPoints = new ArrayList<>();
+    private final List<String> keepPatterns = new ArrayList<>();
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private String cacheDirectory = "target/optimizer-cache";
+
+    public OptimizationConfig() {}
+
+    public static OptimizationConfig builder() {
+        return new OptimizationConfig();
+    }
+
+    public OptimizationConfig enabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public OptimizationConfig level(OptimizationLevel level) {
+        this.level = level;
+        this.enabled = level != OptimizationLevel.NONE;
+        return this;
+    }
+
+    /**
+     * Nivel como en build.jbuild: "none", "basic" o "aggressive"
+     */
+    public OptimizationConfig level(String level) {
+        return level(OptimizationLevel.parse(level));
+    }
+
+    /**
+     * Clase raíz para el cálculo de alcanzabilidad (además de Main-Class)
+     */
+    public OptimizationConfig entryPoint(String className) {
+        entryPoints.add(className);
+        return this;
+    }
+
+    public OptimizationConfig entryPoints(String... classNames) {
+        for (String className : classNames) {
+            entryPoints.add(className);
+        }
+        return this;
+    }
+
+    /**
+     * Patrón de clases que nunca se eliminan, p. ej. "com.example.api.**"
+     */
+    public OptimizationConfig keep(String pattern) {
+        keepPatterns.add(pattern);
+        return this;
+    }
+
+    public OptimizationConfig threads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public OptimizationConfig cacheDirectory(String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+        return this;
+    }
+
+    // Getters
+    public boolean isEnabled() { return enabled; }
+    public OptimizationLevel getLevel() { return level; }
+    public List<String> getEntryPoints() { return new ArrayList<>(entryPoints); }
+    public List<String> getKeepPatterns() { return new ArrayList<>(keepPatterns); }
+    public int getThreads() { return threads; }
+    public String getCacheDirectory() { return cacheDirectory; }
+
+    public enum OptimizationLevel {
+        /** Sin optimización */
+        NONE,
+        /** Elimina clases no alcanzables */
+        BASIC,
+        /** Además elimina miembros privados sin referencias */
+        AGGRESSIVE;
+
+        public static OptimizationLevel parse(String value) {
+            if (value == null || value.isEmpty()) {
+                return BASIC;
+            }
+            switch (value.trim().toLowerCase()) {
+                case "none":
+                case "off":
+                    return NONE;
+                case "basic":
+                case "default":
+                    return BASIC;
+                case "aggressive":
+                    return AGGRESSIVE;
+                default:
+                    throw new IllegalArgumentException("Nivel de optimización desconocido: " + value);
+            }
+        }
+    }
+}
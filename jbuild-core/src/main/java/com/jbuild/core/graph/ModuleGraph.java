@@ -0,0 +1,374 @@
+package com.jbuild.core.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grafo de módulos compacto: cada módulo se interna a un id entero y las aristas se
+ * guardan en arrays de enteros (formato CSR), tanto las dependencias como las inversas.
+ * Los cierres transitivos se devuelven como {@link BitSet} indexados por id.
+ * <p>
+ * Es inmutable una vez construido; las consultas no crean objetos por arista ni
+ * calculan hashes de nombres, lo que importa con decenas de miles de módulos.
+ */
+public class ModuleGraph {
+    private final String[] names;
+    private final Map<String, Integer> ids;
+    private final int[] dependencyOffsets;
+    private final int[] dependencyTargets;
+    private final int[] dependentOffsets;
+    private final int[] dependentTargets;
+    private volatile int[] topologicalOrder;
+
+    private ModuleGraph(String[] names, Map<String, Integer> ids, int[] dependencyOffsets, int[] dependencyTargets) {
+        this.names = names;
+        this.ids = ids;
+        this.dependencyOffsets = dependencyOffsets;
+        this.dependencyTargets = dependencyTargets;
+
+        // Aristas inversas: recuento por destino y reparto en el mismo formato
+        int size = names.length;
+        int[] counts = new int[size + 1];
+        for (int target : dependencyTargets) {
+            counts[target + 1]++;
+        }
+        for (int i = 0; i < size; i++) {
+            counts[i + 1] += counts[i];
+        }
+        this.dependentOffsets = counts.clone();
+        this.dependentTargets = new int[dependencyTargets.length];
+        int[] next = counts;
+        for (int module = 0; module < size; module++) {
+            for (int edge = dependencyOffsets[module]; edge < dependencyOffsets[module + 1]; edge++) {
+                dependentTargets[next[dependencyTargets[edge]]++] = module;
+            }
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Grafo a partir de dependencias por nombre, p. ej. las de
+     * {@code MultiProjectDefinitionImpl.getModuleDependencies()}. Los módulos que solo
+     * aparecen como dependencia también forman parte del grafo.
+     */
+    public static ModuleGraph of(Map<String, List<String>> moduleDependencies) {
+        Builder builder = builder();
+        for (String module : moduleDependencies.keySet()) {
+            builder.module(module);
+        }
+        for (Map.Entry<String, List<String>> entry : moduleDependencies.entrySet()) {
+            for (String dependency : entry.getValue()) {
+                builder.dependency(entry.getKey(), dependency);
+            }
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Id del módulo, o -1 si no está en el grafo
+     */
+    public int id(String module) {
+        Integer id = ids.get(module);
+        return id == null ? -1 : id;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public List<String> names(BitSet modules) {
+        List<String> result = new ArrayList<>(modules.cardinality());
+        for (int id = modules.nextSetBit(0); id >= 0; id = modules.nextSetBit(id + 1)) {
+            result.add(names[id]);
+        }
+        return result;
+    }
+
+    public int[] dependencies(int id) {
+        return Arrays.copyOfRange(dependencyTargets, dependencyOffsets[id], dependencyOffsets[id + 1]);
+    }
+
+    public int[] dependents(int id) {
+        return Arrays.copyOfRange(dependentTargets, dependentOffsets[id], dependentOffsets[id + 1]);
+    }
+
+    /**
+     * Dependencias directas e indirectas del módulo (sin incluirlo)
+     */
+    public BitSet transitiveDependencies(int id) {
+        BitSet seeds = new BitSet(names.length);
+        seeds.set(id);
+        BitSet result = reach(seeds, dependencyOffsets, dependencyTargets);
+        result.clear(id);
+        return result;
+    }
+
+    /**
+     * Las mismas dependencias que {@link #transitiveDependencies(int)}, en orden de
+     * recorrido en anchura: primero las directas, en el orden en que se declararon
+     */
+    public int[] transitiveDependencyOrder(int id) {
+        BitSet visited = new BitSet(names.length);
+        visited.set(id);
+        int[] queue = new int[names.length];
+        int tail = 0;
+        queue[tail++] = id;
+        for (int head = 0; head < tail; head++) {
+            int module = queue[head];
+            for (int edge = dependencyOffsets[module]; edge < dependencyOffsets[module + 1]; edge++) {
+                int next = dependencyTargets[edge];
+                if (!visited.get(next)) {
+                    visited.set(next);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return Arrays.copyOfRange(queue, 1, tail);
+    }
+
+    /**
+     * Los módulos indicados más todos los que dependen de ellos directa o indirectamente
+     */
+    public BitSet transitiveDependents(BitSet modules) {
+        return reach(modules, dependentOffsets, dependentTargets);
+    }
+
+    /**
+     * Cierre transitivo de dependencias de todos los módulos, calculado en orden
+     * topológico a partir de los cierres de las dependencias directas. Ocupa hasta
+     * n²/8 bytes: para grafos muy grandes es preferible consultar módulo a módulo.
+     */
+    public BitSet[] transitiveClosure() {
+        BitSet[] closure = new BitSet[names.length];
+        for (int module : topologicalOrder()) {
+            BitSet reached = new BitSet();
+            for (int edge = dependencyOffsets[module]; edge < dependencyOffsets[module + 1]; edge++) {
+                int dependency = dependencyTargets[edge];
+                reached.set(dependency);
+                reached.or(closure[dependency]);
+            }
+            closure[module] = reached;
+        }
+        return closure;
+    }
+
+    /**
+     * Ids en orden de build (cada módulo después de sus dependencias)
+     *
+     * @throws CycleException si hay un ciclo, con su recorrido
+     */
+    public int[] topologicalOrder() {
+        int[] order = topologicalOrder;
+        if (order != null) {
+            return order.clone();
+        }
+        int size = names.length;
+        int[] pending = new int[size];
+        int[] queue = new int[size];
+        int tail = 0;
+        for (int module = 0; module < size; module++) {
+            pending[module] = dependencyOffsets[module + 1] - dependencyOffsets[module];
+            if (pending[module] == 0) {
+                queue[tail++] = module;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int module = queue[head];
+            for (int edge = dependentOffsets[module]; edge < dependentOffsets[module + 1]; edge++) {
+                if (--pending[dependentTargets[edge]] == 0) {
+                    queue[tail++] = dependentTargets[edge];
+                }
+            }
+        }
+        if (tail < size) {
+            throw new CycleException(findCycle());
+        }
+        topologicalOrder = queue;
+        return queue.clone();
+    }
+
+    /**
+     * Profundidad de cada módulo: 0 si no tiene dependencias y 1 + la mayor de sus
+     * dependencias en otro caso. Los módulos de igual profundidad no dependen entre sí.
+     */
+    public int[] depths() {
+        int[] depths = new int[names.length];
+        for (int module : topologicalOrder()) {
+            for (int edge = dependencyOffsets[module]; edge < dependencyOffsets[module + 1]; edge++) {
+                depths[module] = Math.max(depths[module], depths[dependencyTargets[edge]] + 1);
+            }
+        }
+        return depths;
+    }
+
+    /**
+     * Un ciclo del grafo como lista de módulos (el primero se repite al final), o una
+     * lista vacía si no hay ciclos. Recorrido en profundidad iterativo, sin recursión.
+     */
+    public List<String> findCycle() {
+        int size = names.length;
+        byte[] state = new byte[size]; // 0 sin visitar, 1 en la pila, 2 terminado
+        int[] stack = new int[size];
+        int[] nextEdge = new int[size];
+        for (int root = 0; root < size; root++) {
+            if (state[root] != 0) {
+                continue;
+            }
+            int depth = 0;
+            stack[0] = root;
+            nextEdge[root] = dependencyOffsets[root];
+            state[root] = 1;
+            while (depth >= 0) {
+                int module = stack[depth];
+                if (nextEdge[module] == dependencyOffsets[module + 1]) {
+                    state[module] = 2;
+                    depth--;
+                    continue;
+                }
+                int dependency = dependencyTargets[nextEdge[module]++];
+                if (state[dependency] == 1) {
+                    List<String> cycle = new ArrayList<>();
+                    int start = depth;
+                    while (stack[start] != dependency) {
+                        start--;
+                    }
+                    for (int i = start; i <= depth; i++) {
+                        cycle.add(names[stack[i]]);
+                    }
+                    cycle.add(names[dependency]);
+                    return cycle;
+                }
+                if (state[dependency] == 0) {
+                    state[dependency] = 1;
+                    nextEdge[dependency] = dependencyOffsets[dependency];
+                    stack[++depth] = dependency;
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private BitSet reach(BitSet seeds, int[] offsets, int[] targets) {
+        BitSet visited = (BitSet) seeds.clone();
+        int[] queue = new int[names.length];
+        int tail = 0;
+        for (int id = seeds.nextSetBit(0); id >= 0; id = seeds.nextSetBit(id + 1)) {
+            queue[tail++] = id;
+        }
+        for (int head = 0; head < tail; head++) {
+            int module = queue[head];
+            for (int edge = offsets[module]; edge < offsets[module + 1]; edge++) {
+                int next = targets[edge];
+                if (!visited.get(next)) {
+                    visited.set(next);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Dependencia cíclica entre módulos; el mensaje muestra el ciclo ("a -> b -> a")
+     */
+    public static class CycleException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> cycle;
+
+        CycleException(List<String> cycle) {
+            super("Dependencia cíclica entre módulos: " + String.join(" -> ", cycle));
+            this.cycle = cycle;
+        }
+
+        public List<String> getCycle() { return new ArrayList<>(cycle); }
+    }
+
+    /**
+     * Construcción incremental: los nombres se internan en el orden en que aparecen
+     */
+    public static class Builder {
+        private final Map<String, Integer> ids = new LinkedHashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int edges;
+
+        public Builder module(String name) {
+            intern(name);
+            return this;
+        }
+
+        public Builder dependency(String module, String dependency) {
+            int source = intern(module);
+            int target = intern(dependency);
+            if (edges == from.length) {
+                from = Arrays.copyOf(from, edges * 2);
+                to = Arrays.copyOf(to, edges * 2);
+            }
+            from[edges] = source;
+            to[edges] = target;
+            edges++;
+            return this;
+        }
+
+        private int intern(String name) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+            }
+            return id;
+        }
+
+        public ModuleGraph build() {
+            int size = names.size();
+            int[] offsets = new int[size + 1];
+            for (int i = 0; i < edges; i++) {
+                offsets[from[i] + 1]++;
+            }
+            for (int i = 0; i < size; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] next = Arrays.copyOf(offsets, size);
+            int[] targets = new int[edges];
+            BitSet seen = new BitSet(size);
+            int written = 0;
+            // Se descartan aristas repetidas al compactar cada fila
+            int[] rowStart = new int[size + 1];
+            for (int i = 0; i < edges; i++) {
+                targets[next[from[i]]++] = to[i];
+            }
+            int[] compact = new int[edges];
+            for (int module = 0; module < size; module++) {
+                rowStart[module] = written;
+                for (int edge = offsets[module]; edge < offsets[module + 1]; edge++) {
+                    if (!seen.get(targets[edge])) {
+                        seen.set(targets[edge]);
+                        compact[written++] = targets[edge];
+                    }
+                }
+                for (int edge = rowStart[module]; edge < written; edge++) {
+                    seen.clear(compact[edge]);
+                }
+            }
+            rowStart[size] = written;
+            return new ModuleGraph(names.toArray(new String[0]), new HashMap<>(ids), rowStart,
+                Arrays.copyOf(compact, written));
+        }
+    }
+}
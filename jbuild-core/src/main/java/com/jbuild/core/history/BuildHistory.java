@@ -0,0 +1,183 @@
+package com.jbuild.core.history;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Historial de builds del proyecto en {@code .jbuild/history/builds.db}: un archivo
+ * binario de solo añadir, con un registro por build precedido de su longitud.
+ * <p>
+ * Un registro incompleto al final (build interrumpido) se ignora. Cuando el historial
+ * supera el máximo de builds se reescribe conservando los más recientes.
+ */
+public class BuildHistory {
+    private static final int FORMAT_VERSION = 1;
+    private static final int DEFAULT_MAX_BUILDS = 500;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    private final Path file;
+    private final int maxBuilds;
+
+    public BuildHistory(Path projectDirectory) {
+        this(projectDirectory, DEFAULT_MAX_BUILDS);
+    }
+
+    public BuildHistory(Path projectDirectory, int maxBuilds) {
+        this.file = projectDirectory.resolve(".jbuild").resolve("history").resolve("builds.db");
+        this.maxBuilds = maxBuilds;
+    }
+
+    public Path getFile() { return file; }
+
+    public synchronized void append(BuildRecord record) throws IOException {
+        Files.createDirectories(file.getParent());
+        byte[] payload = serialize(record);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + payload.length);
+        buffer.putInt(payload.length).put(payload).flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Bloqueo entre procesos: varios builds del mismo proyecto pueden terminar a la vez.
+            // El recorte se hace con el mismo bloqueo y en el mismo archivo, no con un rename:
+            // otro proceso esperando el bloqueo lo tendría sobre el archivo sustituido.
+            FileLock lock = channel.lock();
+            try {
+                write(channel, buffer, channel.size());
+                List<BuildRecord> all = read(channel);
+                if (all.size() > maxBuilds + maxBuilds / 2) {
+                    ByteBuffer kept = ByteBuffer.wrap(serialize(all.subList(all.size() - maxBuilds, all.size())));
+                    write(channel, kept, 0);
+                    channel.truncate(kept.capacity());
+                }
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Todos los builds, del más antiguo al más reciente
+     */
+    public synchronized List<BuildRecord> all() throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return new ArrayList<>();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // Compartido: no leer a medias un recorte de otro proceso
+            FileLock lock = channel.lock(0, Long.MAX_VALUE, true);
+            try {
+                return read(channel);
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Los últimos {@code count} builds, del más antiguo al más reciente
+     */
+    public List<BuildRecord> recent(int count) throws IOException {
+        List<BuildRecord> all = all();
+        return new ArrayList<>(all.subList(Math.max(0, all.size() - count), all.size()));
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static List<BuildRecord> read(FileChannel channel) throws IOException {
+        ByteBuffer content = ByteBuffer.allocate((int) channel.size());
+        while (content.hasRemaining()) {
+            if (channel.read(content, content.position()) < 0) {
+                break;
+            }
+        }
+        List<BuildRecord> records = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(content.array(), 0, content.position()))) {
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                BuildRecord record = parse(payload);
+                if (record != null) {
+                    records.add(record);
+                }
+            }
+        }
+        return records;
+    }
+
+    private static byte[] serialize(List<BuildRecord> records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (BuildRecord record : records) {
+                byte[] payload = serialize(record);
+                out.writeInt(payload.length);
+                out.write(payload);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] serialize(BuildRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(record.getTimestamp());
+            out.writeUTF(record.getRevision());
+            out.writeLong(record.getDurationMillis());
+            out.writeLong(record.getPeakHeapBytes());
+            out.writeLong(record.getGcMillis());
+            out.writeLong(record.getCpuMillis());
+            out.writeInt(record.getTasks().size());
+            for (TaskRecord task : record.getTasks()) {
+                out.writeUTF(task.getName());
+                out.writeLong(task.getDurationMillis());
+                out.writeInt(task.getCacheHits());
+                out.writeInt(task.getCacheMisses());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static BuildRecord parse(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            long timestamp = in.readLong();
+            String revision = in.readUTF();
+            long duration = in.readLong();
+            long peakHeap = in.readLong();
+            long gc = in.readLong();
+            long cpu = in.readLong();
+            int taskCount = in.readInt();
+            List<TaskRecord> tasks = new ArrayList<>(taskCount);
+            for (int i = 0; i < taskCount; i++) {
+                tasks.add(new TaskRecord(in.readUTF(), in.readLong(), in.readInt(), in.readInt()));
+            }
+            return new BuildRecord(timestamp, revision, duration, peakHeap, gc, cpu, tasks);
+        }
+    }
+}
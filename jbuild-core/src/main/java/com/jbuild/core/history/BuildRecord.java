@@ -0,0 +1,59 @@
+package com.jbuild.core.history;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Un build del historial: tiempos por tarea, caches y uso de recursos
+ */
+public class BuildRecord {
+    private final long timestamp;
+    private final String revision;
+    private final long durationMillis;
+    private final long peakHeapBytes;
+    private final long gcMillis;
+    private final long cpuMillis;
+    private final List<TaskRecord> tasks;
+
+    public BuildRecord(long timestamp, String revision, long durationMillis, long peakHeapBytes,
+                       long gcMillis, long cpuMillis, List<TaskRecord> tasks) {
+        this.timestamp = timestamp;
+        this.revision = revision == null ? "" : revision;
+        this.durationMillis = durationMillis;
+        this.peakHeapBytes = peakHeapBytes;
+        this.gcMillis = gcMillis;
+        this.cpuMillis = cpuMillis;
+        this.tasks = new ArrayList<>(tasks);
+    }
+
+    public TaskRecord task(String name) {
+        for (TaskRecord task : tasks) {
+            if (task.getName().equals(name)) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tasa de aciertos de todas las tareas con cache, o -1 si ninguna la usó
+     */
+    public double getCacheHitRate() {
+        long hits = 0;
+        long total = 0;
+        for (TaskRecord task : tasks) {
+            hits += task.getCacheHits();
+            total += task.getCacheHits() + task.getCacheMisses();
+        }
+        return total == 0 ? -1 : (double) hits / total;
+    }
+
+    // Getters
+    public long getTimestamp() { return timestamp; }
+    public String getRevision() { return revision; }
+    public long getDurationMillis() { return durationMillis; }
+    public long getPeakHeapBytes() { return peakHeapBytes; }
+    public long getGcMillis() { return gcMillis; }
+    public long getCpuMillis() { return cpuMillis; }
+    public List<TaskRecord> getTasks() { return new ArrayList<>(tasks); }
+}
@@ -0,0 +1,89 @@
+package com.jbuild.core.history;
+
+import com.jbuild.core.compiler.ModuleCompilationResult;
+import com.jbuild.core.testing.TestRunResult;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recoge los datos de un build en curso para guardarlos en el {@link BuildHistory}
+ */
+public class BuildRecorder {
+    private final long start;
+    private final long gcStart;
+    private final long cpuStart;
+    private final List<TaskRecord> tasks = new ArrayList<>();
+    private String revision;
+
+    private BuildRecorder() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+        this.start = System.currentTimeMillis();
+        this.gcStart = gcMillis();
+        this.cpuStart = cpuMillis();
+    }
+
+    public static BuildRecorder start() {
+        return new BuildRecorder();
+    }
+
+    /**
+     * Revisión del código construido (p. ej. el commit de git)
+     */
+    public BuildRecorder revision(String revision) {
+        this.revision = revision;
+        return this;
+    }
+
+    public synchronized BuildRecorder task(String name, long durationMillis, int cacheHits, int cacheMisses) {
+        tasks.add(new TaskRecord(name, durationMillis, cacheHits, cacheMisses));
+        return this;
+    }
+
+    public BuildRecorder compilation(ModuleCompilationResult result) {
+        return task("compile:" + result.getModule(), result.getDurationMillis(), 0, 0);
+    }
+
+    public BuildRecorder tests(String module, TestRunResult result, long durationMillis) {
+        return task("test:" + module, durationMillis, result.isFromCache() ? 1 : 0, result.isFromCache() ? 0 : 1);
+    }
+
+    public synchronized BuildRecord finish() {
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid() && pool.getPeakUsage() != null) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        return new BuildRecord(start, revision, System.currentTimeMillis() - start, peakHeap,
+            gcMillis() - gcStart, cpuMillis() - cpuStart, tasks);
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * Tiempo de CPU del proceso, si la JVM lo expone
+     */
+    private static long cpuMillis() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return Math.max(0, ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime() / 1_000_000);
+        }
+        return 0;
+    }
+}
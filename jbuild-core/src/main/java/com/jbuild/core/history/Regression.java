@@ -0,0 +1,38 @@
+package com.jbuild.core.history;
+
+/**
+ * Empeoramiento de una tarea, módulo o del build completo respecto a la línea base
+ */
+public class Regression {
+
+    public enum Metric {
+        DURATION, CACHE_HIT_RATE
+    }
+
+    private final String subject;
+    private final Metric metric;
+    private final double baseline;
+    private final double current;
+
+    public Regression(String subject, Metric metric, double baseline, double current) {
+        this.subject = subject;
+        this.metric = metric;
+        this.baseline = baseline;
+        this.current = current;
+    }
+
+    // Getters
+    public String getSubject() { return subject; }
+    public Metric getMetric() { return metric; }
+    public double getBaseline() { return baseline; }
+    public double getCurrent() { return current; }
+
+    @Override
+    public String toString() {
+        if (metric == Metric.DURATION) {
+            return String.format("%s: %.0f ms -> %.0f ms (+%.0f%%)", subject, baseline, current,
+                baseline == 0 ? 100.0 : (current - baseline) * 100 / baseline);
+        }
+        return String.format("%s: aciertos de cache %.0f%% -> %.0f%%", subject, baseline * 100, current * 100);
+    }
+}
@@ -0,0 +1,69 @@
+package com.jbuild.core.history;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Compara el último build del historial con los anteriores e informa de las regresiones.
+ * Termina con código 1 si hay alguna, para poder usarlo como paso de CI.
+ * <pre>
+ *   RegressionCommand [--project dir] [--window 10] [--threshold 0.2]
+ *       [--hit-rate-threshold 0.1] [--min-delta 200]
+ * </pre>
+ */
+public class RegressionCommand {
+
+    public static void main(String[] args) throws Exception {
+        Path project = Paths.get(".");
+        int window = 10;
+        RegressionDetector detector = RegressionDetector.builder();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--project":
+                    project = Paths.get(args[i + 1]);
+                    break;
+                case "--window":
+                    window = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--threshold":
+                    detector.durationThreshold(Double.parseDouble(args[i + 1]));
+                    break;
+                case "--hit-rate-threshold":
+                    detector.hitRateThreshold(Double.parseDouble(args[i + 1]));
+                    break;
+                case "--min-delta":
+                    detector.minimumDeltaMillis(Long.parseLong(args[i + 1]));
+                    break;
+                default:
+                    System.err.println("Argumento desconocido: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        BuildHistory history = new BuildHistory(project);
+        List<BuildRecord> builds = history.recent(window + 1);
+        if (builds.size() < 2) {
+            System.out.println("Historial insuficiente en " + history.getFile() + " (" + builds.size() + " builds)");
+            return;
+        }
+        BuildRecord current = builds.get(builds.size() - 1);
+        List<BuildRecord> baseline = builds.subList(0, builds.size() - 1);
+        System.out.printf("Build %s: %d ms, %d tareas, aciertos de cache %s, heap máx. %d MB, GC %d ms%n",
+            current.getRevision().isEmpty() ? "actual" : current.getRevision(), current.getDurationMillis(),
+            current.getTasks().size(),
+            current.getCacheHitRate() < 0 ? "-" : String.format("%.0f%%", current.getCacheHitRate() * 100),
+            current.getPeakHeapBytes() / (1024 * 1024), current.getGcMillis());
+
+        List<Regression> regressions = detector.compare(current, baseline);
+        if (regressions.isEmpty()) {
+            System.out.println("Sin regresiones respecto a los " + baseline.size() + " builds anteriores");
+            return;
+        }
+        System.out.println("Regresiones respecto a los " + baseline.size() + " builds anteriores:");
+        for (Regression regression : regressions) {
+            System.out.println("  " + regression);
+        }
+        System.exit(1);
+    }
+}
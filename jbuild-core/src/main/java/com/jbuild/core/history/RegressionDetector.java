@@ -0,0 +1,148 @@
+package com.jbuild.core.history;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compara un build con la línea base de los builds anteriores y señala las tareas,
+ * módulos y el build completo cuya duración o tasa de aciertos de cache ha empeorado
+ * más allá de los umbrales.
+ * <p>
+ * La duración de referencia es la mediana de la ventana, para que un build aislado
+ * lento no mueva la línea base; se exige un mínimo de muestras y una diferencia
+ * absoluta mínima para no avisar por ruido en tareas muy cortas.
+ */
+public class RegressionDetector {
+    private static final String BUILD = "build";
+
+    private double durationThreshold = 0.2;
+    private long minimumDeltaMillis = 200;
+    private double hitRateThreshold = 0.1;
+    private int minimumSamples = 3;
+
+    public RegressionDetector() {}
+
+    public static RegressionDetector builder() {
+        return new RegressionDetector();
+    }
+
+    /**
+     * Aumento relativo de duración a partir del cual hay regresión (0.2 = 20%)
+     */
+    public RegressionDetector durationThreshold(double threshold) {
+        this.durationThreshold = threshold;
+        return this;
+    }
+
+    public RegressionDetector minimumDeltaMillis(long millis) {
+        this.minimumDeltaMillis = millis;
+        return this;
+    }
+
+    /**
+     * Caída absoluta de la tasa de aciertos a partir de la cual hay regresión (0.1 = 10 puntos)
+     */
+    public RegressionDetector hitRateThreshold(double threshold) {
+        this.hitRateThreshold = threshold;
+        return this;
+    }
+
+    public RegressionDetector minimumSamples(int samples) {
+        this.minimumSamples = samples;
+        return this;
+    }
+
+    public List<Regression> compare(BuildRecord current, List<BuildRecord> baseline) {
+        Map<String, Stats> currentStats = stats(current);
+        Map<String, List<Stats>> baselineStats = new LinkedHashMap<>();
+        for (BuildRecord record : baseline) {
+            for (Map.Entry<String, Stats> entry : stats(record).entrySet()) {
+                baselineStats.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(entry.getValue());
+            }
+        }
+
+        List<Regression> regressions = new ArrayList<>();
+        for (Map.Entry<String, Stats> entry : currentStats.entrySet()) {
+            List<Stats> samples = baselineStats.get(entry.getKey());
+            if (samples == null || samples.size() < minimumSamples) {
+                continue;
+            }
+            Stats now = entry.getValue();
+            List<Long> durations = new ArrayList<>();
+            double hitRates = 0;
+            int hitRateSamples = 0;
+            for (Stats sample : samples) {
+                durations.add(sample.durationMillis);
+                if (sample.hitRate() >= 0) {
+                    hitRates += sample.hitRate();
+                    hitRateSamples++;
+                }
+            }
+            double median = median(durations);
+            if (now.durationMillis > median * (1 + durationThreshold) && now.durationMillis - median >= minimumDeltaMillis) {
+                regressions.add(new Regression(entry.getKey(), Regression.Metric.DURATION, median, now.durationMillis));
+            }
+            if (hitRateSamples >= minimumSamples && now.hitRate() >= 0) {
+                double baselineRate = hitRates / hitRateSamples;
+                if (baselineRate - now.hitRate() > hitRateThreshold) {
+                    regressions.add(new Regression(entry.getKey(), Regression.Metric.CACHE_HIT_RATE,
+                        baselineRate, now.hitRate()));
+                }
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Estadísticas del build por tarea, por módulo ("módulo:nombre", sumando sus tareas
+     * "fase:nombre") y del build completo
+     */
+    private static Map<String, Stats> stats(BuildRecord record) {
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        Stats build = new Stats(record.getDurationMillis());
+        stats.put(BUILD, build);
+        for (TaskRecord task : record.getTasks()) {
+            stats.computeIfAbsent(task.getName(), key -> new Stats(0)).add(task, true);
+            build.add(task, false);
+            int separator = task.getName().indexOf(':');
+            if (separator >= 0) {
+                String module = "module:" + task.getName().substring(separator + 1);
+                stats.computeIfAbsent(module, key -> new Stats(0)).add(task, true);
+            }
+        }
+        return stats;
+    }
+
+    private static double median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2.0;
+    }
+
+    private static class Stats {
+        private long durationMillis;
+        private long hits;
+        private long misses;
+
+        Stats(long durationMillis) {
+            this.durationMillis = durationMillis;
+        }
+
+        void add(TaskRecord task, boolean duration) {
+            if (duration) {
+                durationMillis += task.getDurationMillis();
+            }
+            hits += task.getCacheHits();
+            misses += task.getCacheMisses();
+        }
+
+        double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? -1 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.jbuild.core.history;
+
+/**
+ * Tiempo y estadísticas de cache de una tarea dentro de un build
+ */
+public class TaskRecord {
+    private final String name;
+    private final long durationMillis;
+    private final int cacheHits;
+    private final int cacheMisses;
+
+    public TaskRecord(String name, long durationMillis, int cacheHits, int cacheMisses) {
+        this.name = name;
+        this.durationMillis = durationMillis;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+    }
+
+    /**
+     * Tasa de aciertos de cache, o -1 si la tarea no usó ninguna cache
+     */
+    public double getCacheHitRate() {
+        int total = cacheHits + cacheMisses;
+        return total == 0 ? -1 : (double) cacheHits / total;
+    }
+
+    // Getters
+    public String getName() { return name; }
+    public long getDurationMillis() { return durationMillis; }
+    public int getCacheHits() { return cacheHits; }
+    public int getCacheMisses() { return cacheMisses; }
+}
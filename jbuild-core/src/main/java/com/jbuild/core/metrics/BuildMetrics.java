@@ -0,0 +1,233 @@
+package com.jbuild.core.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Métricas en vivo del build: cola del planificador, workers, caches, transferencias,
+ * compilación y presión de GC/heap. Se consultan mientras el build está en marcha por
+ * JMX ({@link #registerMBean()}) o en formato Prometheus ({@link MetricsEndpoint}).
+ * <p>
+ * Los componentes obtienen sus contadores una vez y los actualizan sin bloqueos; una
+ * misma serie (nombre + etiquetas) se comparte entre todas las instancias que la piden.
+ */
+public class BuildMetrics implements BuildMetricsMXBean {
+    public static final String QUEUE_DEPTH = "jbuild_scheduler_queue_depth";
+    public static final String WORKERS_BUSY = "jbuild_workers_busy";
+    public static final String WORKERS_IDLE = "jbuild_workers_idle";
+    public static final String CACHE_HITS = "jbuild_cache_hits_total";
+    public static final String CACHE_MISSES = "jbuild_cache_misses_total";
+    public static final String BYTES_TRANSFERRED = "jbuild_bytes_transferred_total";
+    public static final String COMPILED_MODULES = "jbuild_compiled_modules_total";
+    public static final String COMPILED_CLASSES = "jbuild_compiled_classes_total";
+    public static final String COMPILE_TIME = "jbuild_compile_milliseconds_total";
+    public static final String OBJECT_NAME = "com.jbuild:type=BuildMetrics";
+
+    private static final BuildMetrics SHARED = new BuildMetrics();
+
+    private final ConcurrentMap<String, Family> families = new ConcurrentHashMap<>();
+    private boolean registered;
+
+    public BuildMetrics() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        gauge("jvm_memory_heap_used_bytes", "Heap en uso",
+            () -> memory.getHeapMemoryUsage().getUsed());
+        gauge("jvm_memory_heap_committed_bytes", "Heap reservado",
+            () -> memory.getHeapMemoryUsage().getCommitted());
+        gauge("jvm_memory_heap_max_bytes", "Heap máximo",
+            () -> memory.getHeapMemoryUsage().getMax());
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            counter("jvm_gc_collections_total", "Recolecciones de basura",
+                gc::getCollectionCount, "gc", gc.getName());
+            counter("jvm_gc_collection_milliseconds_total", "Tiempo en recolección de basura",
+                gc::getCollectionTime, "gc", gc.getName());
+        }
+    }
+
+    /**
+     * Métricas del proceso, compartidas por todos los componentes del build
+     */
+    public static BuildMetrics shared() {
+        return SHARED;
+    }
+
+    /**
+     * @param labels pares nombre, valor
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter").series.computeIfAbsent(labels(labels), key -> new Counter());
+    }
+
+    public Gauge gauge(String name, String help, String... labels) {
+        return (Gauge) family(name, help, "gauge").series.computeIfAbsent(labels(labels), key -> new Gauge());
+    }
+
+    /**
+     * Contador cuyo valor lo mantiene otro componente (p. ej. un MXBean de la JVM)
+     */
+    public void counter(String name, String help, LongSupplier value, String... labels) {
+        family(name, help, "counter").series.put(labels(labels), value);
+    }
+
+    public void gauge(String name, String help, LongSupplier value, String... labels) {
+        family(name, help, "gauge").series.put(labels(labels), value);
+    }
+
+    // Series conocidas
+    public Gauge queueDepth() { return gauge(QUEUE_DEPTH, "Tareas esperando un worker"); }
+    public Gauge busyWorkers() { return gauge(WORKERS_BUSY, "Workers ejecutando una tarea"); }
+    public Gauge idleWorkers() { return gauge(WORKERS_IDLE, "Workers libres"); }
+    public Counter cacheHits(String cache) { return counter(CACHE_HITS, "Aciertos de cache", "cache", cache); }
+    public Counter cacheMisses(String cache) { return counter(CACHE_MISSES, "Fallos de cache", "cache", cache); }
+    public Counter compiledModules() { return counter(COMPILED_MODULES, "Módulos compilados"); }
+    public Counter compiledClasses() { return counter(COMPILED_CLASSES, "Clases generadas por javac"); }
+    public Counter compileMillis() { return counter(COMPILE_TIME, "Tiempo de compilación"); }
+
+    /**
+     * @param direction "upload" o "download"
+     */
+    public Counter bytesTransferred(String direction) {
+        return counter(BYTES_TRANSFERRED, "Bytes transferidos con el almacén de contenidos", "direction", direction);
+    }
+
+    /**
+     * Registra la vista JMX en el MBeanServer de la plataforma (una sola vez)
+     */
+    public synchronized void registerMBean() {
+        if (registered) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Otra instancia ya expone las métricas en este proceso
+        } catch (JMException e) {
+            throw new IllegalStateException("No se pudo registrar " + OBJECT_NAME, e);
+        }
+        registered = true;
+    }
+
+    /**
+     * Todas las series en formato de texto de Prometheus (versión 0.0.4)
+     */
+    public String prometheusText() {
+        StringBuilder text = new StringBuilder();
+        for (Family family : new ConcurrentSkipListMap<>(families).values()) {
+            text.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            text.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> series : family.series.entrySet()) {
+                text.append(family.name).append(series.getKey()).append(' ')
+                    .append(value(series.getValue())).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    @Override
+    public Map<String, Long> getValues() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Family family : new ConcurrentSkipListMap<>(families).values()) {
+            for (Map.Entry<String, Object> series : family.series.entrySet()) {
+                values.put(family.name + series.getKey(), value(series.getValue()));
+            }
+        }
+        return values;
+    }
+
+    @Override public long getQueueDepth() { return sum(QUEUE_DEPTH); }
+    @Override public long getBusyWorkers() { return sum(WORKERS_BUSY); }
+    @Override public long getIdleWorkers() { return sum(WORKERS_IDLE); }
+    @Override public long getCacheHits() { return sum(CACHE_HITS); }
+    @Override public long getCacheMisses() { return sum(CACHE_MISSES); }
+    @Override public long getBytesTransferred() { return sum(BYTES_TRANSFERRED); }
+    @Override public long getCompiledClasses() { return sum(COMPILED_CLASSES); }
+    @Override public long getHeapUsedBytes() { return sum("jvm_memory_heap_used_bytes"); }
+    @Override public long getHeapMaxBytes() { return sum("jvm_memory_heap_max_bytes"); }
+    @Override public long getGcCollectionTimeMillis() { return sum("jvm_gc_collection_milliseconds_total"); }
+
+    @Override
+    public double getCacheHitRate() {
+        long hits = getCacheHits();
+        long total = hits + getCacheMisses();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public double getCompileThroughput() {
+        long millis = sum(COMPILE_TIME);
+        return millis == 0 ? 0.0 : getCompiledClasses() * 1000.0 / millis;
+    }
+
+    private long sum(String name) {
+        Family family = families.get(name);
+        long total = 0;
+        if (family != null) {
+            for (Object series : family.series.values()) {
+                total += value(series);
+            }
+        }
+        return total;
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("La métrica " + name + " ya existe como " + family.type);
+        }
+        return family;
+    }
+
+    private static long value(Object series) {
+        if (series instanceof Counter) {
+            return ((Counter) series).get();
+        }
+        if (series instanceof Gauge) {
+            return ((Gauge) series).get();
+        }
+        return ((LongSupplier) series).getAsLong();
+    }
+
+    private static String labels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Las etiquetas van en pares nombre, valor");
+        }
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"").append(labels[i + 1]
+                .replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+        }
+        return text.append('}').toString();
+    }
+
+    private static class Family {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final ConcurrentMap<String, Object> series = new ConcurrentSkipListMap<>();
+
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.jbuild.core.metrics;
+
+import java.util.Map;
+
+/**
+ * Vista JMX de las métricas del build ({@code com.jbuild:type=BuildMetrics})
+ */
+public interface BuildMetricsMXBean {
+    long getQueueDepth();
+    long getBusyWorkers();
+    long getIdleWorkers();
+    long getCacheHits();
+    long getCacheMisses();
+    double getCacheHitRate();
+    long getBytesTransferred();
+    long getCompiledClasses();
+
+    /**
+     * Clases compiladas por segundo de compilación
+     */
+    double getCompileThroughput();
+    long getHeapUsedBytes();
+    long getHeapMaxBytes();
+    long getGcCollectionTimeMillis();
+
+    /**
+     * Todas las series con su valor actual, con el nombre en formato Prometheus
+     */
+    Map<String, Long> getValues();
+}
@@ -0,0 +1,27 @@
+package com.jbuild.core.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Valor que sube y baja (colas, workers ocupados...). Cada componente suma o resta su
+ * parte, de modo que varias instancias comparten la misma serie.
+ */
+public class Gauge {
+    private final LongAdder value = new LongAdder();
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void decrement() {
+        value.decrement();
+    }
+
+    public void add(long delta) {
+        value.add(delta);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,105 @@
+package com.jbuild.core.optimizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Resumen de un archivo .class: referencias a otras clases y miembros declarados
+ */
+public class ClassFileInfo {
+    private final String name;
+    private final String superName;
+    private final List<String> interfaces;
+    private final Set<String> referencedClasses;
+    private final Set<String> referencedMembers;
+    private final List<MemberInfo> members;
+    private final int fieldCountOffset;
+    private final int methodCountOffset;
+
+    public ClassFileInfo(String name, String superName, List<String> interfaces,
+                         Set<String> referencedClasses, Set<String> referencedMembers,
+                         List<MemberInfo> members, int fieldCountOffset, int methodCountOffset) {
+        this.name = name;
+        this.superName = superName;
+        this.interfaces = new ArrayList<>(interfaces);
+        this.referencedClasses = new LinkedHashSet<>(referencedClasses);
+        this.referencedMembers = new LinkedHashSet<>(referencedMembers);
+        this.members = new ArrayList<>(members);
+        this.fieldCountOffset = fieldCountOffset;
+        this.methodCountOffset = methodCountOffset;
+    }
+
+    /**
+     * Clave de miembro usada en referencedMembers: nombre + descriptor
+     */
+    public static String memberKey(String name, String descriptor) {
+        return name + descriptor;
+    }
+
+    // Getters
+    public String getName() { return name; }
+    public String getSuperName() { return superName; }
+    public List<String> getInterfaces() { return Collections.unmodifiableList(interfaces); }
+    public Set<String> getReferencedClasses() { return Collections.unmodifiableSet(referencedClasses); }
+    public Set<String> getReferencedMembers() { return Collections.unmodifiableSet(referencedMembers); }
+    public List<MemberInfo> getMembers() { return Collections.unmodifiableList(members); }
+    public int getFieldCountOffset() { return fieldCountOffset; }
+    public int getMethodCountOffset() { return methodCountOffset; }
+
+    /**
+     * Campo o método declarado, con su rango de bytes dentro del archivo .class
+     */
+    public static class MemberInfo {
+        public static final int ACC_PRIVATE = 0x0002;
+
+        private final boolean method;
+        private final int access;
+        private final String name;
+        private final String descriptor;
+        private final boolean annotated;
+        private final boolean constant;
+        private final int start;
+        private final int end;
+
+        public MemberInfo(boolean method, int access, String name, String descriptor,
+                          boolean annotated, int start, int end) {
+            this(method, access, name, descriptor, annotated, false, start, end);
+        }
+
+        /**
+         * {@code constant}: campo con atributo ConstantValue, cuyo valor javac copia en quien lo usa
+         */
+        public MemberInfo(boolean method, int access, String name, String descriptor,
+                          boolean annotated, boolean constant, int start, int end) {
+            this.method = method;
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.annotated = annotated;
+            this.constant = constant;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String key() {
+            return memberKey(name, descriptor);
+        }
+
+        public boolean isPrivate() {
+            return (access & ACC_PRIVATE) != 0;
+        }
+
+        // Getters
+        public boolean isMethod() { return method; }
+        public int getAccess() { return access; }
+        public String getName() { return name; }
+        public String getDescriptor() { return descriptor; }
+        public boolean isAnnotated() { return annotated; }
+        public boolean isConstant() { return constant; }
+        public int getStart() { return start; }
+        public int getEnd() { return end; }
+    }
+}
@@ -0,0 +1,254 @@
+package com.jbuild.core.optimizer;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lector mínimo de archivos .class (JVMS §4) sin dependencias externas.
+ * Solo extrae lo necesario para el análisis de alcanzabilidad.
+ */
+public final class ClassFileParser {
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private ClassFileParser() {}
+
+    public static ClassFileInfo parse(byte[] bytes) throws IOException {
+        Reader in = new Reader(bytes);
+        if (in.u4() != MAGIC) {
+            throw new IOException("No es un archivo .class válido");
+        }
+        in.skip(4); // minor_version, major_version
+
+        int count = in.u2();
+        int[] tags = new int[count];
+        int[] offsets = new int[count];
+        String[] utf8 = new String[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.u1();
+            tags[i] = tag;
+            offsets[i] = in.pos;
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    utf8[i] = in.utf8();
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    in.skip(2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    in.skip(3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    in.skip(4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    in.skip(8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Tag de constant pool desconocido: " + tag);
+            }
+        }
+
+        Set<String> classes = new LinkedHashSet<>();
+        Set<String> members = new LinkedHashSet<>();
+        for (int i = 1; i < count; i++) {
+            switch (tags[i]) {
+                case CONSTANT_UTF8:
+                    collectDescriptorTypes(utf8[i], classes);
+                    break;
+                case CONSTANT_CLASS:
+                    addClassName(utf8[in.u2At(offsets[i])], classes);
+                    break;
+                case CONSTANT_STRING:
+                    collectReflectiveName(utf8[in.u2At(offsets[i])], classes);
+                    break;
+                case CONSTANT_NAME_AND_TYPE:
+                    members.add(ClassFileInfo.memberKey(
+                        utf8[in.u2At(offsets[i])], utf8[in.u2At(offsets[i] + 2)]));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        in.skip(2); // access_flags
+        String name = classNameAt(in.u2(), tags, offsets, utf8, in);
+        String superName = classNameAt(in.u2(), tags, offsets, utf8, in);
+        int interfaceCount = in.u2();
+        List<String> interfaces = new ArrayList<>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces.add(classNameAt(in.u2(), tags, offsets, utf8, in));
+        }
+
+        List<ClassFileInfo.MemberInfo> declared = new ArrayList<>();
+        int fieldCountOffset = in.pos;
+        readMembers(in, utf8, false, declared);
+        int methodCountOffset = in.pos;
+        readMembers(in, utf8, true, declared);
+
+        classes.remove(name);
+        return new ClassFileInfo(name, superName, interfaces, classes, members, declared,
+            fieldCountOffset, methodCountOffset);
+    }
+
+    private static void readMembers(Reader in, String[] utf8, boolean method,
+                                    List<ClassFileInfo.MemberInfo> declared) {
+        int memberCount = in.u2();
+        for (int i = 0; i < memberCount; i++) {
+            int start = in.pos;
+            int access = in.u2();
+            String name = utf8[in.u2()];
+            String descriptor = utf8[in.u2()];
+            boolean annotated = false;
+            boolean constant = false;
+            int attributeCount = in.u2();
+            for (int a = 0; a < attributeCount; a++) {
+                String attributeName = utf8[in.u2()];
+                int length = in.u4();
+                if ("RuntimeVisibleAnnotations".equals(attributeName)
+                        || "RuntimeVisibleParameterAnnotations".equals(attributeName)) {
+                    annotated = true;
+                }
+                constant |= !method && "ConstantValue".equals(attributeName);
+                in.skip(length);
+            }
+            declared.add(new ClassFileInfo.MemberInfo(method, access, name, descriptor, annotated, constant,
+                start, in.pos));
+        }
+    }
+
+    private static String classNameAt(int index, int[] tags, int[] offsets, String[] utf8, Reader in) {
+        if (index == 0 || tags[index] != CONSTANT_CLASS) {
+            return null;
+        }
+        return utf8[in.u2At(offsets[index])];
+    }
+
+    private static void addClassName(String name, Set<String> classes) {
+        if (name == null) {
+            return;
+        }
+        if (name.startsWith("[")) {
+            collectDescriptorTypes(name, classes);
+        } else {
+            classes.add(name);
+        }
+    }
+
+    /**
+     * Extrae los tipos "Lpaquete/Clase;" de descriptores y firmas genéricas
+     */
+    static void collectDescriptorTypes(String value, Set<String> classes) {
+        int length = value.length();
+        for (int i = value.indexOf('L'); i >= 0 && i < length; i = value.indexOf('L', i + 1)) {
+            int end = i + 1;
+            while (end < length) {
+                char c = value.charAt(end);
+                if (c == ';' || c == '<') {
+                    break;
+                }
+                if (!Character.isJavaIdentifierPart(c) && c != '/') {
+                    end = -1;
+                    break;
+                }
+                end++;
+            }
+            if (end > i + 1 && end < length) {
+                classes.add(value.substring(i + 1, end));
+                i = end;
+            }
+        }
+    }
+
+    /**
+     * Constantes String con forma de nombre de clase (Class.forName, ServiceLoader...)
+     */
+    private static void collectReflectiveName(String value, Set<String> classes) {
+        if (value == null || value.isEmpty() || value.indexOf('.') < 0) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!Character.isJavaIdentifierPart(c) && c != '.') {
+                return;
+            }
+        }
+        classes.add(value.replace('.', '/'));
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int pos;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int u1() {
+            return bytes[pos++] & 0xFF;
+        }
+
+        int u2() {
+            int value = u2At(pos);
+            pos += 2;
+            return value;
+        }
+
+        int u2At(int offset) {
+            return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+        }
+
+        int u4() {
+            int value = ((bytes[pos] & 0xFF) << 24) | ((bytes[pos + 1] & 0xFF) << 16)
+                | ((bytes[pos + 2] & 0xFF) << 8) | (bytes[pos + 3] & 0xFF);
+            pos += 4;
+            return value;
+        }
+
+        String utf8() throws IOException {
+            int length = u2At(pos);
+            String value = new DataInputStream(new ByteArrayInputStream(bytes, pos, length + 2)).readUTF();
+            pos += length + 2;
+            return value;
+        }
+
+        void skip(int count) {
+            pos += count;
+        }
+    }
+}
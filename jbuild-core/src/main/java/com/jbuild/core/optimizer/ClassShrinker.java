@@ -0,0 +1,79 @@
+package com.jbuild.core.optimizer;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Elimina miembros de un archivo .class copiando sus bytes sin los rangos descartados.
+ * El constant pool no se compacta: las entradas huérfanas son válidas para la JVM.
+ */
+public final class ClassShrinker {
+    private static final Set<String> SERIALIZATION_MEMBERS = new HashSet<>(Arrays.asList(
+        "serialVersionUID", "serialPersistentFields", "writeObject", "readObject",
+        "readObjectNoData", "writeReplace", "readResolve"));
+
+    private ClassShrinker() {}
+
+    /**
+     * Miembros privados sin referencias en ninguna clase alcanzable
+     */
+    public static List<ClassFileInfo.MemberInfo> removableMembers(ClassFileInfo info, Set<String> usedMembers) {
+        List<ClassFileInfo.MemberInfo> removable = new ArrayList<>();
+        for (ClassFileInfo.MemberInfo member : info.getMembers()) {
+            if (!member.isPrivate() || member.isAnnotated()) {
+                continue;
+            }
+            String name = member.getName();
+            if (name.startsWith("<") || SERIALIZATION_MEMBERS.contains(name)) {
+                continue;
+            }
+            if (!usedMembers.contains(member.key())) {
+                removable.add(member);
+            }
+        }
+        return removable;
+    }
+
+    public static byte[] shrink(byte[] bytes, ClassFileInfo info, List<ClassFileInfo.MemberInfo> removed) {
+        if (removed.isEmpty()) {
+            return bytes;
+        }
+        int removedFields = 0;
+        int removedMethods = 0;
+        for (ClassFileInfo.MemberInfo member : removed) {
+            if (member.isMethod()) {
+                removedMethods++;
+            } else {
+                removedFields++;
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+        int pos = 0;
+        pos = copyCount(bytes, out, pos, info.getFieldCountOffset(), removedFields);
+        for (ClassFileInfo.MemberInfo member : removed) {
+            if (member.isMethod() && pos <= info.getMethodCountOffset()) {
+                pos = copyCount(bytes, out, pos, info.getMethodCountOffset(), removedMethods);
+            }
+            out.write(bytes, pos, member.getStart() - pos);
+            pos = member.getEnd();
+        }
+        if (pos <= info.getMethodCountOffset()) {
+            pos = copyCount(bytes, out, pos, info.getMethodCountOffset(), removedMethods);
+        }
+        out.write(bytes, pos, bytes.length - pos);
+        return out.toByteArray();
+    }
+
+    private static int copyCount(byte[] bytes, ByteArrayOutputStream out, int pos, int countOffset, int delta) {
+        out.write(bytes, pos, countOffset - pos);
+        int count = (((bytes[countOffset] & 0xFF) << 8) | (bytes[countOffset + 1] & 0xFF)) - delta;
+        out.write(count >>> 8);
+        out.write(count);
+        return countOffset + 2;
+    }
+}
@@ -0,0 +1,249 @@
+package com.jbuild.core.optimizer;
+
+import com.jbuild.core.dsl.type_safe.config.JarConfig;
+import com.jbuild.core.dsl.type_safe.config.OptimizationConfig;
+import com.jbuild.core.dsl.type_safe.config.OptimizationConfig.OptimizationLevel;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Etapa post-compilación que reduce un JAR (normalmente un fat JAR) a las clases
+ * alcanzables desde sus puntos de entrada. El análisis y la reescritura de clases
+ * se reparten entre varios hilos y el análisis se cachea por hash de cada clase.
+ */
+public class JarOptimizer {
+    private static final String VERSIONS_PREFIX = "META-INF/versions/";
+    private static final String SERVICES_PREFIX = "META-INF/services/";
+
+    private final OptimizationConfig config;
+    private final OptimizationCache cache;
+    private final List<String> extraEntryPoints = new ArrayList<>();
+
+    public JarOptimizer(OptimizationConfig config) {
+        this.config = config;
+        this.cache = new OptimizationCache(
+            config.getCacheDirectory() == null ? null : Paths.get(config.getCacheDirectory()));
+    }
+
+    /**
+     * Optimizador para un JAR configurado; su mainClass es punto de entrada
+     */
+    public static JarOptimizer forJar(JarConfig jarConfig) {
+        JarOptimizer optimizer = new JarOptimizer(jarConfig.getOptimization());
+        if (jarConfig.getMainClass() != null) {
+            optimizer.extraEntryPoints.add(jarConfig.getMainClass());
+        }
+        return optimizer;
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled() && config.getLevel() != OptimizationLevel.NONE;
+    }
+
+    public OptimizationReport optimize(Path inputJar, Path outputJar) throws IOException {
+        long start = System.currentTimeMillis();
+        long hitsBefore = cache.getHits();
+        List<Entry> entries = readEntries(inputJar);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, config.getThreads()));
+        try {
+            // 1. Análisis paralelo de todas las clases
+            List<Future<ClassFileInfo>> analyses = new ArrayList<>();
+            for (Entry entry : entries) {
+                analyses.add(entry.className == null ? null : executor.submit(() -> cache.analyze(entry.bytes)));
+            }
+            Map<String, List<ClassFileInfo>> classes = new HashMap<>();
+            for (int i = 0; i < entries.size(); i++) {
+                if (analyses.get(i) != null) {
+                    Entry entry = entries.get(i);
+                    entry.info = await(analyses.get(i), entry.name);
+                    classes.computeIfAbsent(entry.className, k -> new ArrayList<>()).add(entry.info);
+                }
+            }
+
+            // 2. Alcanzabilidad desde los puntos de entrada
+            Set<String> reachable = isEnabled()
+                ? new ReachabilityAnalyzer(classes).reachableFrom(roots(entries), config.getKeepPatterns())
+                : classes.keySet();
+
+            // 3. Miembros privados sin uso (solo nivel agresivo)
+            Set<String> usedMembers = new HashSet<>();
+            boolean stripMembers = isEnabled() && config.getLevel() == OptimizationLevel.AGGRESSIVE;
+            if (stripMembers) {
+                for (String name : reachable) {
+                    for (ClassFileInfo info : classes.get(name)) {
+                        usedMembers.addAll(info.getReferencedMembers());
+                    }
+                }
+            }
+
+            // 4. Reescritura paralela y escritura ordenada del JAR resultante
+            List<Future<byte[]>> outputs = new ArrayList<>();
+            int[] membersRemoved = new int[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                if (entry.className != null && !reachable.contains(entry.className)) {
+                    outputs.add(null);
+                } else if (entry.className != null && stripMembers) {
+                    int index = i;
+                    outputs.add(executor.submit(() -> {
+                        List<ClassFileInfo.MemberInfo> removable = ClassShrinker.removableMembers(entry.info, usedMembers);
+                        membersRemoved[index] = removable.size();
+                        return ClassShrinker.shrink(entry.bytes, entry.info, removable);
+                    }));
+                } else {
+                    outputs.add(CompletableFuture.completedFuture(entry.bytes));
+                }
+            }
+
+            int classesOut = 0;
+            Files.createDirectories(outputJar.toAbsolutePath().getParent());
+            try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(outputJar)))) {
+                for (int i = 0; i < entries.size(); i++) {
+                    if (outputs.get(i) == null) {
+                        continue;
+                    }
+                    Entry entry = entries.get(i);
+                    byte[] bytes = await(outputs.get(i), entry.name);
+                    if (entry.className != null) {
+                        classesOut++;
+                    }
+                    ZipEntry zipEntry = new ZipEntry(entry.name);
+                    zipEntry.setTime(entry.time);
+                    out.putNextEntry(zipEntry);
+                    out.write(bytes);
+                    out.closeEntry();
+                }
+            }
+
+            int removed = 0;
+            for (int count : membersRemoved) {
+                removed += count;
+            }
+            int classesIn = 0;
+            for (Entry entry : entries) {
+                if (entry.className != null) {
+                    classesIn++;
+                }
+            }
+            return new OptimizationReport(classesIn, classesOut, removed, Files.size(inputJar),
+                Files.size(outputJar), cache.getHits() - hitsBefore, System.currentTimeMillis() - start);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Set<String> roots(List<Entry> entries) throws IOException {
+        Set<String> roots = new LinkedHashSet<>(config.getEntryPoints());
+        roots.addAll(extraEntryPoints);
+        for (Entry entry : entries) {
+            if (JarFile.MANIFEST_NAME.equalsIgnoreCase(entry.name)) {
+                Manifest manifest = new Manifest(new ByteArrayInputStream(entry.bytes));
+                String mainClass = manifest.getMainAttributes().getValue(Attributes.Name.MAIN_CLASS);
+                if (mainClass != null) {
+                    roots.add(mainClass.trim());
+                }
+            } else if (entry.name.startsWith(SERVICES_PREFIX) && !entry.name.endsWith("/")) {
+                for (String line : new String(entry.bytes, StandardCharsets.UTF_8).split("\\R")) {
+                    int comment = line.indexOf('#');
+                    String provider = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                    if (!provider.isEmpty()) {
+                        roots.add(provider);
+                    }
+                }
+            }
+        }
+        if (roots.isEmpty() && isEnabled()) {
+            throw new IllegalStateException("La optimización requiere al menos un punto de entrada (mainClass o entryPoint)");
+        }
+        return roots;
+    }
+
+    private static List<Entry> readEntries(Path jar) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                try (InputStream in = zip.getInputStream(zipEntry)) {
+                    entries.add(new Entry(zipEntry.getName(), zipEntry.getTime(), in.readAllBytes()));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static <T> T await(Future<T> future, String entryName) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Optimización interrumpida", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new IOException("Error procesando " + entryName + ": " + cause.getMessage(), cause);
+            }
+            throw new IOException("Error procesando " + entryName, cause);
+        }
+    }
+
+    /**
+     * Entrada del JAR; className es el nombre interno si es una clase optimizable
+     */
+    private static final class Entry {
+        final String name;
+        final long time;
+        final byte[] bytes;
+        final String className;
+        ClassFileInfo info;
+
+        Entry(String name, long time, byte[] bytes) {
+            this.name = name;
+            this.time = time;
+            this.bytes = bytes;
+            this.className = classNameOf(name);
+        }
+
+        private static String classNameOf(String name) {
+            if (!name.endsWith(".class") || name.endsWith("module-info.class")) {
+                return null;
+            }
+            String path = name;
+            if (path.startsWith(VERSIONS_PREFIX)) {
+                int slash = path.indexOf('/', VERSIONS_PREFIX.length());
+                if (slash < 0) {
+                    return null;
+                }
+                path = path.substring(slash + 1);
+            }
+            return path.substring(0, path.length() - ".class".length());
+        }
+    }
+}
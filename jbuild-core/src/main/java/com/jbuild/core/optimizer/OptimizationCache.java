@@ -0,0 +1,150 @@
+package com.jbuild.core.optimizer;
+
+import com.jbuild.core.metrics.BuildMetrics;
+import com.jbuild.core.metrics.Counter;
+import com.jbuild.core.remote.Digest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache del análisis de clases indexado por el hash SHA-256 del archivo .class.
+ * Se mantiene en memoria y en disco para reutilizarlo entre builds.
+ */
+public class OptimizationCache {
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path directory;
+    private final Map<String, ClassFileInfo> memory = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Counter hitCounter = BuildMetrics.shared().cacheHits("optimizer");
+    private final Counter missCounter = BuildMetrics.shared().cacheMisses("optimizer");
+
+    public OptimizationCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public ClassFileInfo analyze(byte[] classBytes) throws IOException {
+        String hash = sha256(classBytes);
+        ClassFileInfo info = memory.get(hash);
+        if (info == null && directory != null) {
+            info = load(hash);
+        }
+        if (info != null) {
+            hits.incrementAndGet();
+            hitCounter.increment();
+            memory.putIfAbsent(hash, info);
+            return info;
+        }
+        misses.incrementAndGet();
+        missCounter.increment();
+        info = ClassFileParser.parse(classBytes);
+        memory.put(hash, info);
+        if (directory != null) {
+            store(hash, info);
+        }
+        return info;
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+
+    private Path entryPath(String hash) {
+        return directory.resolve(hash.substring(0, 2)).resolve(hash + ".info");
+    }
+
+    private ClassFileInfo load(String hash) {
+        Path file = entryPath(hash);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            String name = in.readUTF();
+            String superName = in.readBoolean() ? in.readUTF() : null;
+            List<String> interfaces = readList(in);
+            Set<String> classes = new LinkedHashSet<>(readList(in));
+            Set<String> members = new LinkedHashSet<>(readList(in));
+            int fieldCountOffset = in.readInt();
+            int methodCountOffset = in.readInt();
+            int memberCount = in.readInt();
+            List<ClassFileInfo.MemberInfo> declared = new ArrayList<>(memberCount);
+            for (int i = 0; i < memberCount; i++) {
+                declared.add(new ClassFileInfo.MemberInfo(in.readBoolean(), in.readInt(), in.readUTF(),
+                    in.readUTF(), in.readBoolean(), in.readInt(), in.readInt()));
+            }
+            return new ClassFileInfo(name, superName, interfaces, classes, members, declared,
+                fieldCountOffset, methodCountOffset);
+        } catch (IOException e) {
+            // Entrada corrupta o incompleta: se vuelve a analizar la clase
+            return null;
+        }
+    }
+
+    private void store(String hash, ClassFileInfo info) throws IOException {
+        Path file = entryPath(hash);
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), hash, ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(info.getName());
+            out.writeBoolean(info.getSuperName() != null);
+            if (info.getSuperName() != null) {
+                out.writeUTF(info.getSuperName());
+            }
+            writeList(out, info.getInterfaces());
+            writeList(out, info.getReferencedClasses());
+            writeList(out, info.getReferencedMembers());
+            out.writeInt(info.getFieldCountOffset());
+            out.writeInt(info.getMethodCountOffset());
+            out.writeInt(info.getMembers().size());
+            for (ClassFileInfo.MemberInfo member : info.getMembers()) {
+                out.writeBoolean(member.isMethod());
+                out.writeInt(member.getAccess());
+                out.writeUTF(member.getName());
+                out.writeUTF(member.getDescriptor());
+                out.writeBoolean(member.isAnnotated());
+                out.writeInt(member.getStart());
+                out.writeInt(member.getEnd());
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static List<String> readList(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(in.readUTF());
+        }
+        return values;
+    }
+
+    private static void writeList(DataOutputStream out, Collection<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String sha256(byte[] bytes) {
+        return Digest.hex(Digest.sha256().digest(bytes));
+    }
+}
@@ -0,0 +1,48 @@
+package com.jbuild.core.optimizer;
+
+/**
+ * Resultado de una pasada del optimizador sobre un JAR
+ */
+public class OptimizationReport {
+    private final int classesIn;
+    private final int classesOut;
+    private final int membersRemoved;
+    private final long bytesIn;
+    private final long bytesOut;
+    private final long cacheHits;
+    private final long durationMillis;
+
+    public OptimizationReport(int classesIn, int classesOut, int membersRemoved,
+                              long bytesIn, long bytesOut, long cacheHits, long durationMillis) {
+        this.classesIn = classesIn;
+        this.classesOut = classesOut;
+        this.membersRemoved = membersRemoved;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+        this.cacheHits = cacheHits;
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Porcentaje de reducción de tamaño del artefacto
+     */
+    public double getSizeReduction() {
+        return bytesIn == 0 ? 0 : 100.0 * (bytesIn - bytesOut) / bytesIn;
+    }
+
+    // Getters
+    public int getClassesIn() { return classesIn; }
+    public int getClassesOut() { return classesOut; }
+    public int getClassesRemoved() { return classesIn - classesOut; }
+    public int getMembersRemoved() { return membersRemoved; }
+    public long getBytesIn() { return bytesIn; }
+    public long getBytesOut() { return bytesOut; }
+    public long getCacheHits() { return cacheHits; }
+    public long getDurationMillis() { return durationMillis; }
+
+    @Override
+    public String toString() {
+        return String.format("clases %d -> %d, miembros eliminados %d, %d -> %d bytes (%.1f%%), %d hits de cache, %d ms",
+            classesIn, classesOut, membersRemoved, bytesIn, bytesOut, getSizeReduction(), cacheHits, durationMillis);
+    }
+}
@@ -0,0 +1,97 @@
+package com.jbuild.core.optimizer;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Calcula las clases alcanzables desde los puntos de entrada.
+ * Una clase es alcanzable si la referencia (constant pool, descriptores, firmas
+ * o constantes String con forma de nombre de clase) otra clase alcanzable.
+ */
+public class ReachabilityAnalyzer {
+    private final Map<String, List<ClassFileInfo>> classes;
+
+    /**
+     * @param classes clases del programa por nombre interno; varias versiones
+     *                por nombre en JARs multi-release
+     */
+    public ReachabilityAnalyzer(Map<String, List<ClassFileInfo>> classes) {
+        this.classes = classes;
+    }
+
+    public Set<String> reachableFrom(Collection<String> roots, Collection<String> keepPatterns) {
+        Set<String> reachable = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        for (String root : roots) {
+            enqueue(toInternalName(root), reachable, pending);
+        }
+        for (String pattern : keepPatterns) {
+            Pattern regex = toRegex(pattern);
+            for (String name : classes.keySet()) {
+                if (regex.matcher(name.replace('/', '.')).matches()) {
+                    enqueue(name, reachable, pending);
+                }
+            }
+        }
+
+        while (!pending.isEmpty()) {
+            for (ClassFileInfo info : classes.get(pending.pop())) {
+                enqueue(info.getSuperName(), reachable, pending);
+                for (String iface : info.getInterfaces()) {
+                    enqueue(iface, reachable, pending);
+                }
+                for (String referenced : info.getReferencedClasses()) {
+                    enqueue(referenced, reachable, pending);
+                }
+            }
+        }
+        return reachable;
+    }
+
+    private void enqueue(String name, Set<String> reachable, Deque<String> pending) {
+        if (name == null) {
+            return;
+        }
+        if (classes.containsKey(name) && reachable.add(name)) {
+            pending.push(name);
+        }
+        // Una clase anidada alcanzable necesita su clase externa (NestHost, InnerClasses)
+        int nested = name.lastIndexOf('$');
+        if (nested > 0) {
+            enqueue(name.substring(0, nested), reachable, pending);
+        }
+    }
+
+    static String toInternalName(String className) {
+        return className.replace('.', '/');
+    }
+
+    /**
+     * "com.example.**" coincide con subpaquetes, "com.example.*" solo con el paquete
+     */
+    static Pattern toRegex(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '*') {
+                    regex.append(".*");
+                    i++;
+                } else {
+                    regex.append("[^.]*");
+                }
+            } else if (c == '.' || c == '$') {
+                regex.append('\\').append(c);
+            } else {
+                regex.append(c);
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -0,0 +1,231 @@
+package com.jbuild.core.packaging;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Main-Class de los JAR ejecutables por capas. Se copia dentro de cada JAR, así que
+ * solo usa el JDK y no tiene clases anidadas.
+ * <p>
+ * Sin modo, extrae el JAR una vez en un directorio temporal (por tamaño y fecha del
+ * JAR) y arranca la Start-Class del manifiesto con las clases y dependencias extraídas.
+ * Con {@code -Djbuild.jarmode=list} muestra las capas, y con
+ * {@code -Djbuild.jarmode=extract} las extrae en directorios separados para construir
+ * la imagen:
+ * <pre>
+ * java -Djbuild.jarmode=extract -jar app.jar target/layers
+ * </pre>
+ */
+public class LayeredJarLauncher {
+    public static final String INDEX = "META-INF/jbuild/layers.idx";
+    public static final String START_CLASS = "Start-Class";
+    public static final String CLASSES_DIRECTORY = "classes/";
+    public static final String LIB_DIRECTORY = "lib/";
+    public static final String ARGUMENTS_FILE = "jbuild.args";
+
+    /**
+     * Capas de la que menos cambia a la que más, en el orden en que deben copiarse a la imagen
+     */
+    public static final String[] LAYERS = { "dependencies", "snapshot-dependencies", "resources", "application" };
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Paths.get(LayeredJarLauncher.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        String mode = System.getProperty("jbuild.jarmode", "");
+        switch (mode) {
+            case "":
+                launch(jar, args);
+                break;
+            case "list":
+                for (String layer : readIndex(jar).keySet()) {
+                    System.out.println(layer);
+                }
+                break;
+            case "extract":
+                Path destination = Paths.get(args.length > 0 ? args[0] : ".");
+                extract(jar, destination, true);
+                System.out.println("Capas extraídas en " + destination.toAbsolutePath());
+                break;
+            default:
+                System.err.println("Modo desconocido: " + mode + " (list, extract)");
+                System.exit(2);
+        }
+    }
+
+    /**
+     * Extrae el contenido indexado del JAR. Con layered cada capa va a su directorio
+     * (destination/dependencies/lib/a.jar...) y la capa application incluye el archivo
+     * de argumentos para arrancar con {@code java @jbuild.args} desde el directorio
+     * donde se juntan las capas. Se crean todos los directorios de capa, aunque estén
+     * vacíos, para que el COPY de cada capa funcione siempre. Sin layered todo va
+     * directamente a destination.
+     */
+    public static void extract(Path jar, Path destination, boolean layered) throws IOException {
+        Map<String, List<String>> index = readIndex(jar);
+        try (JarFile file = new JarFile(jar.toFile())) {
+            String startClass = file.getManifest().getMainAttributes().getValue(START_CLASS);
+            List<String> libraries = new ArrayList<>();
+            for (Map.Entry<String, List<String>> layer : index.entrySet()) {
+                Path root = layered ? destination.resolve(layer.getKey()) : destination;
+                Files.createDirectories(root);
+                for (String path : layer.getValue()) {
+                    ZipEntry entry = file.getEntry(path);
+                    if (entry == null) {
+                        throw new IOException("El índice de capas nombra una entrada que no existe: " + path);
+                    }
+                    Path target = root.resolve(path).normalize();
+                    if (!target.startsWith(root.normalize())) {
+                        throw new IOException("Entrada fuera del directorio de destino: " + path);
+                    }
+                    Files.createDirectories(target.getParent());
+                    try (InputStream in = file.getInputStream(entry)) {
+                        Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    if (path.startsWith(LIB_DIRECTORY)) {
+                        libraries.add(path);
+                    }
+                }
+            }
+            Path application = layered ? destination.resolve(LAYERS[LAYERS.length - 1]) : destination;
+            Files.createDirectories(application);
+            // Las imágenes son Linux: separador ':' independientemente de dónde se extraiga
+            StringBuilder classpath = new StringBuilder("classes");
+            for (String library : libraries) {
+                classpath.append(':').append(library);
+            }
+            try (Writer writer = Files.newBufferedWriter(application.resolve(ARGUMENTS_FILE), StandardCharsets.UTF_8)) {
+                writer.write("-cp\n" + classpath + "\n" + (startClass != null ? startClass : "") + "\n");
+            }
+        }
+    }
+
+    /**
+     * Capas del JAR en orden, con sus entradas
+     */
+    public static Map<String, List<String>> readIndex(Path jar) throws IOException {
+        Map<String, List<String>> index = new LinkedHashMap<>();
+        for (String layer : LAYERS) {
+            index.put(layer, new ArrayList<>());
+        }
+        try (JarFile file = new JarFile(jar.toFile())) {
+            ZipEntry entry = file.getEntry(INDEX);
+            if (entry == null) {
+                throw new IOException("El JAR no es un JAR por capas: falta " + INDEX);
+            }
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(file.getInputStream(entry), StandardCharsets.UTF_8))) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    int separator = line.indexOf(' ');
+                    if (separator <= 0) {
+                        throw new IOException("Línea no válida en " + INDEX + ": " + line);
+                    }
+                    index.computeIfAbsent(line.substring(0, separator), layer -> new ArrayList<>())
+                        .add(line.substring(separator + 1));
+                }
+            }
+        }
+        return index;
+    }
+
+    private static void launch(Path jar, String[] args) throws Exception {
+        String startClass;
+        try (JarFile file = new JarFile(jar.toFile())) {
+            startClass = file.getManifest().getMainAttributes().getValue(START_CLASS);
+        }
+        if (startClass == null) {
+            throw new IllegalStateException("El manifiesto de " + jar + " no tiene " + START_CLASS);
+        }
+        Path directory = unpacked(jar);
+        List<URL> urls = new ArrayList<>();
+        urls.add(directory.resolve(CLASSES_DIRECTORY).toUri().toURL());
+        Path lib = directory.resolve(LIB_DIRECTORY);
+        if (Files.isDirectory(lib)) {
+            try (Stream<Path> libraries = Files.list(lib)) {
+                for (Path library : libraries.sorted().collect(Collectors.toList())) {
+                    urls.add(library.toUri().toURL());
+                }
+            }
+        }
+        // El padre es el cargador de plataforma: el propio JAR no forma parte del classpath de la aplicación
+        URLClassLoader loader = new URLClassLoader(urls.toArray(new URL[0]), ClassLoader.getPlatformClassLoader());
+        Thread.currentThread().setContextClassLoader(loader);
+        Method main = loader.loadClass(startClass).getMethod("main", String[].class);
+        try {
+            main.invoke(null, (Object) args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Directorio con el JAR extraído, reutilizado mientras el JAR no cambie
+     */
+    private static Path unpacked(Path jar) throws IOException {
+        Path base = Paths.get(System.getProperty("jbuild.launcher.dir",
+            Paths.get(System.getProperty("java.io.tmpdir"), "jbuild-launcher").toString()));
+        String name = jar.getFileName() + "-" + Files.size(jar) + "-" + Files.getLastModifiedTime(jar).toMillis();
+        Path directory = base.resolve(name);
+        if (Files.isDirectory(directory)) {
+            return directory;
+        }
+        Files.createDirectories(base);
+        Path temp = Files.createTempDirectory(base, name);
+        try {
+            extract(jar, temp, false);
+            Files.move(temp, directory, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Otro proceso lo extrajo a la vez
+        } catch (IOException e) {
+            if (!Files.isDirectory(directory)) {
+                throw e;
+            }
+        } finally {
+            deleteRecursively(temp);
+        }
+        return directory;
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(path)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path current : paths) {
+            Files.deleteIfExists(current);
+        }
+    }
+}
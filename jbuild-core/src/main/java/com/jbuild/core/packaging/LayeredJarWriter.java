@@ -0,0 +1,216 @@
+package com.jbuild.core.packaging;
+
+import com.jbuild.core.dsl.type_safe.config.JarConfig;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/**
+ * Escritura de JAR ejecutables por capas. El contenido se reparte en cuatro capas,
+ * de la que menos cambia a la que más: dependencias de versión fija, dependencias
+ * snapshot, recursos de la aplicación y clases de la aplicación. El índice
+ * {@value LayeredJarLauncher#INDEX} indica la capa de cada entrada y
+ * {@link LayeredJarLauncher} arranca el JAR o lo extrae por capas.
+ * <p>
+ * Las entradas se escriben ordenadas y con fecha fija, así que las mismas entradas
+ * producen las mismas capas y las imágenes reutilizan todas menos la que cambió.
+ * Las dependencias se guardan sin comprimir: ya están comprimidas.
+ */
+public class LayeredJarWriter {
+
+    /**
+     * Fecha fija de las entradas, en hora local del ZIP: el JAR sale igual en cualquier zona horaria
+     */
+    private static final LocalDateTime ENTRY_TIME = LocalDateTime.of(1980, 2, 1, 0, 0);
+    private static final Pattern TIMESTAMPED_SNAPSHOT = Pattern.compile(".*-\\d{8}\\.\\d{6}-\\d+(-[^/]+)?\\.jar");
+
+    private String mainClass;
+    private Path classesDirectory;
+    private final List<Path> dependencies = new ArrayList<>();
+
+    public LayeredJarWriter() {}
+
+    public static LayeredJarWriter builder() {
+        return new LayeredJarWriter();
+    }
+
+    /**
+     * Writer con la clase principal de la configuración del JAR
+     */
+    public static LayeredJarWriter forJar(JarConfig jarConfig) {
+        if (!jarConfig.isExecutable()) {
+            throw new IllegalArgumentException("Un JAR por capas debe ser ejecutable");
+        }
+        return new LayeredJarWriter().mainClass(jarConfig.getMainClass());
+    }
+
+    public LayeredJarWriter mainClass(String mainClass) {
+        this.mainClass = mainClass;
+        return this;
+    }
+
+    /**
+     * Salida de la compilación con los recursos ya copiados
+     */
+    public LayeredJarWriter classesDirectory(Path classesDirectory) {
+        this.classesDirectory = classesDirectory;
+        return this;
+    }
+
+    public LayeredJarWriter dependency(Path jar) {
+        this.dependencies.add(jar);
+        return this;
+    }
+
+    public LayeredJarWriter dependencies(List<Path> jars) {
+        this.dependencies.addAll(jars);
+        return this;
+    }
+
+    public void write(Path output) throws IOException {
+        if (mainClass == null) {
+            throw new IllegalStateException("Falta la clase principal del JAR ejecutable");
+        }
+        // Capa y ruta de cada entrada; el TreeMap las deja ordenadas dentro de cada capa
+        List<TreeMap<String, Path>> layers = new ArrayList<>();
+        for (int i = 0; i < LayeredJarLauncher.LAYERS.length; i++) {
+            layers.add(new TreeMap<>());
+        }
+        Set<String> libraryNames = new HashSet<>();
+        for (Path dependency : dependencies) {
+            String name = dependency.getFileName().toString();
+            for (int suffix = 2; !libraryNames.add(name); suffix++) {
+                name = suffix + "-" + dependency.getFileName();
+            }
+            layers.get(isSnapshot(name) ? 1 : 0).put(LayeredJarLauncher.LIB_DIRECTORY + name, dependency);
+        }
+        if (classesDirectory != null && Files.isDirectory(classesDirectory)) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(classesDirectory)) {
+                files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                String relative = classesDirectory.relativize(file).toString().replace('\\', '/');
+                if (relative.equals(JarFile.MANIFEST_NAME)) {
+                    continue;
+                }
+                layers.get(relative.endsWith(".class") ? 3 : 2)
+                    .put(LayeredJarLauncher.CLASSES_DIRECTORY + relative, file);
+            }
+        }
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(output.toAbsolutePath().getParent(), output.getFileName().toString(), ".tmp");
+        try {
+            try (JarOutputStream out = new JarOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                writeManifest(out);
+                writeLauncher(out);
+                StringBuilder index = new StringBuilder("# jbuild layers v1\n");
+                for (int i = 0; i < layers.size(); i++) {
+                    for (String path : layers.get(i).keySet()) {
+                        index.append(LayeredJarLauncher.LAYERS[i]).append(' ').append(path).append('\n');
+                    }
+                }
+                writeEntry(out, LayeredJarLauncher.INDEX, index.toString().getBytes(StandardCharsets.UTF_8));
+                for (int i = 0; i < layers.size(); i++) {
+                    for (Map.Entry<String, Path> entry : layers.get(i).entrySet()) {
+                        if (entry.getKey().startsWith(LayeredJarLauncher.LIB_DIRECTORY)) {
+                            writeStored(out, entry.getKey(), entry.getValue());
+                        } else {
+                            writeEntry(out, entry.getKey(), Files.readAllBytes(entry.getValue()));
+                        }
+                    }
+                }
+            }
+            Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Versión snapshot: "-SNAPSHOT" o snapshot con marca de tiempo resuelta (1.0-20240101.120000-3)
+     */
+    static boolean isSnapshot(String fileName) {
+        return fileName.contains("-SNAPSHOT") || TIMESTAMPED_SNAPSHOT.matcher(fileName).matches();
+    }
+
+    private void writeManifest(JarOutputStream out) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.put(Attributes.Name.MAIN_CLASS, LayeredJarLauncher.class.getName());
+        attributes.putValue(LayeredJarLauncher.START_CLASS, mainClass);
+        attributes.putValue("Created-By", "jbuild");
+        ZipEntry entry = new ZipEntry(JarFile.MANIFEST_NAME);
+        entry.setTimeLocal(ENTRY_TIME);
+        out.putNextEntry(entry);
+        manifest.write(out);
+        out.closeEntry();
+    }
+
+    /**
+     * Copia la clase del lanzador desde el classpath de jbuild
+     */
+    private static void writeLauncher(JarOutputStream out) throws IOException {
+        String name = LayeredJarLauncher.class.getName().replace('.', '/') + ".class";
+        byte[] bytes;
+        try (InputStream in = LayeredJarLauncher.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("No se encuentra " + name + " en el classpath");
+            }
+            bytes = in.readAllBytes();
+        }
+        writeEntry(out, name, bytes);
+    }
+
+    private static void writeEntry(JarOutputStream out, String name, byte[] bytes) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTimeLocal(ENTRY_TIME);
+        out.putNextEntry(entry);
+        out.write(bytes);
+        out.closeEntry();
+    }
+
+    private static void writeStored(JarOutputStream out, String name, Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTimeLocal(ENTRY_TIME);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(Files.size(file));
+        entry.setCompressedSize(Files.size(file));
+        entry.setCrc(crc.getValue());
+        out.putNextEntry(entry);
+        try (InputStream in = Files.newInputStream(file)) {
+            in.transferTo(out);
+        }
+        out.closeEntry();
+    }
+}
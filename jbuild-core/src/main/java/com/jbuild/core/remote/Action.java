@@ -0,0 +1,152 @@
+package com.jbuild.core.remote;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Tarea ejecutable en un worker: línea de comandos, entorno, archivos de entrada (ruta
+ * relativa al directorio de ejecución y digest de su contenido) y rutas de salida.
+ * <p>
+ * Su forma serializada es canónica, de modo que dos acciones iguales tienen el mismo
+ * digest y comparten entrada en la cache de acciones.
+ */
+public class Action {
+    private static final int FORMAT_VERSION = 1;
+
+    private final List<String> arguments = new ArrayList<>();
+    private final Map<String, String> environment = new TreeMap<>();
+    private final Map<String, Digest> inputs = new TreeMap<>();
+    private final Set<String> outputs = new TreeSet<>();
+    private long timeoutMillis;
+
+    public Action() {}
+
+    public static Action builder() {
+        return new Action();
+    }
+
+    public Action command(String... arguments) {
+        for (String argument : arguments) {
+            this.arguments.add(argument);
+        }
+        return this;
+    }
+
+    public Action command(List<String> arguments) {
+        this.arguments.addAll(arguments);
+        return this;
+    }
+
+    public Action environment(String name, String value) {
+        environment.put(name, value);
+        return this;
+    }
+
+    /**
+     * Archivo de entrada, ya subido al almacén, en la ruta relativa indicada
+     */
+    public Action input(String path, Digest digest) {
+        inputs.put(path.replace('\\', '/'), digest);
+        return this;
+    }
+
+    /**
+     * Archivo o directorio que genera la acción, relativo al directorio de ejecución
+     */
+    public Action output(String path) {
+        outputs.add(path.replace('\\', '/'));
+        return this;
+    }
+
+    /**
+     * Ruta de una entrada o salida dentro de {@code root}; rechaza las absolutas y las que
+     * salen de él (p. ej. con "..")
+     */
+    public static Path resolveInside(Path root, String path) {
+        Path base = root.toAbsolutePath().normalize();
+        Path resolved = base.resolve(path).normalize();
+        if (Paths.get(path).isAbsolute() || !resolved.startsWith(base) || resolved.equals(base)) {
+            throw new IllegalArgumentException("Ruta fuera del directorio de ejecución: " + path);
+        }
+        return resolved;
+    }
+
+    public Action timeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        return this;
+    }
+
+    public Digest digest() {
+        return Digest.of(serialize());
+    }
+
+    public byte[] serialize() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(arguments.size());
+            for (String argument : arguments) {
+                out.writeUTF(argument);
+            }
+            out.writeInt(environment.size());
+            for (Map.Entry<String, String> entry : environment.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue());
+            }
+            out.writeInt(inputs.size());
+            for (Map.Entry<String, Digest> entry : inputs.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue().toString());
+            }
+            out.writeInt(outputs.size());
+            for (String output : outputs) {
+                out.writeUTF(output);
+            }
+            out.writeLong(timeoutMillis);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static Action parse(byte[] content) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(content))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Formato de acción no soportado");
+            }
+            Action action = new Action();
+            for (int i = in.readInt(); i > 0; i--) {
+                action.command(in.readUTF());
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                action.environment(in.readUTF(), in.readUTF());
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                action.input(in.readUTF(), Digest.parse(in.readUTF()));
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                action.output(in.readUTF());
+            }
+            return action.timeoutMillis(in.readLong());
+        }
+    }
+
+    // Getters
+    public List<String> getArguments() { return new ArrayList<>(arguments); }
+    public Map<String, String> getEnvironment() { return new TreeMap<>(environment); }
+    public Map<String, Digest> getInputs() { return new TreeMap<>(inputs); }
+    public Set<String> getOutputs() { return new TreeSet<>(outputs); }
+    public long getTimeoutMillis() { return timeoutMillis; }
+}
@@ -0,0 +1,121 @@
+package com.jbuild.core.remote;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resultado de una {@link Action}: código de salida, archivos generados y salida
+ * estándar/de error, todos como digests en el almacén
+ */
+public class ActionResult {
+    private static final int FORMAT_VERSION = 1;
+
+    private final int exitCode;
+    private final Map<String, Digest> outputs;
+    private final Digest stdout;
+    private final Digest stderr;
+    private final long durationMillis;
+    private final String worker;
+
+    public ActionResult(int exitCode, Map<String, Digest> outputs, Digest stdout, Digest stderr,
+                        long durationMillis, String worker) {
+        this.exitCode = exitCode;
+        this.outputs = new TreeMap<>(outputs);
+        this.stdout = stdout;
+        this.stderr = stderr;
+        this.durationMillis = durationMillis;
+        this.worker = worker;
+    }
+
+    public boolean isSuccess() {
+        return exitCode == 0;
+    }
+
+    /**
+     * Escribe los archivos generados bajo el directorio indicado
+     */
+    public void materialize(Path root, ContentAddressableStore store) throws IOException {
+        for (Map.Entry<String, Digest> output : outputs.entrySet()) {
+            Path target = Action.resolveInside(root, output.getKey());
+            Files.createDirectories(target.getParent());
+            Files.copy(store.path(output.getValue()), target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public String stdout(ContentAddressableStore store) throws IOException {
+        return new String(store.get(stdout), StandardCharsets.UTF_8);
+    }
+
+    public String stderr(ContentAddressableStore store) throws IOException {
+        return new String(store.get(stderr), StandardCharsets.UTF_8);
+    }
+
+    List<Digest> referencedDigests() {
+        List<Digest> digests = new ArrayList<>(outputs.values());
+        digests.add(stdout);
+        digests.add(stderr);
+        return digests;
+    }
+
+    public byte[] serialize() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(exitCode);
+            out.writeInt(outputs.size());
+            for (Map.Entry<String, Digest> entry : outputs.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue().toString());
+            }
+            out.writeUTF(stdout.toString());
+            out.writeUTF(stderr.toString());
+            out.writeLong(durationMillis);
+            out.writeUTF(worker == null ? "" : worker);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static ActionResult parse(byte[] content) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(content))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Formato de resultado no soportado");
+            }
+            int exitCode = in.readInt();
+            Map<String, Digest> outputs = new TreeMap<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                outputs.put(in.readUTF(), Digest.parse(in.readUTF()));
+            }
+            Digest stdout = Digest.parse(in.readUTF());
+            Digest stderr = Digest.parse(in.readUTF());
+            return new ActionResult(exitCode, outputs, stdout, stderr, in.readLong(), in.readUTF());
+        }
+    }
+
+    // Getters
+    public int getExitCode() { return exitCode; }
+    public Map<String, Digest> getOutputs() { return new TreeMap<>(outputs); }
+    public Digest getStdout() { return stdout; }
+    public Digest getStderr() { return stderr; }
+    public long getDurationMillis() { return durationMillis; }
+    public String getWorker() { return worker; }
+
+    @Override
+    public String toString() {
+        return "exit " + exitCode + " (" + outputs.size() + " salidas, " + durationMillis + " ms"
+            + (worker == null || worker.isEmpty() ? "" : ", " + worker) + ")";
+    }
+}
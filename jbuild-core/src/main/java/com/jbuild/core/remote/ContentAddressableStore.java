@@ -0,0 +1,156 @@
+package com.jbuild.core.remote;
+
+import com.jbuild.core.metrics.BuildMetrics;
+import com.jbuild.core.metrics.Counter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Almacén de contenidos direccionado por su {@link Digest}, en un directorio compartido
+ * por el planificador y los workers, más la cache de acciones (digest de la acción a
+ * su {@link ActionResult}).
+ * <p>
+ * Las escrituras son atómicas (archivo temporal y move), por lo que varios procesos
+ * pueden usar el mismo directorio a la vez.
+ */
+public class ContentAddressableStore {
+    private final Path directory;
+    private final Counter uploaded = BuildMetrics.shared().bytesTransferred("upload");
+    private final Counter downloaded = BuildMetrics.shared().bytesTransferred("download");
+
+    public ContentAddressableStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() { return directory; }
+
+    public boolean contains(Digest digest) {
+        return Files.isRegularFile(path(digest));
+    }
+
+    /**
+     * Digests de la colección que no están en el almacén
+     */
+    public List<Digest> findMissing(Collection<Digest> digests) {
+        List<Digest> missing = new ArrayList<>();
+        for (Digest digest : digests) {
+            if (!contains(digest)) {
+                missing.add(digest);
+            }
+        }
+        return missing;
+    }
+
+    public Digest put(byte[] content) throws IOException {
+        Digest digest = Digest.of(content);
+        if (!contains(digest)) {
+            Path target = path(digest);
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), digest.getHash(), ".tmp");
+            Files.write(temp, content);
+            publish(temp, target);
+            uploaded.add(content.length);
+        }
+        return digest;
+    }
+
+    /**
+     * Guarda un archivo calculando su digest mientras se copia
+     */
+    public Digest putFile(Path file) throws IOException {
+        Path staging = directory.resolve("tmp");
+        Files.createDirectories(staging);
+        Path temp = Files.createTempFile(staging, "upload", ".tmp");
+        MessageDigest sha = Digest.sha256();
+        long size;
+        try (InputStream in = Files.newInputStream(file);
+             OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), sha)) {
+            size = in.transferTo(out);
+        }
+        Digest digest = Digest.fromHash(sha.digest(), size);
+        if (contains(digest)) {
+            Files.delete(temp);
+        } else {
+            Files.createDirectories(path(digest).getParent());
+            publish(temp, path(digest));
+            uploaded.add(size);
+        }
+        return digest;
+    }
+
+    /**
+     * Copia al almacén un contenido de otro almacén (p. ej. de la cache compartida a la local de un worker)
+     */
+    public void fetch(Digest digest, ContentAddressableStore from) throws IOException {
+        if (contains(digest)) {
+            return;
+        }
+        if (!from.contains(digest)) {
+            throw new IOException("Contenido no disponible en " + from.getDirectory() + ": " + digest);
+        }
+        Path target = path(digest);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), digest.getHash(), ".tmp");
+        Files.copy(from.path(digest), temp, StandardCopyOption.REPLACE_EXISTING);
+        publish(temp, target);
+        downloaded.add(digest.getSize());
+    }
+
+    public byte[] get(Digest digest) throws IOException {
+        if (!contains(digest)) {
+            throw new IOException("Contenido no encontrado: " + digest);
+        }
+        return Files.readAllBytes(path(digest));
+    }
+
+    /**
+     * Ruta del contenido en disco; no debe modificarse
+     */
+    public Path path(Digest digest) {
+        String hash = digest.getHash();
+        return directory.resolve("cas").resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    public ActionResult getActionResult(Digest actionDigest) throws IOException {
+        Path file = actionResultPath(actionDigest);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        ActionResult result = ActionResult.parse(Files.readAllBytes(file));
+        // Solo vale si todas sus salidas siguen en el almacén
+        return findMissing(result.referencedDigests()).isEmpty() ? result : null;
+    }
+
+    public void putActionResult(Digest actionDigest, ActionResult result) throws IOException {
+        Path target = actionResultPath(actionDigest);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), actionDigest.getHash(), ".tmp");
+        Files.write(temp, result.serialize());
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path actionResultPath(Digest actionDigest) {
+        String hash = actionDigest.getHash();
+        return directory.resolve("ac").resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static void publish(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Otro proceso guardó el mismo contenido a la vez
+            Files.deleteIfExists(temp);
+        }
+    }
+}
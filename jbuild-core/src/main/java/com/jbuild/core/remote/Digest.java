@@ -0,0 +1,93 @@
+package com.jbuild.core.remote;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+
+/**
+ * Identificador de un contenido en el almacén direccionado por contenido: hash SHA-256 y tamaño
+ */
+public final class Digest {
+    private final String hash;
+    private final long size;
+
+    public Digest(String hash, long size) {
+        if (hash == null || hash.length() != 64) {
+            throw new IllegalArgumentException("Hash SHA-256 no válido: " + hash);
+        }
+        this.hash = hash;
+        this.size = size;
+    }
+
+    public static Digest of(byte[] content) {
+        return new Digest(hex(sha256().digest(content)), content.length);
+    }
+
+    public static Digest of(String content) {
+        return of(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Digest de un contenido cuyo SHA-256 se ha calculado por partes (p. ej. al copiarlo)
+     */
+    public static Digest fromHash(byte[] sha256, long size) {
+        return new Digest(hex(sha256), size);
+    }
+
+    /**
+     * Inverso de {@link #toString()}: "hash/tamaño"
+     */
+    public static Digest parse(String value) {
+        int slash = value.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Digest no válido: " + value);
+        }
+        return new Digest(value.substring(0, slash), Long.parseLong(value.substring(slash + 1)));
+    }
+
+    // Getters
+    public String getHash() { return hash; }
+    public long getSize() { return size; }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Digest)) {
+            return false;
+        }
+        Digest digest = (Digest) other;
+        return size == digest.size && hash.equals(digest.hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hash, size);
+    }
+
+    @Override
+    public String toString() {
+        return hash + "/" + size;
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Bytes en hexadecimal en minúsculas, como los checksums publicados y sha256sum
+     */
+    public static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,235 @@
+package com.jbuild.core.remote;
+
+import com.jbuild.core.metrics.BuildMetrics;
+import com.jbuild.core.metrics.Counter;
+import com.jbuild.core.metrics.Gauge;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementación de referencia de {@link RemoteExecutor}: varios procesos
+ * {@link WorkerMain} en la misma máquina, cada uno con su propia cache y directorio de
+ * trabajo, que comparten con el planificador el almacén direccionado por contenido.
+ * <p>
+ * El protocolo es el mismo que usaría un worker en otra máquina; solo cambia que el
+ * almacén compartido es un directorio local.
+ */
+public class LocalWorkerPool implements RemoteExecutor {
+    private static final String NO_WORKERS = "No queda ningún worker: todos terminaron y no pudieron rearrancarse";
+
+    private final ContentAddressableStore store;
+    private final Path workDirectory;
+    private final List<WorkerProcess> workers = new ArrayList<>();
+    private final BlockingQueue<WorkerProcess> idle = new LinkedBlockingQueue<>();
+    private final ExecutorService dispatcher;
+    private final AtomicInteger live = new AtomicInteger();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong executed = new AtomicLong();
+    private final Gauge queueDepth = BuildMetrics.shared().queueDepth();
+    private final Gauge busyWorkers = BuildMetrics.shared().busyWorkers();
+    private final Gauge idleWorkers = BuildMetrics.shared().idleWorkers();
+    private final Counter actionCacheHits = BuildMetrics.shared().cacheHits("action");
+    private final Counter actionCacheMisses = BuildMetrics.shared().cacheMisses("action");
+
+    public LocalWorkerPool(ContentAddressableStore store, Path workDirectory, int size) throws IOException {
+        this.store = store;
+        this.workDirectory = workDirectory;
+        int count = Math.max(1, size);
+        this.dispatcher = Executors.newFixedThreadPool(count, runnable -> {
+            Thread thread = new Thread(runnable, "jbuild-remote-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < count; i++) {
+            WorkerProcess worker = start("worker-" + (i + 1));
+            workers.add(worker);
+            live.incrementAndGet();
+            idle.add(worker);
+            idleWorkers.increment();
+        }
+    }
+
+    @Override
+    public CompletableFuture<ActionResult> execute(Action action) {
+        Digest actionDigest;
+        try {
+            actionDigest = store.put(action.serialize());
+            ActionResult cached = store.getActionResult(actionDigest);
+            if (cached != null) {
+                cacheHits.incrementAndGet();
+                actionCacheHits.increment();
+                return CompletableFuture.completedFuture(cached);
+            }
+            actionCacheMisses.increment();
+            if (live.get() == 0) {
+                throw new IOException(NO_WORKERS);
+            }
+            List<Digest> missing = store.findMissing(action.getInputs().values());
+            if (!missing.isEmpty()) {
+                throw new IOException("Entradas no subidas al almacén: " + missing);
+            }
+        } catch (IOException e) {
+            CompletableFuture<ActionResult> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        queueDepth.increment();
+        return CompletableFuture.supplyAsync(() -> dispatch(actionDigest), dispatcher);
+    }
+
+    private ActionResult dispatch(Digest actionDigest) {
+        WorkerProcess worker;
+        try {
+            // Sin workers vivos (todos murieron y no pudieron rearrancarse) se falla en vez de esperar
+            while ((worker = idle.poll(1, TimeUnit.SECONDS)) == null) {
+                if (live.get() == 0) {
+                    throw new CompletionException(new IOException(NO_WORKERS));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } finally {
+            queueDepth.decrement();
+        }
+        idleWorkers.decrement();
+        busyWorkers.increment();
+        WorkerProcess next = worker;
+        try {
+            String response = worker.request("EXECUTE " + actionDigest);
+            if (response.startsWith("RESULT ")) {
+                executed.incrementAndGet();
+                return ActionResult.parse(store.get(Digest.parse(response.substring("RESULT ".length()))));
+            }
+            throw new CompletionException(new IOException(worker.name + ": " + response));
+        } catch (IOException e) {
+            // El worker ha muerto o el protocolo se ha roto: se sustituye por uno nuevo
+            next = restart(worker);
+            throw new CompletionException(e);
+        } finally {
+            busyWorkers.decrement();
+            if (next != null) {
+                idleWorkers.increment();
+                idle.add(next);
+            }
+        }
+    }
+
+    private WorkerProcess restart(WorkerProcess worker) {
+        worker.process.destroyForcibly();
+        try {
+            WorkerProcess replacement = start(worker.name);
+            synchronized (workers) {
+                workers.set(workers.indexOf(worker), replacement);
+            }
+            return replacement;
+        } catch (IOException e) {
+            synchronized (workers) {
+                workers.remove(worker);
+            }
+            live.decrementAndGet();
+            return null;
+        }
+    }
+
+    private WorkerProcess start(String name) throws IOException {
+        Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        ProcessBuilder builder = new ProcessBuilder(java.toString(),
+            "-cp", System.getProperty("java.class.path"),
+            WorkerMain.class.getName(),
+            store.getDirectory().toAbsolutePath().toString(),
+            workDirectory.resolve(name).toAbsolutePath().toString(),
+            name);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        WorkerProcess worker = new WorkerProcess(name, builder.start());
+        String ready = worker.readLine();
+        if (!ready.startsWith("READY")) {
+            worker.process.destroyForcibly();
+            throw new IOException("El worker " + name + " no arrancó: " + ready);
+        }
+        return worker;
+    }
+
+    @Override
+    public ContentAddressableStore getStore() { return store; }
+
+    /**
+     * Acciones resueltas desde la cache de acciones sin ejecutarse
+     */
+    public long getCacheHits() { return cacheHits.get(); }
+    public long getExecuted() { return executed.get(); }
+    public int getSize() { return live.get(); }
+
+    @Override
+    public void close() {
+        dispatcher.shutdown();
+        idleWorkers.add(-idle.size());
+        idle.clear();
+        synchronized (workers) {
+            for (WorkerProcess worker : workers) {
+                try {
+                    worker.send("SHUTDOWN");
+                    if (!worker.process.waitFor(5, TimeUnit.SECONDS)) {
+                        worker.process.destroyForcibly();
+                    }
+                } catch (IOException e) {
+                    worker.process.destroyForcibly();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    worker.process.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    private static class WorkerProcess {
+        private final String name;
+        private final Process process;
+        private final Writer out;
+        private final BufferedReader in;
+
+        WorkerProcess(String name, Process process) {
+            this.name = name;
+            this.process = process;
+            this.out = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+            this.in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        String request(String command) throws IOException {
+            send(command);
+            return readLine();
+        }
+
+        void send(String command) throws IOException {
+            out.write(command);
+            out.write('\n');
+            out.flush();
+        }
+
+        String readLine() throws IOException {
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("El worker " + name + " terminó inesperadamente");
+            }
+            return line;
+        }
+    }
+}
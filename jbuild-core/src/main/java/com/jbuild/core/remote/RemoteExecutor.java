@@ -0,0 +1,18 @@
+package com.jbuild.core.remote;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Ejecución de acciones fuera del proceso del build. Las entradas de la acción deben
+ * estar ya en el almacén ({@link ContentAddressableStore#putFile}); el resultado y sus
+ * salidas quedan en él.
+ */
+public interface RemoteExecutor extends AutoCloseable {
+
+    CompletableFuture<ActionResult> execute(Action action);
+
+    ContentAddressableStore getStore();
+
+    @Override
+    void close();
+}
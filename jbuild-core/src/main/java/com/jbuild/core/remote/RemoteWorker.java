@@ -0,0 +1,141 @@
+package com.jbuild.core.remote;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Lado worker de la ejecución remota: descarga a su cache local las entradas que le
+ * faltan, ejecuta la acción en un directorio aislado y sube las salidas al almacén
+ * compartido
+ */
+public class RemoteWorker {
+    private final String name;
+    private final ContentAddressableStore remote;
+    private final ContentAddressableStore local;
+    private final Path executionRoot;
+    private final AtomicLong executions = new AtomicLong();
+
+    public RemoteWorker(String name, ContentAddressableStore remote, Path workDirectory) {
+        this.name = name;
+        this.remote = remote;
+        this.local = new ContentAddressableStore(workDirectory.resolve("cache"));
+        this.executionRoot = workDirectory.resolve("exec");
+    }
+
+    /**
+     * Ejecuta la acción con el digest indicado y devuelve el digest de su {@link ActionResult}
+     */
+    public Digest execute(Digest actionDigest) throws IOException, InterruptedException {
+        local.fetch(actionDigest, remote);
+        Action action = Action.parse(local.get(actionDigest));
+        for (Digest input : local.findMissing(action.getInputs().values())) {
+            local.fetch(input, remote);
+        }
+
+        Path sandbox = executionRoot.resolve(actionDigest.getHash().substring(0, 12) + "-" + executions.incrementAndGet());
+        Files.createDirectories(sandbox);
+        try {
+            for (Map.Entry<String, Digest> input : action.getInputs().entrySet()) {
+                materialize(local.path(input.getValue()), Action.resolveInside(sandbox, input.getKey()));
+            }
+            for (String output : action.getOutputs()) {
+                Path parent = Action.resolveInside(sandbox, output).getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+            }
+            ActionResult result = run(action, sandbox);
+            if (result.isSuccess()) {
+                remote.putActionResult(actionDigest, result);
+            }
+            return remote.put(result.serialize());
+        } finally {
+            deleteRecursively(sandbox);
+        }
+    }
+
+    private ActionResult run(Action action, Path sandbox) throws IOException, InterruptedException {
+        Path stdout = sandbox.resolve(".jbuild-stdout");
+        Path stderr = sandbox.resolve(".jbuild-stderr");
+        ProcessBuilder builder = new ProcessBuilder(action.getArguments())
+            .directory(sandbox.toFile())
+            .redirectOutput(stdout.toFile())
+            .redirectError(stderr.toFile());
+        builder.environment().putAll(action.getEnvironment());
+
+        long start = System.currentTimeMillis();
+        Process process = builder.start();
+        int exitCode;
+        if (action.getTimeoutMillis() > 0 && !process.waitFor(action.getTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+            process.destroyForcibly().waitFor();
+            Files.writeString(stderr, "\nTiempo de ejecución agotado (" + action.getTimeoutMillis() + " ms)\n",
+                StandardOpenOption.APPEND);
+            exitCode = -1;
+        } else {
+            exitCode = process.waitFor();
+        }
+        long duration = System.currentTimeMillis() - start;
+
+        Map<String, Digest> outputs = new TreeMap<>();
+        for (String output : action.getOutputs()) {
+            Path path = Action.resolveInside(sandbox, output);
+            if (Files.isRegularFile(path)) {
+                outputs.put(output, remote.putFile(path));
+            } else if (Files.isDirectory(path)) {
+                List<Path> files;
+                try (Stream<Path> walk = Files.walk(path)) {
+                    files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+                }
+                for (Path file : files) {
+                    outputs.put(sandbox.relativize(file).toString().replace('\\', '/'), remote.putFile(file));
+                }
+            }
+        }
+        return new ActionResult(exitCode, outputs, remote.putFile(stdout), remote.putFile(stderr), duration, name);
+    }
+
+    /**
+     * Enlaza la entrada desde la cache local (sin copiarla). El objeto de la cache se
+     * deja antes en solo lectura, para que una acción que escriba en su entrada no
+     * cambie el contenido que verán las siguientes; si no se puede, o el sistema de
+     * archivos no admite enlaces duros, la entrada se copia.
+     */
+    private static void materialize(Path cached, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        if (cached.toFile().setWritable(false, false)) {
+            try {
+                Files.createLink(target, cached);
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                // Se copia
+            }
+        }
+        Files.copy(cached, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(path)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path current : paths) {
+            Files.deleteIfExists(current);
+        }
+    }
+
+    public String getName() { return name; }
+}
@@ -0,0 +1,49 @@
+package com.jbuild.core.remote;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * Proceso worker. Protocolo por líneas en stdin/stdout:
+ * <pre>
+ *   READY nombre              (al arrancar)
+ *   EXECUTE digest-acción  -&gt; RESULT digest-resultado | ERROR mensaje
+ *   SHUTDOWN
+ * </pre>
+ * Uso: {@code WorkerMain <almacén compartido> <directorio de trabajo> <nombre>}
+ */
+public class WorkerMain {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Uso: WorkerMain <almacén> <directorio de trabajo> <nombre>");
+            System.exit(2);
+        }
+        RemoteWorker worker = new RemoteWorker(args[2],
+            new ContentAddressableStore(Paths.get(args[0])), Paths.get(args[1]));
+
+        // stdout queda reservado al protocolo
+        PrintStream protocol = new PrintStream(System.out, true, StandardCharsets.UTF_8.name());
+        System.setOut(System.err);
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        protocol.println("READY " + worker.getName());
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            if (line.equals("SHUTDOWN")) {
+                break;
+            }
+            if (!line.startsWith("EXECUTE ")) {
+                protocol.println("ERROR Comando desconocido: " + line);
+                continue;
+            }
+            try {
+                Digest result = worker.execute(Digest.parse(line.substring("EXECUTE ".length()).trim()));
+                protocol.println("RESULT " + result);
+            } catch (Exception e) {
+                protocol.println("ERROR " + String.valueOf(e.getMessage()).replace('\n', ' '));
+            }
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.jbuild.core.repository;
+
+import com.jbuild.core.dsl.type_safe.BuildConfig;
+import com.jbuild.core.remote.Digest;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Descarga de artefactos de los repositorios remotos al repositorio local con
+ * comprobación de checksums según la {@link ChecksumPolicy}.
+ * <p>
+ * El hash se calcula mientras el artefacto se escribe en disco, sin una segunda
+ * lectura, y se compara con el checksum publicado por el repositorio (".sha1", o
+ * ".md5" si no hay SHA-1). El artefacto solo aparece en el repositorio local después
+ * de comprobarlo. Los artefactos verificados se registran con su tamaño y fecha, así
+ * que las siguientes resoluciones no vuelven a leerlos.
+ */
+public class ArtifactDownloader {
+    private static final int CONNECT_TIMEOUT_MILLIS = 30_000;
+    private static final int READ_TIMEOUT_MILLIS = 60_000;
+    private static final String VERIFIED_FILE = ".jbuild/verified-artifacts";
+
+    /**
+     * Checksums publicados por los repositorios, en orden de preferencia
+     */
+    private static final String[][] ALGORITHMS = { { "SHA-1", "sha1" }, { "MD5", "md5" } };
+
+    private final Path localRepository;
+    private final Map<String, String> repositories;
+    private final ChecksumPolicy policy;
+    private final VerifiedArtifacts verified;
+    private final List<String> warnings = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong downloads = new AtomicLong();
+    private final AtomicLong downloadedBytes = new AtomicLong();
+    private final AtomicLong verifiedReuses = new AtomicLong();
+    private boolean offline;
+
+    public ArtifactDownloader(Path localRepository, Map<String, String> repositories, ChecksumPolicy policy) {
+        this.localRepository = localRepository;
+        this.repositories = new LinkedHashMap<>(repositories);
+        this.policy = policy;
+        this.verified = new VerifiedArtifacts(localRepository.resolve(VERIFIED_FILE));
+    }
+
+    /**
+     * Descargador con el repositorio local, los repositorios remotos, la política de
+     * checksums y el modo offline de la configuración
+     */
+    public static ArtifactDownloader forBuildConfig(BuildConfig config) {
+        return new ArtifactDownloader(BuildConfig.resolvePath(config.getLocalRepository()),
+            config.getRemoteRepositories(), ChecksumPolicy.parse(config.getChecksumPolicy()))
+            .offline(config.isOffline());
+    }
+
+    public ArtifactDownloader offline(boolean offline) {
+        this.offline = offline;
+        return this;
+    }
+
+    /**
+     * Artefacto del repositorio local (ruta relativa con el layout de Maven), descargándolo
+     * del primer repositorio remoto que lo tenga si falta o no supera la comprobación
+     */
+    public Path resolve(String path) throws IOException {
+        String relative = normalize(path);
+        Path local = localRepository.resolve(relative);
+        if (Files.isRegularFile(local) && verifyLocal(relative, local)) {
+            return local;
+        }
+        if (offline) {
+            throw new FileNotFoundException("Artefacto no disponible en modo offline: " + relative);
+        }
+        for (String repositoryId : repositories.keySet()) {
+            try {
+                return download(repositoryId, relative);
+            } catch (FileNotFoundException e) {
+                // Se prueba el siguiente repositorio
+            }
+        }
+        throw new FileNotFoundException("Artefacto no encontrado en los repositorios " + repositories.keySet()
+            + ": " + relative);
+    }
+
+    /**
+     * Descarga el artefacto de un repositorio concreto, comprobándolo mientras se escribe
+     */
+    public Path download(String repositoryId, String path) throws IOException {
+        String base = repositories.get(repositoryId);
+        if (base == null) {
+            throw new IllegalArgumentException("Repositorio desconocido: " + repositoryId);
+        }
+        String relative = normalize(path);
+        String url = base.endsWith("/") ? base + relative : base + "/" + relative;
+        Path local = localRepository.resolve(relative);
+        Files.createDirectories(local.getParent());
+
+        Path temp = Files.createTempFile(local.getParent(), local.getFileName().toString(), ".part");
+        Checksum expected = null;
+        String actual = null;
+        try (InputStream in = open(url)) {
+            // El checksum se pide una vez abierto el artefacto, para no hacerlo con artefactos que no existen
+            expected = policy == ChecksumPolicy.IGNORE ? null : fetchChecksum(url);
+            MessageDigest digest = expected != null ? expected.newDigest() : null;
+            try (OutputStream file = Files.newOutputStream(temp);
+                 OutputStream out = digest != null ? new DigestOutputStream(file, digest) : file) {
+                downloadedBytes.addAndGet(in.transferTo(out));
+            }
+            if (digest != null) {
+                actual = Digest.hex(digest.digest());
+            }
+            if (policy != ChecksumPolicy.IGNORE) {
+                check(repositoryId, relative, expected, actual);
+            }
+            Files.move(temp, local, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        downloads.incrementAndGet();
+
+        if (expected != null && expected.value.equals(actual)) {
+            Files.write(sidecar(local, expected.extension), (expected.value + "\n").getBytes(StandardCharsets.UTF_8));
+            verified.record(relative, local, expected.algorithm, expected.value);
+        } else if (policy == ChecksumPolicy.WARN) {
+            // Aceptado con aviso: se registra para no descargarlo de nuevo en cada resolución
+            verified.record(relative, local, expected == null ? VerifiedArtifacts.NO_CHECKSUM
+                : VerifiedArtifacts.MISMATCH_ACCEPTED, expected == null ? "-" : actual);
+        } else {
+            verified.forget(relative);
+        }
+        return local;
+    }
+
+    public ChecksumPolicy getPolicy() { return policy; }
+    public List<String> getWarnings() { return new ArrayList<>(warnings); }
+    public long getDownloads() { return downloads.get(); }
+    public long getDownloadedBytes() { return downloadedBytes.get(); }
+    public long getVerifiedReuses() { return verifiedReuses.get(); }
+
+    /**
+     * Comprueba un artefacto que ya estaba en el repositorio local. Solo se lee si no
+     * consta como verificado con el mismo tamaño y fecha (con la política WARN también
+     * cuenta el que se aceptó con un checksum incorrecto). Devuelve false si hay que
+     * descargarlo de nuevo.
+     */
+    private boolean verifyLocal(String relative, Path local) throws IOException {
+        if (policy == ChecksumPolicy.IGNORE) {
+            return true;
+        }
+        if (verified.isVerified(relative, local, policy == ChecksumPolicy.WARN)) {
+            verifiedReuses.incrementAndGet();
+            return true;
+        }
+        Checksum expected = readSidecar(local);
+        if (expected == null && !offline) {
+            for (String base : repositories.values()) {
+                expected = fetchChecksum(base.endsWith("/") ? base + relative : base + "/" + relative);
+                if (expected != null) {
+                    break;
+                }
+            }
+        }
+        if (expected == null) {
+            // Sin checksum publicado (p. ej. instalado localmente): la política solo se aplica
+            // a las descargas, y se registra para no buscarlo otra vez mientras no cambie
+            if (!offline) {
+                verified.record(relative, local, VerifiedArtifacts.NO_CHECKSUM, "-");
+            }
+            return true;
+        }
+        String actual = hashFile(local, expected);
+        if (expected.value.equals(actual)) {
+            if (!Files.exists(sidecar(local, expected.extension))) {
+                Files.write(sidecar(local, expected.extension), (expected.value + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            verified.record(relative, local, expected.algorithm, expected.value);
+            return true;
+        }
+        if (offline) {
+            check("local", relative, expected, actual);
+            verified.record(relative, local, VerifiedArtifacts.MISMATCH_ACCEPTED, actual);
+            return true;
+        }
+        warnings.add("Checksum incorrecto en el repositorio local, se descarga de nuevo: " + relative);
+        return false;
+    }
+
+    /**
+     * Aplica la política a un checksum ausente o que no coincide
+     */
+    private void check(String repositoryId, String relative, Checksum expected, String actual) throws ChecksumException {
+        String message;
+        if (expected == null) {
+            message = "El repositorio " + repositoryId + " no publica checksum de " + relative;
+        } else if (!expected.value.equals(actual)) {
+            message = "Checksum " + expected.algorithm + " incorrecto para " + relative + " de " + repositoryId
+                + ": esperado " + expected.value + ", calculado " + actual;
+        } else {
+            return;
+        }
+        if (policy == ChecksumPolicy.FAIL) {
+            throw new ChecksumException(message);
+        }
+        warnings.add(message);
+    }
+
+    private Checksum fetchChecksum(String url) throws IOException {
+        for (String[] algorithm : ALGORITHMS) {
+            byte[] content;
+            try (InputStream in = open(url + "." + algorithm[1])) {
+                content = in.readAllBytes();
+            } catch (FileNotFoundException e) {
+                continue;
+            }
+            Checksum checksum = Checksum.parse(algorithm[0], algorithm[1], new String(content, StandardCharsets.UTF_8));
+            if (checksum != null) {
+                return checksum;
+            }
+            warnings.add("Checksum ilegible en " + url + "." + algorithm[1]);
+        }
+        return null;
+    }
+
+    private static Checksum readSidecar(Path local) throws IOException {
+        for (String[] algorithm : ALGORITHMS) {
+            Path file = sidecar(local, algorithm[1]);
+            if (Files.isRegularFile(file)) {
+                Checksum checksum = Checksum.parse(algorithm[0], algorithm[1], Files.readString(file));
+                if (checksum != null) {
+                    return checksum;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String hashFile(Path file, Checksum checksum) throws IOException {
+        MessageDigest digest = checksum.newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return Digest.hex(digest.digest());
+    }
+
+    private static InputStream open(String url) throws IOException {
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        // Las respuestas 404 llegan como FileNotFoundException
+        return connection.getInputStream();
+    }
+
+    private static Path sidecar(Path local, String extension) {
+        return local.resolveSibling(local.getFileName() + "." + extension);
+    }
+
+    static String normalize(String path) {
+        String relative = path.replace('\\', '/');
+        while (relative.startsWith("/")) {
+            relative = relative.substring(1);
+        }
+        if (relative.isEmpty() || relative.equals("..") || relative.startsWith("../") || relative.contains("/../")) {
+            throw new IllegalArgumentException("Ruta de artefacto no válida: " + path);
+        }
+        return relative;
+    }
+
+    /**
+     * Checksum publicado para un artefacto
+     */
+    private static class Checksum {
+        final String algorithm;
+        final String extension;
+        final String value;
+
+        Checksum(String algorithm, String extension, String value) {
+            this.algorithm = algorithm;
+            this.extension = extension;
+            this.value = value;
+        }
+
+        /**
+         * Los archivos de checksum pueden llevar el nombre del artefacto detrás del hash
+         */
+        static Checksum parse(String algorithm, String extension, String content) {
+            String[] tokens = content.trim().split("\\s+");
+            String value = tokens.length > 0 ? tokens[0].toLowerCase() : "";
+            int length = "SHA-1".equals(algorithm) ? 40 : 32;
+            if (value.length() != length || !value.chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+                return null;
+            }
+            return new Checksum(algorithm, extension, value);
+        }
+
+        MessageDigest newDigest() {
+            try {
+                return MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(algorithm + " no disponible", e);
+            }
+        }
+    }
+
+    /**
+     * Checksum incorrecto o ausente con la política {@link ChecksumPolicy#FAIL}
+     */
+    public static class ChecksumException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public ChecksumException(String message) {
+            super(message);
+        }
+    }
+}
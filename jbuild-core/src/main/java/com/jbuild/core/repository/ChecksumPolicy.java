@@ -0,0 +1,30 @@
+package com.jbuild.core.repository;
+
+/**
+ * Qué hacer cuando el checksum publicado por el repositorio no coincide con el
+ * artefacto descargado o el repositorio no publica checksum
+ */
+public enum ChecksumPolicy {
+    /** Se acepta el artefacto y se registra un aviso */
+    WARN,
+    /** Se rechaza el artefacto y falla la resolución */
+    FAIL,
+    /** No se descargan ni comprueban checksums */
+    IGNORE;
+
+    public static ChecksumPolicy parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return WARN;
+        }
+        switch (value.trim().toLowerCase()) {
+            case "warn":
+                return WARN;
+            case "fail":
+                return FAIL;
+            case "ignore":
+                return IGNORE;
+            default:
+                throw new IllegalArgumentException("Política de checksum desconocida: " + value);
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package com.jbuild.core.repository;
+
+import com.jbuild.core.dsl.type_safe.BuildConfig;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Cache de metadatos de repositorio (maven-metadata.xml) y de la resolución de
+ * versiones snapshot, por id de repositorio, respetando la {@link UpdatePolicy}.
+ * <p>
+ * Cada entrada guarda cuándo se consultó por última vez, también cuando el
+ * repositorio no tenía el archivo, y se sirve de memoria o de disco mientras esté
+ * dentro de la ventana de la política. Las entradas caducadas se consultan en
+ * paralelo en segundo plano: {@link #refreshStale()} o {@link #prefetch(Collection)}
+ * al empezar el build lanzan las consultas, y {@link #get(String, String)} solo
+ * espera a la de la entrada que necesita. Si la consulta falla se usa la copia
+ * caducada. En modo offline nunca se consulta.
+ */
+public class MetadataCache {
+    private static final int CONNECT_TIMEOUT_MILLIS = 30_000;
+    private static final int READ_TIMEOUT_MILLIS = 60_000;
+    private static final String STATUS_SUFFIX = ".lastUpdated";
+
+    private final Path directory;
+    private final Map<String, String> repositories;
+    private final UpdatePolicy policy;
+    private final ExecutorService executor;
+    private final Map<String, Entry> memory = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Entry>> refreshing = new ConcurrentHashMap<>();
+    private final Map<String, SnapshotResolution> snapshots = new ConcurrentHashMap<>();
+    private final List<String> warnings = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final long created = System.currentTimeMillis();
+    private volatile boolean offline;
+
+    public MetadataCache(Path directory, Map<String, String> repositories, UpdatePolicy policy, int threads) {
+        this.directory = directory;
+        this.repositories = new LinkedHashMap<>(repositories);
+        this.policy = policy;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "jbuild-metadata-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Cache bajo el repositorio local con los repositorios remotos, la política de
+     * actualización y el modo offline de la configuración
+     */
+    public static MetadataCache forBuildConfig(BuildConfig config) {
+        Path localRepository = BuildConfig.resolvePath(config.getLocalRepository());
+        return new MetadataCache(localRepository.resolve(".jbuild").resolve("metadata"),
+            config.getRemoteRepositories(), UpdatePolicy.parse(config.getUpdatePolicy()),
+            Math.max(4, config.getThreads()))
+            .offline(config.isOffline());
+    }
+
+    public MetadataCache offline(boolean offline) {
+        this.offline = offline;
+        return this;
+    }
+
+    /**
+     * Contenido del maven-metadata.xml (ruta relativa al repositorio) o null si el
+     * repositorio no lo tiene
+     */
+    public byte[] get(String repositoryId, String path) throws IOException {
+        String relative = ArtifactDownloader.normalize(path);
+        Entry entry = cached(repositoryId, relative);
+        if (entry != null && (offline || isFresh(entry, System.currentTimeMillis()))) {
+            hits.incrementAndGet();
+            return entry.content;
+        }
+        if (offline) {
+            return null;
+        }
+        try {
+            return refresh(repositoryId, relative).join().content;
+        } catch (CompletionException e) {
+            if (entry != null) {
+                warnings.add("No se pudo actualizar " + relative + " de " + repositoryId
+                    + ", se usa la copia anterior: " + e.getCause().getMessage());
+                return entry.content;
+            }
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Momento de la última consulta de la entrada, o -1 si nunca se consultó
+     */
+    public long lastUpdated(String repositoryId, String path) throws IOException {
+        Entry entry = cached(repositoryId, ArtifactDownloader.normalize(path));
+        return entry != null ? entry.lastUpdated : -1;
+    }
+
+    /**
+     * Lanza en segundo plano la consulta de esas rutas en todos los repositorios donde
+     * falten o estén caducadas
+     */
+    public List<CompletableFuture<?>> prefetch(Collection<String> paths) throws IOException {
+        List<CompletableFuture<?>> started = new ArrayList<>();
+        if (offline) {
+            return started;
+        }
+        long now = System.currentTimeMillis();
+        for (String path : paths) {
+            String relative = ArtifactDownloader.normalize(path);
+            for (String repositoryId : repositories.keySet()) {
+                Entry entry = cached(repositoryId, relative);
+                if (entry == null || !isFresh(entry, now)) {
+                    started.add(refresh(repositoryId, relative));
+                }
+            }
+        }
+        return started;
+    }
+
+    /**
+     * Lanza en segundo plano la consulta de todas las entradas caducadas guardadas en disco
+     */
+    public List<CompletableFuture<?>> refreshStale() throws IOException {
+        List<CompletableFuture<?>> started = new ArrayList<>();
+        if (offline) {
+            return started;
+        }
+        long now = System.currentTimeMillis();
+        for (String repositoryId : repositories.keySet()) {
+            Path root = directory.resolve(repositoryId);
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            List<Path> statuses;
+            try (Stream<Path> walk = Files.walk(root)) {
+                statuses = walk.filter(file -> file.getFileName().toString().endsWith(STATUS_SUFFIX))
+                    .collect(Collectors.toList());
+            }
+            for (Path status : statuses) {
+                String file = root.relativize(status).toString().replace('\\', '/');
+                String relative = file.substring(0, file.length() - STATUS_SUFFIX.length());
+                Entry entry = cached(repositoryId, relative);
+                if (entry != null && !isFresh(entry, now)) {
+                    started.add(refresh(repositoryId, relative));
+                }
+            }
+        }
+        return started;
+    }
+
+    /**
+     * Versión con marca de tiempo (p. ej. 1.0-20240101.120000-3) de un artefacto snapshot,
+     * la más reciente entre los repositorios. Devuelve la versión base si ningún
+     * repositorio publica metadatos o el snapshot solo existe en local.
+     */
+    public String resolveSnapshot(String groupId, String artifactId, String version,
+                                  String extension, String classifier) throws IOException {
+        if (!version.endsWith("-SNAPSHOT")) {
+            return version;
+        }
+        String path = groupId.replace('.', '/') + "/" + artifactId + "/" + version + "/maven-metadata.xml";
+        prefetch(Collections.singletonList(path));
+        SnapshotResolution best = null;
+        for (String repositoryId : repositories.keySet()) {
+            SnapshotResolution resolution = resolveSnapshotIn(repositoryId, path, version, extension,
+                classifier == null ? "" : classifier);
+            if (resolution != null && (best == null || resolution.updated.compareTo(best.updated) > 0)) {
+                best = resolution;
+            }
+        }
+        return best != null ? best.version : version;
+    }
+
+    public UpdatePolicy getPolicy() { return policy; }
+    public List<String> getWarnings() { return new ArrayList<>(warnings); }
+    public long getHits() { return hits.get(); }
+    public long getRefreshes() { return refreshes.get(); }
+    public long getNotModified() { return notModified.get(); }
+
+    /**
+     * Termina los hilos de consulta; las consultas en curso se completan
+     */
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Resolución de un snapshot en un repositorio, reutilizada mientras no cambie su maven-metadata.xml
+     */
+    private SnapshotResolution resolveSnapshotIn(String repositoryId, String path, String version,
+                                                 String extension, String classifier) throws IOException {
+        byte[] content = get(repositoryId, path);
+        if (content == null) {
+            return null;
+        }
+        long lastUpdated = lastUpdated(repositoryId, path);
+        String key = repositoryId + "|" + path + "|" + extension + "|" + classifier;
+        SnapshotResolution known = snapshots.get(key);
+        if (known != null && known.metadataUpdated == lastUpdated) {
+            return known;
+        }
+        SnapshotResolution resolution = parseSnapshot(content, version, extension, classifier, lastUpdated);
+        if (resolution != null) {
+            snapshots.put(key, resolution);
+        }
+        return resolution;
+    }
+
+    private static SnapshotResolution parseSnapshot(byte[] content, String version, String extension,
+                                                    String classifier, long lastUpdated) throws IOException {
+        Document document;
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            document = factory.newDocumentBuilder().parse(new ByteArrayInputStream(content));
+        } catch (Exception e) {
+            throw new IOException("maven-metadata.xml no válido: " + e.getMessage(), e);
+        }
+        // Formato de Maven 3: una entrada por extensión y clasificador
+        NodeList versions = document.getElementsByTagName("snapshotVersion");
+        for (int i = 0; i < versions.getLength(); i++) {
+            Element element = (Element) versions.item(i);
+            if (extension.equals(text(element, "extension")) && classifier.equals(text(element, "classifier"))) {
+                return new SnapshotResolution(text(element, "value"), text(element, "updated"), lastUpdated);
+            }
+        }
+        // Formato de Maven 2: solo marca de tiempo y número de build
+        NodeList snapshot = document.getElementsByTagName("snapshot");
+        if (snapshot.getLength() > 0) {
+            Element element = (Element) snapshot.item(0);
+            String timestamp = text(element, "timestamp");
+            String buildNumber = text(element, "buildNumber");
+            if (!timestamp.isEmpty() && !buildNumber.isEmpty()) {
+                String base = version.substring(0, version.length() - "SNAPSHOT".length());
+                return new SnapshotResolution(base + timestamp + "-" + buildNumber,
+                    timestamp.replace(".", ""), lastUpdated);
+            }
+        }
+        return null;
+    }
+
+    private static String text(Element parent, String name) {
+        NodeList nodes = parent.getElementsByTagName(name);
+        return nodes.getLength() > 0 ? nodes.item(0).getTextContent().trim() : "";
+    }
+
+    /**
+     * Entrada de memoria o, si no está, de disco
+     */
+    private Entry cached(String repositoryId, String relative) throws IOException {
+        String key = repositoryId + "/" + relative;
+        Entry entry = memory.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        entry = load(repositoryId, relative);
+        if (entry != null) {
+            memory.putIfAbsent(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Consulta la entrada en el repositorio; las consultas simultáneas de la misma entrada se comparten
+     */
+    private CompletableFuture<Entry> refresh(String repositoryId, String relative) {
+        String base = repositories.get(repositoryId);
+        if (base == null) {
+            throw new IllegalArgumentException("Repositorio desconocido: " + repositoryId);
+        }
+        String key = repositoryId + "/" + relative;
+        CompletableFuture<Entry> future = refreshing.computeIfAbsent(key, ignored -> CompletableFuture.supplyAsync(() -> {
+            try {
+                Entry entry = fetch(base, repositoryId, relative, memory.get(key));
+                memory.put(key, entry);
+                return entry;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor));
+        future.whenComplete((entry, failure) -> refreshing.remove(key, future));
+        return future;
+    }
+
+    /**
+     * Dentro de la ventana de la política, o ya consultada durante este build (con
+     * always cada entrada se consulta una vez por build, no en cada uso)
+     */
+    private boolean isFresh(Entry entry, long now) {
+        return entry.lastUpdated >= created || !policy.isStale(entry.lastUpdated, now);
+    }
+
+    private Entry fetch(String base, String repositoryId, String relative, Entry previous) throws IOException {
+        refreshes.incrementAndGet();
+        long now = System.currentTimeMillis();
+        URLConnection connection = new URL(base.endsWith("/") ? base + relative : base + "/" + relative)
+            .openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        if (previous != null && previous.content != null && previous.lastModified > 0) {
+            connection.setIfModifiedSince(previous.lastModified);
+        }
+        Entry entry;
+        if (connection instanceof HttpURLConnection
+                && ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            notModified.incrementAndGet();
+            entry = new Entry(previous.content, now, previous.lastModified);
+        } else {
+            try (InputStream in = connection.getInputStream()) {
+                entry = new Entry(in.readAllBytes(), now, connection.getLastModified());
+            } catch (FileNotFoundException e) {
+                // La ausencia también se guarda, para no preguntar de nuevo dentro de la ventana
+                entry = new Entry(null, now, 0);
+            }
+        }
+        store(repositoryId, relative, entry);
+        return entry;
+    }
+
+    private Entry load(String repositoryId, String relative) throws IOException {
+        Path content = directory.resolve(repositoryId).resolve(relative);
+        Path status = statusFile(content);
+        if (!Files.isRegularFile(status)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(status, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        boolean found = Boolean.parseBoolean(properties.getProperty("found"));
+        if (found && !Files.isRegularFile(content)) {
+            return null;
+        }
+        try {
+            return new Entry(found ? Files.readAllBytes(content) : null,
+                Long.parseLong(properties.getProperty("lastUpdated", "0")),
+                Long.parseLong(properties.getProperty("lastModified", "0")));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Guarda primero el contenido y después el estado, para que un estado en disco
+     * siempre corresponda a un contenido completo
+     */
+    private void store(String repositoryId, String relative, Entry entry) throws IOException {
+        Path content = directory.resolve(repositoryId).resolve(relative);
+        Files.createDirectories(content.getParent());
+        if (entry.content != null) {
+            Path temp = Files.createTempFile(content.getParent(), content.getFileName().toString(), ".tmp");
+            Files.write(temp, entry.content);
+            Files.move(temp, content, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } else {
+            Files.deleteIfExists(content);
+        }
+        Properties properties = new Properties();
+        properties.setProperty("found", String.valueOf(entry.content != null));
+        properties.setProperty("lastUpdated", String.valueOf(entry.lastUpdated));
+        properties.setProperty("lastModified", String.valueOf(entry.lastModified));
+        Path status = statusFile(content);
+        Path temp = Files.createTempFile(content.getParent(), status.getFileName().toString(), ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(writer, "jbuild metadata status");
+        }
+        Files.move(temp, status, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Path statusFile(Path content) {
+        return content.resolveSibling(content.getFileName() + STATUS_SUFFIX);
+    }
+
+    private static class Entry {
+        final byte[] content;
+        final long lastUpdated;
+        final long lastModified;
+
+        Entry(byte[] content, long lastUpdated, long lastModified) {
+            this.content = content;
+            this.lastUpdated = lastUpdated;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private static class SnapshotResolution {
+        final String version;
+        final String updated;
+        final long metadataUpdated;
+
+        SnapshotResolution(String version, String updated, long metadataUpdated) {
+            this.version = version;
+            this.updated = updated;
+            this.metadataUpdated = metadataUpdated;
+        }
+    }
+}
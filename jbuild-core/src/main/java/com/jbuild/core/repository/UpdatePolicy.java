@@ -0,0 +1,79 @@
+package com.jbuild.core.repository;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cada cuánto se vuelven a consultar en los repositorios remotos los metadatos
+ * (maven-metadata.xml) de versiones snapshot y dinámicas: always, daily,
+ * interval:N (minutos) o never
+ */
+public final class UpdatePolicy {
+    public static final UpdatePolicy ALWAYS = new UpdatePolicy("always", 0);
+    public static final UpdatePolicy DAILY = new UpdatePolicy("daily", -1);
+    public static final UpdatePolicy NEVER = new UpdatePolicy("never", Long.MAX_VALUE);
+
+    private final String name;
+    private final long intervalMillis;
+
+    private UpdatePolicy(String name, long intervalMillis) {
+        this.name = name;
+        this.intervalMillis = intervalMillis;
+    }
+
+    public static UpdatePolicy interval(long minutes) {
+        if (minutes < 0) {
+            throw new IllegalArgumentException("Intervalo de actualización negativo: " + minutes);
+        }
+        return new UpdatePolicy("interval:" + minutes, TimeUnit.MINUTES.toMillis(minutes));
+    }
+
+    public static UpdatePolicy parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return DAILY;
+        }
+        String policy = value.trim().toLowerCase();
+        switch (policy) {
+            case "always":
+                return ALWAYS;
+            case "daily":
+                return DAILY;
+            case "never":
+                return NEVER;
+            default:
+                if (policy.startsWith("interval:")) {
+                    try {
+                        return interval(Long.parseLong(policy.substring("interval:".length()).trim()));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Intervalo de actualización no válido: " + value, e);
+                    }
+                }
+                throw new IllegalArgumentException("Política de actualización desconocida: " + value);
+        }
+    }
+
+    /**
+     * Si un valor consultado por última vez en lastUpdated debe consultarse de nuevo.
+     * Con daily caduca al empezar el día siguiente, como en Maven.
+     */
+    public boolean isStale(long lastUpdated, long now) {
+        if (intervalMillis == Long.MAX_VALUE) {
+            return false;
+        }
+        if (intervalMillis < 0) {
+            ZoneId zone = ZoneId.systemDefault();
+            long startOfDay = Instant.ofEpochMilli(now).atZone(zone).toLocalDate()
+                .atStartOfDay(zone).toInstant().toEpochMilli();
+            return lastUpdated < startOfDay;
+        }
+        return now - lastUpdated >= intervalMillis;
+    }
+
+    public String getName() { return name; }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,136 @@
+package com.jbuild.core.repository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registro de los artefactos del repositorio local cuyo checksum ya se comprobó,
+ * con el tamaño y la fecha de modificación que tenían entonces. Mientras no cambien,
+ * el artefacto se da por verificado sin volver a leerlo. También se registran, con el
+ * algoritmo {@value #NO_CHECKSUM}, los que no tienen checksum en ningún sitio (p. ej.
+ * instalados localmente), para no volver a buscarlo en cada resolución, y con
+ * {@value #MISMATCH_ACCEPTED} los aceptados con aviso pese a no coincidir su checksum.
+ * <p>
+ * Es un archivo de texto al que solo se añaden líneas (la última de cada ruta manda);
+ * se compacta al cargarlo cuando acumula demasiadas líneas repetidas.
+ */
+class VerifiedArtifacts {
+    static final String NO_CHECKSUM = "none";
+    static final String MISMATCH_ACCEPTED = "mismatch-accepted";
+    private static final String HEADER = "# jbuild verified artifacts v1";
+
+    private final Path file;
+    private Map<String, Entry> entries;
+
+    VerifiedArtifacts(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Si el archivo sigue siendo el mismo que se verificó para esa ruta
+     *
+     * @param acceptMismatch si cuentan los aceptados con un checksum incorrecto
+     */
+    synchronized boolean isVerified(String path, Path artifact, boolean acceptMismatch) throws IOException {
+        Entry entry = entries().get(path);
+        if (entry == null || !Files.isRegularFile(artifact)
+                || (!acceptMismatch && MISMATCH_ACCEPTED.equals(entry.algorithm))) {
+            return false;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(artifact, BasicFileAttributes.class);
+        return entry.size == attributes.size() && entry.modified == attributes.lastModifiedTime().toMillis();
+    }
+
+    synchronized void record(String path, Path artifact, String algorithm, String checksum) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(artifact, BasicFileAttributes.class);
+        Entry entry = new Entry(algorithm, checksum, attributes.size(), attributes.lastModifiedTime().toMillis());
+        entries().put(path, entry);
+        Files.createDirectories(file.getParent());
+        boolean created = !Files.exists(file);
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (created) {
+                writer.write(HEADER + "\n");
+            }
+            writer.write(line(path, entry));
+        }
+    }
+
+    synchronized void forget(String path) {
+        if (entries != null) {
+            entries.remove(path);
+        }
+    }
+
+    private Map<String, Entry> entries() throws IOException {
+        if (entries != null) {
+            return entries;
+        }
+        entries = new HashMap<>();
+        if (!Files.isRegularFile(file)) {
+            return entries;
+        }
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                lines++;
+                // algoritmo checksum tamaño fecha ruta (la ruta puede contener espacios)
+                String[] fields = line.split(" ", 5);
+                if (fields.length < 5) {
+                    continue;
+                }
+                try {
+                    entries.put(fields[4], new Entry(fields[0], fields[1],
+                        Long.parseLong(fields[2]), Long.parseLong(fields[3])));
+                } catch (NumberFormatException e) {
+                    // Línea incompleta de una escritura interrumpida
+                }
+            }
+        }
+        if (lines > 2 * entries.size() + 100) {
+            compact();
+        }
+        return entries;
+    }
+
+    private void compact() throws IOException {
+        Path temp = Files.createTempFile(file.getParent(), "verified", ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(HEADER + "\n");
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writer.write(line(entry.getKey(), entry.getValue()));
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String line(String path, Entry entry) {
+        return entry.algorithm + " " + entry.checksum + " " + entry.size + " " + entry.modified + " " + path + "\n";
+    }
+
+    private static class Entry {
+        final String algorithm;
+        final String checksum;
+        final long size;
+        final long modified;
+
+        Entry(String algorithm, String checksum, long size, long modified) {
+            this.algorithm = algorithm;
+            this.checksum = checksum;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+}
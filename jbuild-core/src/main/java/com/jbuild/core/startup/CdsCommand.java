@@ -0,0 +1,80 @@
+package com.jbuild.core.startup;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Genera (o reutiliza si está al día) un archivo CDS e imprime su ruta. jbuild.sh lo usa
+ * para el classpath de jbuild con {@link CdsTraining} como entrenamiento.
+ * <pre>
+ *   CdsCommand --directory dir [--name jbuild] (--classpath cp --main clase | --jar app.jar)
+ *       [--timeout segundos] [-- argumentos de entrenamiento...]
+ * </pre>
+ */
+public class CdsCommand {
+
+    public static void main(String[] args) throws Exception {
+        ClassDataSharingArchive archive = ClassDataSharingArchive.builder();
+        boolean hasDirectory = false;
+        int i = 0;
+        for (; i < args.length && !args[i].equals("--"); i += 2) {
+            if (i + 1 >= args.length) {
+                usage("Falta el valor de " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--directory":
+                    archive.directory(Paths.get(value));
+                    hasDirectory = true;
+                    break;
+                case "--name":
+                    archive.name(value);
+                    break;
+                case "--classpath":
+                    for (String entry : value.split(File.pathSeparator)) {
+                        if (!entry.isEmpty()) {
+                            archive.classpath(Paths.get(entry));
+                        }
+                    }
+                    break;
+                case "--main":
+                    archive.mainClass(value);
+                    break;
+                case "--jar":
+                    archive.jar(Paths.get(value));
+                    break;
+                case "--timeout":
+                    archive.trainingTimeoutSeconds(Long.parseLong(value));
+                    break;
+                default:
+                    usage("Argumento desconocido: " + args[i]);
+            }
+        }
+        if (!hasDirectory) {
+            usage("Falta --directory");
+        }
+        List<String> training = new ArrayList<>();
+        if (i < args.length) {
+            training.addAll(Arrays.asList(args).subList(i + 1, args.length));
+        }
+        archive.trainingArguments(training);
+
+        boolean current = archive.isCurrent();
+        long start = System.currentTimeMillis();
+        Path generated = archive.generate();
+        System.err.println(current ? "Archivo CDS al día" : "Archivo CDS generado en "
+            + (System.currentTimeMillis() - start) + " ms");
+        System.out.println(generated.toAbsolutePath());
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Uso: CdsCommand --directory <dir> [--name <nombre>] "
+            + "(--classpath <cp> --main <clase> | --jar <app.jar>) [--timeout <s>] [-- argumentos...]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,91 @@
+package com.jbuild.core.startup;
+
+import com.jbuild.core.compiler.InProcessModuleCompiler;
+import com.jbuild.core.compiler.ModuleCompilation;
+import com.jbuild.core.compiler.ModuleCompilationResult;
+import com.jbuild.core.graph.ModuleGraph;
+import com.jbuild.core.metrics.BuildMetrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Carga de entrenamiento del archivo CDS de jbuild: un build pequeño de dos módulos
+ * en un directorio temporal que recorre las partes de arranque más costosas (javac,
+ * grafo de módulos, métricas), para que sus clases queden en el archivo.
+ */
+public class CdsTraining {
+
+    public static void main(String[] args) throws Exception {
+        Path workspace = Files.createTempDirectory("jbuild-cds-training");
+        try {
+            run(workspace);
+        } finally {
+            deleteRecursively(workspace);
+        }
+    }
+
+    private static void run(Path workspace) throws IOException {
+        Path core = write(workspace.resolve("core/src/training/core/Greeting.java"),
+            "package training.core;\n"
+                + "public interface Greeting { String greet(String name); }\n");
+        Path app = write(workspace.resolve("app/src/training/app/Main.java"),
+            "package training.app;\n"
+                + "import java.util.List;\n"
+                + "import java.util.stream.Collectors;\n"
+                + "public class Main implements training.core.Greeting {\n"
+                + "    public String greet(String name) { return \"hola \" + name; }\n"
+                + "    public static void main(String[] args) {\n"
+                + "        System.out.println(List.of(args).stream().map(new Main()::greet).collect(Collectors.joining()));\n"
+                + "    }\n"
+                + "}\n");
+
+        Map<String, List<String>> dependencies = new LinkedHashMap<>();
+        dependencies.put("core", Collections.emptyList());
+        dependencies.put("app", Collections.singletonList("core"));
+        ModuleGraph graph = ModuleGraph.of(dependencies);
+        graph.transitiveClosure();
+
+        List<ModuleCompilation> modules = Arrays.asList(
+            ModuleCompilation.builder().name("core")
+                .sourceDirectory(core.getParent().getParent().getParent())
+                .outputDirectory(workspace.resolve("core/classes")),
+            ModuleCompilation.builder().name("app").dependsOn("core")
+                .sourceDirectory(app.getParent().getParent().getParent())
+                .outputDirectory(workspace.resolve("app/classes")));
+        try (InProcessModuleCompiler compiler = new InProcessModuleCompiler()) {
+            for (ModuleCompilationResult result : compiler.compileAll(modules)) {
+                if (!result.isSuccess()) {
+                    throw new IllegalStateException("Falló el build de entrenamiento: " + result.getDiagnostics());
+                }
+            }
+            compiler.awaitWrites();
+        }
+        BuildMetrics.shared().prometheusText();
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        return file;
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(path)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path current : paths) {
+            Files.deleteIfExists(current);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.jbuild.core.startup;
+
+import com.jbuild.core.dsl.type_safe.config.JarConfig;
+import com.jbuild.core.remote.Digest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Archivo AppCDS (Class Data Sharing) de un classpath, generado con una ejecución de
+ * entrenamiento y {@code -XX:ArchiveClassesAtExit}. Con el archivo, la JVM arranca con
+ * las clases ya analizadas y verificadas en lugar de cargarlas de los JAR.
+ * <p>
+ * Junto al archivo ({@code nombre.jsa}) se guarda el hash del classpath
+ * ({@code nombre.jsa.sha256}): ruta, tamaño y fecha en segundos del ejecutable java y
+ * de cada entrada, una por línea, como {@code stat -c '%n %s %Y'}. Es lo mismo que la
+ * JVM comprueba al usar el archivo, así que un hash distinto invalida el archivo y el
+ * lanzador puede comprobarlo sin arrancar una JVM.
+ */
+public class ClassDataSharingArchive {
+    public static final String ARCHIVE_SUFFIX = ".jsa";
+    public static final String HASH_SUFFIX = ".jsa.sha256";
+
+    private Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+    private String name = "app";
+    private Path directory;
+    private final List<Path> classpath = new ArrayList<>();
+    private Path jar;
+    private String mainClass;
+    private final List<String> jvmOptions = new ArrayList<>();
+    private final List<String> trainingArguments = new ArrayList<>();
+    private long trainingTimeoutSeconds = 60;
+
+    public ClassDataSharingArchive() {}
+
+    public static ClassDataSharingArchive builder() {
+        return new ClassDataSharingArchive();
+    }
+
+    /**
+     * Archivo para un JAR ejecutable, junto al propio JAR. El entrenamiento lo arranca
+     * con {@code java -jar} y los argumentos de entrenamiento de la configuración.
+     */
+    public static ClassDataSharingArchive forExecutableJar(Path jar, JarConfig jarConfig) {
+        String fileName = jar.getFileName().toString();
+        return new ClassDataSharingArchive()
+            .name(fileName.endsWith(".jar") ? fileName.substring(0, fileName.length() - 4) : fileName)
+            .directory(jar.toAbsolutePath().getParent())
+            .jar(jar)
+            .trainingArguments(jarConfig.getCdsTrainingArguments());
+    }
+
+    public ClassDataSharingArchive java(Path java) {
+        this.java = java;
+        return this;
+    }
+
+    public ClassDataSharingArchive name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public ClassDataSharingArchive directory(Path directory) {
+        this.directory = directory;
+        return this;
+    }
+
+    public ClassDataSharingArchive classpath(Path entry) {
+        this.classpath.add(entry);
+        return this;
+    }
+
+    public ClassDataSharingArchive classpath(List<Path> entries) {
+        this.classpath.addAll(entries);
+        return this;
+    }
+
+    /**
+     * JAR ejecutable: se entrena con {@code -jar} y el classpath es el propio JAR
+     */
+    public ClassDataSharingArchive jar(Path jar) {
+        this.jar = jar;
+        return this;
+    }
+
+    public ClassDataSharingArchive mainClass(String mainClass) {
+        this.mainClass = mainClass;
+        return this;
+    }
+
+    public ClassDataSharingArchive jvmOption(String... options) {
+        this.jvmOptions.addAll(Arrays.asList(options));
+        return this;
+    }
+
+    public ClassDataSharingArchive trainingArguments(List<String> arguments) {
+        this.trainingArguments.addAll(arguments);
+        return this;
+    }
+
+    /**
+     * Tiempo máximo de entrenamiento; al agotarse se detiene la JVM con SIGTERM, que
+     * igualmente escribe el archivo al salir (útil con servicios que no terminan solos)
+     */
+    public ClassDataSharingArchive trainingTimeoutSeconds(long seconds) {
+        this.trainingTimeoutSeconds = seconds;
+        return this;
+    }
+
+    public Path getArchive() { return directory.resolve(name + ARCHIVE_SUFFIX); }
+    public Path getHashFile() { return directory.resolve(name + HASH_SUFFIX); }
+
+    /**
+     * Si el archivo existe y se generó para el classpath actual
+     */
+    public boolean isCurrent() throws IOException {
+        Path hashFile = getHashFile();
+        return Files.isRegularFile(getArchive()) && Files.isRegularFile(hashFile)
+            && Files.readString(hashFile, StandardCharsets.UTF_8).trim().equals(classpathHash());
+    }
+
+    /**
+     * Opciones de la JVM para usar el archivo, vacías si no está al día. Con
+     * -Xshare:auto la JVM arranca igualmente si no puede usarlo.
+     */
+    public List<String> runtimeOptions() throws IOException {
+        if (!isCurrent()) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList("-XX:SharedArchiveFile=" + getArchive().toAbsolutePath(), "-Xshare:auto");
+    }
+
+    /**
+     * Genera el archivo si no está al día con el classpath y devuelve su ruta
+     */
+    public Path generate() throws IOException, InterruptedException {
+        if (directory == null) {
+            throw new IllegalStateException("Falta el directorio del archivo CDS");
+        }
+        if (jar == null && mainClass == null) {
+            throw new IllegalStateException("Falta la clase principal o el JAR del entrenamiento");
+        }
+        if (isCurrent()) {
+            return getArchive();
+        }
+        Files.createDirectories(directory);
+        Files.deleteIfExists(getHashFile());
+        Files.deleteIfExists(getArchive());
+
+        String hash = classpathHash();
+        Path temp = directory.resolve(name + ".tmp" + ARCHIVE_SUFFIX);
+        Files.deleteIfExists(temp);
+        Path log = directory.resolve(name + ".training.log");
+
+        List<String> command = new ArrayList<>();
+        command.add(java.toString());
+        command.add("-XX:ArchiveClassesAtExit=" + temp.toAbsolutePath());
+        command.addAll(jvmOptions);
+        if (jar != null) {
+            command.add("-jar");
+            command.add(jar.toAbsolutePath().toString());
+        } else {
+            command.add("-cp");
+            command.add(joinClasspath());
+            command.add(mainClass);
+        }
+        command.addAll(trainingArguments);
+
+        Process process = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(log.toFile())
+            .start();
+        if (!process.waitFor(trainingTimeoutSeconds, TimeUnit.SECONDS)) {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+        if (!Files.isRegularFile(temp) || Files.size(temp) == 0) {
+            throw new IOException("El entrenamiento no generó el archivo CDS (código " + process.exitValue()
+                + "), ver " + log);
+        }
+        Files.move(temp, getArchive(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // El hash se escribe al final: un hash presente siempre corresponde a un archivo completo
+        Path hashTemp = Files.createTempFile(directory, name, ".tmp");
+        Files.writeString(hashTemp, hash + "\n", StandardCharsets.UTF_8);
+        Files.move(hashTemp, getHashFile(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return getArchive();
+    }
+
+    /**
+     * Hash del ejecutable java y del classpath, igual al que calcula el lanzador con
+     * {@code stat -c '%n %s %Y'} sobre {@code realpath -ms} de cada entrada y
+     * {@code sha256sum}
+     */
+    public String classpathHash() throws IOException {
+        StringBuilder stamp = new StringBuilder();
+        appendStamp(stamp, java.toRealPath());
+        for (Path entry : effectiveClasspath()) {
+            appendStamp(stamp, entry.toAbsolutePath().normalize());
+        }
+        return Digest.hex(Digest.sha256().digest(stamp.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private List<Path> effectiveClasspath() {
+        return jar != null ? Collections.singletonList(jar) : classpath;
+    }
+
+    private String joinClasspath() {
+        StringBuilder joined = new StringBuilder();
+        for (Path entry : classpath) {
+            if (joined.length() > 0) {
+                joined.append(File.pathSeparatorChar);
+            }
+            joined.append(entry.toAbsolutePath());
+        }
+        return joined.toString();
+    }
+
+    private static void appendStamp(StringBuilder stamp, Path path) throws IOException {
+        if (Files.exists(path)) {
+            stamp.append(path).append(' ').append(Files.size(path)).append(' ')
+                .append(Files.getLastModifiedTime(path).to(TimeUnit.SECONDS)).append('\n');
+        } else {
+            stamp.append(path).append(" missing\n");
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.jbuild.core.testing;
+
+import com.jbuild.core.metrics.BuildMetrics;
+import com.jbuild.core.metrics.Counter;
+import com.jbuild.core.remote.Digest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Cache de resultados de tests indexada por el hash de sus entradas: clases de test,
+ * classpath de ejecución, recursos de test, opciones y propiedades de la JVM.
+ * <p>
+ * Si las entradas no han cambiado se devuelven el resultado y los informes guardados
+ * sin volver a ejecutar los tests. Solo se guardan las ejecuciones correctas: un test
+ * fallido se vuelve a ejecutar siempre.
+ */
+public class TestResultCache {
+    private static final int FORMAT_VERSION = 1;
+    private static final String RESULT_FILE = "result.properties";
+    private static final String REPORTS_DIRECTORY = "reports";
+
+    /**
+     * Propiedades del entorno que pueden cambiar el resultado aunque no se pasen a la JVM de tests
+     */
+    private static final List<String> ENVIRONMENT_PROPERTIES = Arrays.asList(
+        "java.version", "java.vendor", "os.name", "os.arch", "file.encoding");
+
+    /**
+     * Ejecución real de los tests de un módulo
+     */
+    public interface TestExecution {
+        TestRunResult run() throws Exception;
+    }
+
+    private final Path directory;
+    private final Map<String, String> fileHashes = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Counter hitCounter = BuildMetrics.shared().cacheHits("test");
+    private final Counter missCounter = BuildMetrics.shared().cacheMisses("test");
+
+    public TestResultCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Ejecuta los tests, o recupera su resultado e informes si ya se ejecutaron con las mismas entradas
+     */
+    public TestRunResult run(TestTaskInputs inputs, TestExecution execution) throws Exception {
+        String key = key(inputs);
+        TestRunResult cached = replay(key, inputs);
+        if (cached != null) {
+            hits.incrementAndGet();
+            hitCounter.increment();
+            return cached;
+        }
+        misses.incrementAndGet();
+        missCounter.increment();
+        // Solo se guardan los informes de esta ejecución, no los que quedaran de otra
+        if (inputs.getReportDirectory() != null) {
+            deleteRecursively(inputs.getReportDirectory());
+        }
+        TestRunResult result = execution.run();
+        if (result.isSuccess()) {
+            store(key, inputs, result);
+        }
+        return result;
+    }
+
+    /**
+     * Clave de cache de las entradas. Las rutas del classpath no forman parte de la clave,
+     * solo su contenido y su orden, para que la cache sirva entre máquinas distintas.
+     */
+    public String key(TestTaskInputs inputs) throws IOException {
+        MessageDigest digest = Digest.sha256();
+        update(digest, "format:" + FORMAT_VERSION);
+        update(digest, "module:" + inputs.getModule());
+        update(digest, "classes:" + hashPath(inputs.getTestClassesDirectory()));
+        for (Path entry : inputs.getRuntimeClasspath()) {
+            update(digest, "classpath:" + hashPath(entry));
+        }
+        for (Path resources : inputs.getTestResourceDirectories()) {
+            update(digest, "resources:" + hashPath(resources));
+        }
+        for (String option : inputs.getJvmOptions()) {
+            update(digest, "jvm:" + option);
+        }
+        for (Map.Entry<String, String> property : inputs.getSystemProperties().entrySet()) {
+            update(digest, "property:" + property.getKey() + "=" + property.getValue());
+        }
+        for (String property : ENVIRONMENT_PROPERTIES) {
+            update(digest, "environment:" + property + "=" + System.getProperty(property, ""));
+        }
+        return Digest.hex(digest.digest());
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private TestRunResult replay(String key, TestTaskInputs inputs) throws IOException {
+        Path entry = entryPath(key);
+        Path resultFile = entry.resolve(RESULT_FILE);
+        if (!Files.isRegularFile(resultFile)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(resultFile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        if (!String.valueOf(FORMAT_VERSION).equals(properties.getProperty("format"))) {
+            return null;
+        }
+        Path reports = entry.resolve(REPORTS_DIRECTORY);
+        if (inputs.getReportDirectory() != null && Files.isDirectory(reports)) {
+            deleteRecursively(inputs.getReportDirectory());
+            copyRecursively(reports, inputs.getReportDirectory());
+        }
+        return new TestRunResult(true,
+            Integer.parseInt(properties.getProperty("tests", "0")),
+            Integer.parseInt(properties.getProperty("failures", "0")),
+            Integer.parseInt(properties.getProperty("errors", "0")),
+            Integer.parseInt(properties.getProperty("skipped", "0")),
+            Long.parseLong(properties.getProperty("duration", "0")),
+            true);
+    }
+
+    private void store(String key, TestTaskInputs inputs, TestRunResult result) throws IOException {
+        Path entry = entryPath(key);
+        if (Files.exists(entry)) {
+            return;
+        }
+        Files.createDirectories(entry.getParent());
+        // Se prepara en un directorio temporal para que nunca se vea una entrada a medias
+        Path temp = Files.createTempDirectory(entry.getParent(), key);
+        try {
+            if (inputs.getReportDirectory() != null && Files.isDirectory(inputs.getReportDirectory())) {
+                copyRecursively(inputs.getReportDirectory(), temp.resolve(REPORTS_DIRECTORY));
+            }
+            Properties properties = new Properties();
+            properties.setProperty("format", String.valueOf(FORMAT_VERSION));
+            properties.setProperty("module", String.valueOf(inputs.getModule()));
+            properties.setProperty("tests", String.valueOf(result.getTests()));
+            properties.setProperty("failures", String.valueOf(result.getFailures()));
+            properties.setProperty("errors", String.valueOf(result.getErrors()));
+            properties.setProperty("skipped", String.valueOf(result.getSkipped()));
+            properties.setProperty("duration", String.valueOf(result.getDurationMillis()));
+            try (Writer writer = Files.newBufferedWriter(temp.resolve(RESULT_FILE), StandardCharsets.UTF_8)) {
+                properties.store(writer, "jbuild test result");
+            }
+            Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteRecursively(temp);
+            if (!Files.exists(entry)) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Hash del contenido de un archivo o de un directorio (rutas relativas y contenido de
+     * cada archivo, en orden)
+     */
+    private String hashPath(Path path) throws IOException {
+        if (path == null || !Files.exists(path)) {
+            return "missing";
+        }
+        if (!Files.isDirectory(path)) {
+            return hashFile(path);
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(path)) {
+            files = walk.filter(Files::isRegularFile)
+                .sorted(Comparator.comparing(file -> path.relativize(file).toString()))
+                .collect(Collectors.toList());
+        }
+        MessageDigest digest = Digest.sha256();
+        for (Path file : files) {
+            update(digest, path.relativize(file).toString().replace('\\', '/'));
+            update(digest, hashFile(file));
+        }
+        return Digest.hex(digest.digest());
+    }
+
+    /**
+     * Hash de un archivo, reutilizado mientras no cambien su tamaño ni su fecha de modificación
+     */
+    private String hashFile(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        String stamp = file.toAbsolutePath() + "|" + attributes.size() + "|" + attributes.lastModifiedTime().toMillis();
+        String known = fileHashes.get(stamp);
+        if (known != null) {
+            return known;
+        }
+        MessageDigest digest = Digest.sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        String hash = Digest.hex(digest.digest());
+        fileHashes.put(stamp, hash);
+        return hash;
+    }
+
+    private static void copyRecursively(Path source, Path target) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(source)) {
+            paths = walk.collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            Path destination = target.resolve(source.relativize(path).toString());
+            if (Files.isDirectory(path)) {
+                Files.createDirectories(destination);
+            } else {
+                try (InputStream in = Files.newInputStream(path);
+                     OutputStream out = Files.newOutputStream(destination)) {
+                    in.transferTo(out);
+                }
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(path)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path current : paths) {
+            Files.deleteIfExists(current);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
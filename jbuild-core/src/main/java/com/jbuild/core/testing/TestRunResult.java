@@ -0,0 +1,48 @@
+package com.jbuild.core.testing;
+
+/**
+ * Resultado de ejecutar (o recuperar de la cache) los tests de un módulo
+ */
+public class TestRunResult {
+    private final boolean success;
+    private final int tests;
+    private final int failures;
+    private final int errors;
+    private final int skipped;
+    private final long durationMillis;
+    private final boolean fromCache;
+
+    public TestRunResult(boolean success, int tests, int failures, int errors, int skipped, long durationMillis) {
+        this(success, tests, failures, errors, skipped, durationMillis, false);
+    }
+
+    TestRunResult(boolean success, int tests, int failures, int errors, int skipped,
+                  long durationMillis, boolean fromCache) {
+        this.success = success;
+        this.tests = tests;
+        this.failures = failures;
+        this.errors = errors;
+        this.skipped = skipped;
+        this.durationMillis = durationMillis;
+        this.fromCache = fromCache;
+    }
+
+    // Getters
+    public boolean isSuccess() { return success; }
+    public int getTests() { return tests; }
+    public int getFailures() { return failures; }
+    public int getErrors() { return errors; }
+    public int getSkipped() { return skipped; }
+
+    /**
+     * Duración de la ejecución original, también cuando el resultado viene de la cache
+     */
+    public long getDurationMillis() { return durationMillis; }
+    public boolean isFromCache() { return fromCache; }
+
+    @Override
+    public String toString() {
+        return (success ? "OK" : "FALLÓ") + " (tests: " + tests + ", fallos: " + failures + ", errores: " + errors
+            + ", omitidos: " + skipped + ", " + durationMillis + " ms" + (fromCache ? ", desde cache" : "") + ")";
+    }
+}
@@ -0,0 +1,102 @@
+package com.jbuild.core.testing;
+
+import com.jbuild.core.dsl.type_safe.BuildConfig;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Entradas de la tarea de tests de un módulo: todo lo que puede cambiar su resultado
+ */
+public class TestTaskInputs {
+    private String module;
+    private Path testClassesDirectory;
+    private final List<Path> runtimeClasspath = new ArrayList<>();
+    private final List<Path> testResourceDirectories = new ArrayList<>();
+    private final List<String> jvmOptions = new ArrayList<>();
+    private final Map<String, String> systemProperties = new TreeMap<>();
+    private Path reportDirectory;
+
+    public TestTaskInputs() {}
+
+    public static TestTaskInputs builder() {
+        return new TestTaskInputs();
+    }
+
+    /**
+     * Entradas con los directorios de clases y recursos de test del BuildConfig, relativos
+     * a baseDirectory; los informes van a tests/módulo dentro de su directorio de informes
+     */
+    public static TestTaskInputs fromBuildConfig(String module, Path baseDirectory, BuildConfig config) {
+        TestTaskInputs inputs = builder()
+            .module(module)
+            .testClassesDirectory(baseDirectory.resolve(config.getTestOutputDirectory()))
+            .reportDirectory(baseDirectory.resolve(config.getReportDirectory()).resolve("tests").resolve(module));
+        for (String directory : config.getTestResources()) {
+            inputs.testResourceDirectory(baseDirectory.resolve(directory));
+        }
+        return inputs;
+    }
+
+    public TestTaskInputs module(String module) {
+        this.module = module;
+        return this;
+    }
+
+    public TestTaskInputs testClassesDirectory(Path directory) {
+        this.testClassesDirectory = directory;
+        return this;
+    }
+
+    public TestTaskInputs classpath(Path entry) {
+        runtimeClasspath.add(entry);
+        return this;
+    }
+
+    public TestTaskInputs classpath(List<Path> entries) {
+        runtimeClasspath.addAll(entries);
+        return this;
+    }
+
+    public TestTaskInputs testResourceDirectory(Path directory) {
+        testResourceDirectories.add(directory);
+        return this;
+    }
+
+    public TestTaskInputs jvmOption(String... options) {
+        for (String option : options) {
+            jvmOptions.add(option);
+        }
+        return this;
+    }
+
+    /**
+     * Propiedad de sistema pasada a la JVM de tests
+     */
+    public TestTaskInputs systemProperty(String key, String value) {
+        systemProperties.put(key, value);
+        return this;
+    }
+
+    /**
+     * Directorio propio de los informes de la tarea; se guarda y se restaura con el
+     * resultado. Se vacía antes de ejecutar y al restaurar, así que no debe compartirse
+     * con otras tareas ni módulos.
+     */
+    public TestTaskInputs reportDirectory(Path directory) {
+        this.reportDirectory = directory;
+        return this;
+    }
+
+    // Getters
+    public String getModule() { return module; }
+    public Path getTestClassesDirectory() { return testClassesDirectory; }
+    public List<Path> getRuntimeClasspath() { return new ArrayList<>(runtimeClasspath); }
+    public List<Path> getTestResourceDirectories() { return new ArrayList<>(testResourceDirectories); }
+    public List<String> getJvmOptions() { return new ArrayList<>(jvmOptions); }
+    public Map<String, String> getSystemProperties() { return new TreeMap<>(systemProperties); }
+    public Path getReportDirectory() { return reportDirectory; }
+}
@@ -0,0 +1,90 @@
+package com.jbuild.core.graph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmark de {@link ModuleGraph} sobre un grafo sintético por capas, parecido al de
+ * un monorepo: cada módulo depende de unos pocos módulos de capas anteriores, con
+ * preferencia por los cercanos.
+ * <pre>
+ *   ModuleGraphBenchmark [módulos=50000] [dependencias por módulo=6] [semilla=42]
+ * </pre>
+ */
+public class ModuleGraphBenchmark {
+    private static final int ITERATIONS = 5;
+    private static final int SAMPLE = 1000;
+
+    public static void main(String[] args) {
+        int modules = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        Map<String, List<String>> dependencies = syntheticGraph(modules, degree, seed);
+        System.out.println("Grafo sintético: " + modules + " módulos, hasta " + degree + " dependencias por módulo");
+
+        for (int iteration = 1; iteration <= ITERATIONS; iteration++) {
+            long start = System.nanoTime();
+            ModuleGraph graph = ModuleGraph.of(dependencies);
+            long built = System.nanoTime();
+            int[] order = graph.topologicalOrder();
+            long sorted = System.nanoTime();
+            int maxDepth = 0;
+            for (int depth : graph.depths()) {
+                maxDepth = Math.max(maxDepth, depth);
+            }
+            long depths = System.nanoTime();
+
+            Random random = new Random(seed + iteration);
+            long reached = 0;
+            for (int i = 0; i < SAMPLE; i++) {
+                reached += graph.transitiveDependencies(random.nextInt(modules)).cardinality();
+            }
+            long closures = System.nanoTime();
+            BitSet changed = new BitSet(modules);
+            for (int i = 0; i < 20; i++) {
+                changed.set(random.nextInt(modules));
+            }
+            int affected = graph.transitiveDependents(changed).cardinality();
+            long dependents = System.nanoTime();
+
+            System.out.printf("#%d construcción %.1f ms, orden topológico %.1f ms (%d), profundidades %.1f ms"
+                    + " (máx. %d), %d cierres %.1f ms (media %d), dependientes de 20 módulos %.1f ms (%d)%n",
+                iteration, millis(start, built), millis(built, sorted), order.length, millis(sorted, depths),
+                maxDepth, SAMPLE, millis(depths, closures), reached / SAMPLE, millis(closures, dependents), affected);
+        }
+
+        // Detección de ciclos: se cierra un ciclo largo y se mide cuánto cuesta encontrarlo
+        dependencies.get("module-0").add("module-" + (modules - 1));
+        long start = System.nanoTime();
+        try {
+            ModuleGraph.of(dependencies).topologicalOrder();
+        } catch (ModuleGraph.CycleException e) {
+            System.out.printf("Ciclo de %d módulos detectado en %.1f ms%n",
+                e.getCycle().size() - 1, millis(start, System.nanoTime()));
+        }
+    }
+
+    static Map<String, List<String>> syntheticGraph(int modules, int degree, long seed) {
+        Random random = new Random(seed);
+        Map<String, List<String>> dependencies = new LinkedHashMap<>();
+        for (int module = 0; module < modules; module++) {
+            List<String> moduleDependencies = new ArrayList<>();
+            int count = module == 0 ? 0 : random.nextInt(degree + 1);
+            for (int i = 0; i < count; i++) {
+                // Distancia con distribución sesgada hacia módulos cercanos
+                int distance = 1 + (int) Math.min(module - 1, Math.abs(random.nextGaussian()) * 200);
+                moduleDependencies.add("module-" + (module - distance));
+            }
+            dependencies.put("module-" + module, moduleDependencies);
+        }
+        return dependencies;
+    }
+
+    private static double millis(long from, long to) {
+        return (to - from) / 1_000_000.0;
+    }
+}
@@ -10,6 +10,7 @@ set -e
 SCRIPT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)"
 PROJECT_NAME="JBuild Multi-Module System"
 VERSION="1.1.0"
+JBUILD_CDS_DIR="${JBUILD_CDS_DIR:-$HOME/.jbuild/cds}"
 
 # Colores para output
 RED='\033[0;31m'
@@ -41,6 +42,9 @@ show_help() {
     echo -e "  ${BLUE}jbuild.sh info${NC}           - Mostrar información del proyecto"
     echo -e "  ${BLUE}jbuild.sh run${NC}            - Ejecutar aplicación compilada"
     echo -e "  ${BLUE}jbuild.sh examples${NC}       - Ejecutar ejemplos"
+    echo -e "  ${BLUE}jbuild.sh cds${NC}            - Generar el archivo CDS para arrancar jbuild más rápido"
+    echo -e "  ${BLUE}jbuild.sh affected${NC}       - Módulos afectados por los cambios (--base <revisión>)"
+    echo -e "  ${BLUE}jbuild.sh regressions${NC}    - Comparar el último build con el historial"
     echo -e "  ${BLUE}jbuild.sh help${NC}           - Mostrar esta ayuda"
     echo -e "  ${BLUE}jbuild.sh version${NC}        - Mostrar versión"
     echo ""
@@ -63,6 +67,67 @@ show_help() {
     echo ""
 }
 
+# Classpath de las herramientas Java de jbuild (JBUILD_CLASSPATH lo sustituye)
+jbuild_classpath() {
+    if [ -n "$JBUILD_CLASSPATH" ]; then
+        echo "$JBUILD_CLASSPATH"
+        return
+    fi
+    find "$SCRIPT_DIR/lib" "$SCRIPT_DIR"/jbuild-*/target -maxdepth 1 -name '*.jar' 2>/dev/null | sort | tr '\n' ':' | sed 's/:$//'
+}
+
+# Opciones del archivo CDS de jbuild si se generó para el classpath y el java actuales.
+# El hash es el mismo que calcula ClassDataSharingArchive: stat del ejecutable java y de cada
+# entrada como ruta absoluta normalizada (sin resolver enlaces), o "<ruta> missing" si no existe.
+cds_options() {
+    local archive="$JBUILD_CDS_DIR/jbuild.jsa"
+    local hash_file="$JBUILD_CDS_DIR/jbuild.jsa.sha256"
+    [ -f "$archive" ] && [ -f "$hash_file" ] || return 0
+    local java_bin
+    java_bin="$(readlink -f "$(command -v java)")"
+    local current
+    current="$( {
+        stat -c '%n %s %Y' "$java_bin"
+        tr ':' '\n' <<< "$1" | grep -v '^$' | while IFS= read -r entry; do
+            entry="$(realpath -ms "$entry")"
+            stat -c '%n %s %Y' "$entry" 2>/dev/null || echo "$entry missing"
+        done
+    } | sha256sum | cut -d' ' -f1)"
+    if [ "$current" = "$(cat "$hash_file")" ]; then
+        echo "-XX:SharedArchiveFile=$archive -Xshare:auto"
+    else
+        # Classpath o JDK distintos: el archivo ya no sirve
+        rm -f "$archive" "$hash_file"
+    fi
+}
+
+# Ejecuta una herramienta Java de jbuild con el archivo CDS si está al día
+jbuild_java() {
+    local classpath
+    classpath="$(jbuild_classpath)"
+    if [ -z "$classpath" ]; then
+        echo -e "${RED}❌ No se encontraron los JAR de jbuild (compilar jbuild-core o definir JBUILD_CLASSPATH)${NC}"
+        return 1
+    fi
+    # shellcheck disable=SC2046
+    java $(cds_options "$classpath") $JBUILD_JAVA_OPTS -cp "$classpath" "$@"
+}
+
+# Función para generar el archivo CDS de jbuild
+generate_cds() {
+    local classpath
+    classpath="$(jbuild_classpath)"
+    if [ -z "$classpath" ]; then
+        echo -e "${RED}❌ No se encontraron los JAR de jbuild (compilar jbuild-core o definir JBUILD_CLASSPATH)${NC}"
+        return 1
+    fi
+    echo -e "${PURPLE}▶️  Generando archivo CDS con un build de entrenamiento...${NC}"
+    java -cp "$classpath" com.jbuild.core.startup.CdsCommand \
+        --directory "$JBUILD_CDS_DIR" --name jbuild --classpath "$classpath" \
+        --main com.jbuild.core.startup.CdsTraining
+    echo -e "${GREEN}✅ Las herramientas Java de jbuild usarán el archivo mientras no cambie el classpath${NC}"
+}
+
 # Función para mostrar versión
 show_version() {
     echo -e "${GREEN}📦 Información del Sistema:${NC}"
@@ -393,6 +458,15 @@ case "$COMMAND" in
     examples)
         run_examples
         ;;
+    cds)
+        generate_cds
+        ;;
+    affected)
+        jbuild_java com.jbuild.core.affected.AffectedModulesCommand "$@"
+        ;;
+    regressions)
+        jbuild_java com.jbuild.core.history.RegressionCommand "$@"
+        ;;
     *)
         echo -e "${RED}❌ Comando desconocido: $COMMAND${NC}"
         echo -e "${YELLOW}💡 Usa 'jbuild.sh help' para ver comandos disponibles${NC}"